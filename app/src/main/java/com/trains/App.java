@@ -6,8 +6,6 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-import java.util.Arrays;
-
 @SpringBootApplication
 public class App implements CommandLineRunner {
 
@@ -20,9 +18,6 @@ public class App implements CommandLineRunner {
     }
 
     public void run(String... args) {
-        String result = routingService.executeRoutingCommand(Arrays.asList(args));
-        System.out.println("#######################################################\n");
-        System.out.println("Output: " + result);
-        System.out.println("\n#######################################################");
+        AppConsole.run(routingService, args);
     }
 }
@@ -0,0 +1,64 @@
+package com.trains;
+
+import com.trains.services.RoutingService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Argument handling and output shared by {@link App} and {@link FastApp}, kept apart from both
+ * so that {@link FastApp} does not load any Spring classes.
+ */
+final class AppConsole {
+
+    private static final long CANCELLED_OUTPUT_WAIT_SECONDS = 2;
+
+    private AppConsole() {
+    }
+
+    /**
+     * Executes the command given by the arguments and prints its result. Pressing Ctrl-C shuts
+     * the service down, cancelling the queries in progress, and the JVM waits briefly for their
+     * partial results to be printed before it exits.
+     */
+    static void run(RoutingService routingService, String... args) {
+        CountDownLatch printed = new CountDownLatch(1);
+        Thread shutdownHook = new Thread(() -> {
+            routingService.shutdown();
+            try {
+                printed.await(CANCELLED_OUTPUT_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "trains-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            printOutput(routingService.executeRoutingCommand(toCommandArgs(args), System.out));
+        } finally {
+            printed.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down, so the hook is running.
+            }
+        }
+    }
+
+    // Arguments starting with -- are properties such as --trains.landmarks.count=16.
+    static List<String> toCommandArgs(String... args) {
+        return Arrays.stream(args)
+                .filter(arg -> !arg.startsWith("--"))
+                .collect(toList());
+    }
+
+    static void printOutput(String result) {
+        System.out.println("#######################################################\n");
+        System.out.println("Output: " + result);
+        System.out.println("\n#######################################################");
+    }
+}
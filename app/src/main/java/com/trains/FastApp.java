@@ -0,0 +1,107 @@
+package com.trains;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.services.QueryCache;
+import com.trains.services.QueryMetrics;
+import com.trains.services.RoutingService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the same commands as {@link App} with the same output, but wires the factories and the
+ * service by hand rather than starting a Spring context, so none of Spring is loaded. Meant for
+ * scripts that run a single command per process, where starting Spring costs far more than
+ * the command itself.
+ * <p>
+ * Properties are read from {@code application.properties} and may be overridden with
+ * {@code --name=value} arguments as for {@link App}. Every property the service needs must be
+ * set there, so its defaults are kept in one place, except that {@code trains.metrics.jmx} is
+ * off unless given as an argument: nothing watches a process running a single command, and
+ * registering the beans costs start-up time. Only {@code ${name}} and
+ * {@code ${name:default}} placeholders are resolved, from the other properties and then the
+ * system properties.
+ */
+public class FastApp {
+
+    private static final String PROPERTIES_RESOURCE = "/application.properties";
+    private static final String JMX_PROPERTY = "trains.metrics.jmx";
+    private static final Pattern PROPERTY_ARG = Pattern.compile("^--([^=]+)=(.*)$");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}:]+)(?::([^}]*))?}");
+
+    public static void main(String[] args) {
+        AppConsole.run(createRoutingService(loadProperties(args)), args);
+    }
+
+    static RoutingService createRoutingService(Properties properties) {
+        RouteMapFactory routeMapFactory = new RouteMapFactory();
+        RouteFactory routeFactory = new RouteFactory(
+                Integer.parseInt(getProperty(properties, "trains.landmarks.count")),
+                LandmarkSelection.valueOf(getProperty(properties, "trains.landmarks.selection")),
+                getProperty(properties, "trains.apsp.cache-directory"));
+        QueryCache queryCache = new QueryCache(
+                Integer.parseInt(getProperty(properties, "trains.query-cache.max-entries")),
+                Long.parseLong(getProperty(properties, "trains.query-cache.max-weight")),
+                getProperty(properties, "trains.query-cache.file"));
+        return new RoutingService(
+                routeMapFactory,
+                routeFactory,
+                queryCache,
+                new QueryMetrics(Boolean.parseBoolean(getProperty(properties, JMX_PROPERTY))),
+                Integer.parseInt(getProperty(properties, "trains.batch.parallelism")),
+                Long.parseLong(getProperty(properties, "trains.query.timeout-millis")),
+                Long.parseLong(getProperty(properties, "trains.query.max-expansions")),
+                Integer.parseInt(getProperty(properties, "trains.server.workers")),
+                Integer.parseInt(getProperty(properties, "trains.server.queue-depth")),
+                Boolean.parseBoolean(getProperty(properties, "trains.server.virtual-threads")));
+    }
+
+    static Properties loadProperties(String... args) {
+        Properties properties = new Properties();
+        try (InputStream in = FastApp.class.getResourceAsStream(PROPERTIES_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        properties.setProperty(JMX_PROPERTY, "false");
+
+        for (String arg : args) {
+            Matcher matcher = PROPERTY_ARG.matcher(arg);
+            if (matcher.matches()) {
+                properties.setProperty(matcher.group(1), matcher.group(2));
+            }
+        }
+        return properties;
+    }
+
+    private static String getProperty(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing property " + name + " in " + PROPERTIES_RESOURCE);
+        }
+        return resolvePlaceholders(properties, value.trim());
+    }
+
+    private static String resolvePlaceholders(Properties properties, String value) {
+        Matcher matcher = PLACEHOLDER.matcher(value);
+        StringBuffer resolved = new StringBuffer();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String replacement = properties.getProperty(name, System.getProperty(name, matcher.group(2)));
+            if (replacement == null) {
+                throw new IllegalArgumentException("Could not resolve placeholder " + name + " in " + value);
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(resolvePlaceholders(properties, replacement)));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+}
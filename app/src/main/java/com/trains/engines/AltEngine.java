@@ -0,0 +1,162 @@
+package com.trains.engines;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A* search guided by {@link Landmarks} lower bounds (ALT), which are built the first time a
+ * route graph is queried and kept for as long as the graph is.
+ * <p>
+ * Cities are queued by distance so far plus the lower bound on the distance still to go, so
+ * the search heads towards the destination rather than spreading out evenly, and cities the
+ * landmarks show cannot reach the destination are never queued. Lower bounds are worked out
+ * once per city per query. As in {@link DijkstraEngine} the origin itself is not queued, so a
+ * route from a city back to itself is its shortest cycle.
+ */
+public class AltEngine implements ShortestPathEngine {
+
+    public static final int DEFAULT_LANDMARK_COUNT = 8;
+    private static final long LANDMARK_SEED = 0;
+
+    private final int numLandmarks;
+    private final LandmarkSelection landmarkSelection;
+    private final RouteGraphCache<Landmarks> landmarks = new RouteGraphCache<>();
+    private final SearchStatePool<SearchState> searchStates = new SearchStatePool<>(SearchState::new);
+
+    public AltEngine() {
+        this(DEFAULT_LANDMARK_COUNT, LandmarkSelection.FARTHEST);
+    }
+
+    public AltEngine(int numLandmarks, LandmarkSelection landmarkSelection) {
+        this.numLandmarks = numLandmarks;
+        this.landmarkSelection = landmarkSelection;
+    }
+
+    public Landmarks getLandmarks(RouteGraph routeGraph) {
+        return landmarks.get(routeGraph, g -> new Landmarks(g, numLandmarks, landmarkSelection, LANDMARK_SEED));
+    }
+
+    /**
+     * Returns the landmarks of the graph if they have already been selected, without selecting
+     * them.
+     */
+    public Optional<Landmarks> findLandmarks(RouteGraph routeGraph) {
+        return landmarks.getIfPresent(routeGraph);
+    }
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        Landmarks routeGraphLandmarks = getLandmarks(routeGraph);
+        SearchState state = searchStates.borrow();
+        state.reset(routeGraph.getCityCount());
+
+        try {
+            relax(routeGraph, routeGraphLandmarks, state, originCityId, 0, destinationCityId);
+
+            while (!state.heap.isEmpty()) {
+                int cityId = state.heap.poll();
+                if (cityId == destinationCityId) {
+                    return DijkstraEngine.traceRoute(state.previousCityIds, originCityId, destinationCityId);
+                }
+                relax(routeGraph, routeGraphLandmarks, state, cityId, state.getDistance(cityId), destinationCityId);
+            }
+
+            throw new NoSuchRouteException();
+        } finally {
+            state.heap.clear();
+            QueryWork.current().addSearch(state.numSettledCities, state.numRelaxedUnitRoutes);
+            searchStates.giveBack(state);
+        }
+    }
+
+    private void relax(
+            RouteGraph routeGraph,
+            Landmarks routeGraphLandmarks,
+            SearchState state,
+            int cityId,
+            long distance,
+            int destinationCityId
+    ) {
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+        state.checkBudget();
+        for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distance + routeGraph.getDistance(unitRoute);
+            if (nextDistance >= state.getDistance(nextCityId)) {
+                continue;
+            }
+
+            long lowerBound = state.getLowerBound(routeGraphLandmarks, nextCityId, destinationCityId);
+            if (lowerBound != Landmarks.UNREACHABLE) {
+                state.setDistance(nextCityId, nextDistance, cityId);
+                state.heap.insertOrDecrease(nextCityId, nextDistance + lowerBound);
+            }
+        }
+    }
+
+    private static class SearchState {
+
+        private long[] distances = new long[0];
+        private long[] lowerBounds = new long[0];
+        private int[] previousCityIds = new int[0];
+        private int[] stamps = new int[0];
+        private int[] lowerBoundStamps = new int[0];
+        private int stamp;
+        private final IndexedMinHeap heap = new IndexedMinHeap(0);
+        private long numSettledCities;
+        private long numRelaxedUnitRoutes;
+        private QueryBudget budget;
+        private long numCheckedUnitRoutes;
+
+        void reset(int numCities) {
+            if (numCities > stamps.length) {
+                distances = new long[numCities];
+                lowerBounds = new long[numCities];
+                previousCityIds = new int[numCities];
+                stamps = new int[numCities];
+                lowerBoundStamps = new int[numCities];
+                stamp = 0;
+                heap.ensureCapacity(numCities);
+            }
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                Arrays.fill(lowerBoundStamps, 0);
+                stamp = 1;
+            }
+            numSettledCities = 0;
+            numRelaxedUnitRoutes = 0;
+            budget = QueryBudget.current();
+            numCheckedUnitRoutes = 0;
+        }
+
+        void checkBudget() {
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, 0);
+                numCheckedUnitRoutes = numRelaxedUnitRoutes;
+            }
+        }
+
+        long getDistance(int cityId) {
+            return stamps[cityId] == stamp ? distances[cityId] : Long.MAX_VALUE;
+        }
+
+        void setDistance(int cityId, long distance, int previousCityId) {
+            stamps[cityId] = stamp;
+            distances[cityId] = distance;
+            previousCityIds[cityId] = previousCityId;
+        }
+
+        long getLowerBound(Landmarks landmarks, int cityId, int destinationCityId) {
+            if (lowerBoundStamps[cityId] != stamp) {
+                lowerBoundStamps[cityId] = stamp;
+                lowerBounds[cityId] = landmarks.lowerBound(cityId, destinationCityId);
+            }
+            return lowerBounds[cityId];
+        }
+    }
+}
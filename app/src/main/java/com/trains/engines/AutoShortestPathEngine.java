@@ -0,0 +1,48 @@
+package com.trains.engines;
+
+import com.trains.models.RouteGraph;
+
+/**
+ * Picks a shortest path engine per query from the shape of the route graph: a bidirectional
+ * search on large maps, where it settles far fewer cities than a search from one end, Dial's
+ * bucket queue when every unit route distance is small, and Dijkstra with a binary heap
+ * otherwise.
+ */
+public class AutoShortestPathEngine implements ShortestPathEngine {
+
+    static final int MAX_BUCKET_QUEUE_DISTANCE = 255;
+    static final int MIN_BIDIRECTIONAL_CITY_COUNT = 4096;
+
+    private final ShortestPathEngine dijkstraEngine;
+    private final ShortestPathEngine dialEngine;
+    private final ShortestPathEngine bidirectionalEngine;
+
+    public AutoShortestPathEngine() {
+        this(new DijkstraEngine(), new DialEngine(), new BidirectionalDijkstraEngine());
+    }
+
+    public AutoShortestPathEngine(
+            ShortestPathEngine dijkstraEngine,
+            ShortestPathEngine dialEngine,
+            ShortestPathEngine bidirectionalEngine
+    ) {
+        this.dijkstraEngine = dijkstraEngine;
+        this.dialEngine = dialEngine;
+        this.bidirectionalEngine = bidirectionalEngine;
+    }
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        return selectEngine(routeGraph).findShortestRoute(routeGraph, originCityId, destinationCityId);
+    }
+
+    ShortestPathEngine selectEngine(RouteGraph routeGraph) {
+        if (routeGraph.getCityCount() >= MIN_BIDIRECTIONAL_CITY_COUNT) {
+            return bidirectionalEngine;
+        }
+        if (routeGraph.getMaxUnitRouteDistance() <= MAX_BUCKET_QUEUE_DISTANCE) {
+            return dialEngine;
+        }
+        return dijkstraEngine;
+    }
+}
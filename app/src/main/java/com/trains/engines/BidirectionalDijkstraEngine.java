@@ -0,0 +1,209 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+
+/**
+ * Point to point Dijkstra that searches forwards from the origin over the unit routes leaving
+ * each city and backwards from the destination over the unit routes arriving at each city,
+ * always expanding the side with the smaller queue.
+ * <p>
+ * Every unit route scanned from one side to a city already labelled by the other side is a
+ * candidate meeting point. The search stops once the smallest queued distances of the two
+ * sides add up to at least the best candidate, as no shorter route can be found after that.
+ * A route from a city back to itself has no natural meeting point, so those queries go to
+ * {@link DijkstraEngine}.
+ */
+public class BidirectionalDijkstraEngine implements ShortestPathEngine {
+
+    private final ShortestPathEngine cycleEngine;
+    private final SearchStatePool<SearchState> searchStates = new SearchStatePool<>(SearchState::new);
+
+    public BidirectionalDijkstraEngine() {
+        this(new DijkstraEngine());
+    }
+
+    public BidirectionalDijkstraEngine(ShortestPathEngine cycleEngine) {
+        this.cycleEngine = cycleEngine;
+    }
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        if (originCityId == destinationCityId) {
+            return cycleEngine.findShortestRoute(routeGraph, originCityId, destinationCityId);
+        }
+
+        SearchState state = searchStates.borrow();
+        state.reset(routeGraph.getCityCount());
+
+        try {
+            state.setForwardDistance(originCityId, 0, originCityId);
+            state.forwardHeap.insertOrDecrease(originCityId, 0);
+            state.setBackwardDistance(destinationCityId, 0, destinationCityId);
+            state.backwardHeap.insertOrDecrease(destinationCityId, 0);
+
+            while (!state.forwardHeap.isEmpty() && !state.backwardHeap.isEmpty()) {
+                if (state.forwardHeap.peekKey() + state.backwardHeap.peekKey() >= state.bestDistance) {
+                    break;
+                }
+                if (state.forwardHeap.size() <= state.backwardHeap.size()) {
+                    long distance = state.forwardHeap.peekKey();
+                    relaxForwards(routeGraph, state, state.forwardHeap.poll(), distance);
+                } else {
+                    long distance = state.backwardHeap.peekKey();
+                    relaxBackwards(routeGraph, state, state.backwardHeap.poll(), distance);
+                }
+            }
+
+            if (state.bestDistance == Long.MAX_VALUE) {
+                throw new NoSuchRouteException();
+            }
+            return traceRoute(state, originCityId, destinationCityId);
+        } finally {
+            state.forwardHeap.clear();
+            state.backwardHeap.clear();
+            QueryWork.current().addSearch(state.numSettledCities, state.numRelaxedUnitRoutes);
+            searchStates.giveBack(state);
+        }
+    }
+
+    private void relaxForwards(RouteGraph routeGraph, SearchState state, int cityId, long distance) {
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+        state.checkBudget();
+        for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distance + routeGraph.getDistance(unitRoute);
+
+            if (nextDistance < state.getForwardDistance(nextCityId)) {
+                state.setForwardDistance(nextCityId, nextDistance, cityId);
+                state.forwardHeap.insertOrDecrease(nextCityId, nextDistance);
+            }
+            state.meet(cityId, nextCityId, nextDistance, state.getBackwardDistance(nextCityId));
+        }
+    }
+
+    private void relaxBackwards(RouteGraph routeGraph, SearchState state, int cityId, long distance) {
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += routeGraph.getIncomingUnitRoutesEnd(cityId) - routeGraph.getIncomingUnitRoutesStart(cityId);
+        state.checkBudget();
+        for (int incoming = routeGraph.getIncomingUnitRoutesStart(cityId); incoming < routeGraph.getIncomingUnitRoutesEnd(cityId); incoming++) {
+            int previousCityId = routeGraph.getIncomingOriginCityId(incoming);
+            long previousDistance = distance + routeGraph.getIncomingDistance(incoming);
+
+            if (previousDistance < state.getBackwardDistance(previousCityId)) {
+                state.setBackwardDistance(previousCityId, previousDistance, cityId);
+                state.backwardHeap.insertOrDecrease(previousCityId, previousDistance);
+            }
+            state.meet(previousCityId, cityId, previousDistance, state.getForwardDistance(previousCityId));
+        }
+    }
+
+    private int[] traceRoute(SearchState state, int originCityId, int destinationCityId) {
+        int numForwardCities = 1;
+        for (int cityId = state.meetingOriginCityId; cityId != originCityId; cityId = state.previousCityIds[cityId]) {
+            numForwardCities++;
+        }
+        int numBackwardCities = 1;
+        for (int cityId = state.meetingDestinationCityId; cityId != destinationCityId; cityId = state.nextCityIds[cityId]) {
+            numBackwardCities++;
+        }
+
+        int[] cityIds = new int[numForwardCities + numBackwardCities];
+        int cityId = state.meetingOriginCityId;
+        for (int i = numForwardCities - 1; i >= 0; i--) {
+            cityIds[i] = cityId;
+            cityId = state.previousCityIds[cityId];
+        }
+        cityId = state.meetingDestinationCityId;
+        for (int i = numForwardCities; i < cityIds.length; i++) {
+            cityIds[i] = cityId;
+            cityId = state.nextCityIds[cityId];
+        }
+        return cityIds;
+    }
+
+    private static class SearchState {
+
+        private long[] forwardDistances = new long[0];
+        private long[] backwardDistances = new long[0];
+        private int[] previousCityIds = new int[0];
+        private int[] nextCityIds = new int[0];
+        private int[] forwardStamps = new int[0];
+        private int[] backwardStamps = new int[0];
+        private int stamp;
+        private final IndexedMinHeap forwardHeap = new IndexedMinHeap(0);
+        private final IndexedMinHeap backwardHeap = new IndexedMinHeap(0);
+
+        private long bestDistance;
+        private int meetingOriginCityId;
+        private int meetingDestinationCityId;
+        private long numSettledCities;
+        private long numRelaxedUnitRoutes;
+        private QueryBudget budget;
+        private long numCheckedUnitRoutes;
+
+        void reset(int numCities) {
+            if (numCities > forwardStamps.length) {
+                forwardDistances = new long[numCities];
+                backwardDistances = new long[numCities];
+                previousCityIds = new int[numCities];
+                nextCityIds = new int[numCities];
+                forwardStamps = new int[numCities];
+                backwardStamps = new int[numCities];
+                stamp = 0;
+                forwardHeap.ensureCapacity(numCities);
+                backwardHeap.ensureCapacity(numCities);
+            }
+            if (++stamp == 0) {
+                Arrays.fill(forwardStamps, 0);
+                Arrays.fill(backwardStamps, 0);
+                stamp = 1;
+            }
+            bestDistance = Long.MAX_VALUE;
+            numSettledCities = 0;
+            numRelaxedUnitRoutes = 0;
+            budget = QueryBudget.current();
+            numCheckedUnitRoutes = 0;
+        }
+
+        void checkBudget() {
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, 0);
+                numCheckedUnitRoutes = numRelaxedUnitRoutes;
+            }
+        }
+
+        long getForwardDistance(int cityId) {
+            return forwardStamps[cityId] == stamp ? forwardDistances[cityId] : Long.MAX_VALUE;
+        }
+
+        void setForwardDistance(int cityId, long distance, int previousCityId) {
+            forwardStamps[cityId] = stamp;
+            forwardDistances[cityId] = distance;
+            previousCityIds[cityId] = previousCityId;
+        }
+
+        long getBackwardDistance(int cityId) {
+            return backwardStamps[cityId] == stamp ? backwardDistances[cityId] : Long.MAX_VALUE;
+        }
+
+        void setBackwardDistance(int cityId, long distance, int nextCityId) {
+            backwardStamps[cityId] = stamp;
+            backwardDistances[cityId] = distance;
+            nextCityIds[cityId] = nextCityId;
+        }
+
+        // Records the unit route from originCityId to destinationCityId as the best meeting
+        // point if the distance up to the end of it plus the distance still to go beats it.
+        void meet(int originCityId, int destinationCityId, long distanceSoFar, long distanceToGo) {
+            if (distanceToGo != Long.MAX_VALUE && distanceSoFar + distanceToGo < bestDistance) {
+                bestDistance = distanceSoFar + distanceToGo;
+                meetingOriginCityId = originCityId;
+                meetingDestinationCityId = destinationCityId;
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.trains.engines;
+
+import com.trains.models.RouteGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Contraction hierarchy over a {@link RouteGraph}: every city is given a rank, and cities are
+ * contracted from the lowest rank up, adding a shortcut between each pair of remaining
+ * neighbours whose shortest route ran through the contracted city.
+ * <p>
+ * Afterwards a shortest route between any two cities can be found by searching only upwards
+ * in rank from the origin and only upwards from the destination against the direction of
+ * travel. Unit routes and shortcuts are both kept as edges, edge {@code i} for
+ * {@code i < getUnitRouteCount()} being unit route {@code i} of the graph, and each shortcut
+ * remembers the two edges it replaces so routes can be unpacked again.
+ * <p>
+ * Cities are contracted in order of edge difference, the number of shortcuts contracting them
+ * would add less the number of edges removed, plus the number of neighbours already
+ * contracted, updated lazily as cities come off the queue. Witness searches looking for a
+ * route around a city that makes a shortcut unnecessary give up after
+ * {@code WITNESS_SEARCH_SETTLE_LIMIT} cities, which can only add shortcuts that are not
+ * needed, never leave out ones that are.
+ * <p>
+ * Contracting checks the building thread's {@link QueryBudget} every
+ * {@link QueryBudget#CHECK_INTERVAL} cities contracted or settled by witness searches, for its
+ * deadline and cancellation only, so a query that runs out stops building the hierarchy too.
+ */
+public class ContractionHierarchy {
+
+    private static final int WITNESS_SEARCH_SETTLE_LIMIT = 500;
+    private static final int NONE = -1;
+
+    private final RouteGraph routeGraph;
+    private final int[] ranks;
+    private final int[] edgeOrigins;
+    private final int[] edgeDestinations;
+    private final long[] edgeDistances;
+    private final int[] firstChildEdges;
+    private final int[] secondChildEdges;
+    private final int[] upwardOffsets;
+    private final int[] upwardEdges;
+    private final int[] downwardOffsets;
+    private final int[] downwardEdges;
+    private final long preprocessingNanos;
+
+    public ContractionHierarchy(RouteGraph routeGraph) {
+        long start = System.nanoTime();
+        this.routeGraph = routeGraph;
+
+        Contractor contractor = new Contractor(routeGraph);
+        contractor.contractAll();
+
+        ranks = contractor.ranks;
+        edgeOrigins = Arrays.copyOf(contractor.edgeOrigins, contractor.numEdges);
+        edgeDestinations = Arrays.copyOf(contractor.edgeDestinations, contractor.numEdges);
+        edgeDistances = Arrays.copyOf(contractor.edgeDistances, contractor.numEdges);
+        firstChildEdges = Arrays.copyOf(contractor.firstChildEdges, contractor.numEdges);
+        secondChildEdges = Arrays.copyOf(contractor.secondChildEdges, contractor.numEdges);
+
+        upwardOffsets = new int[routeGraph.getCityCount() + 1];
+        upwardEdges = flatten(contractor.upwardEdges, upwardOffsets);
+        downwardOffsets = new int[routeGraph.getCityCount() + 1];
+        downwardEdges = flatten(contractor.downwardEdges, downwardOffsets);
+
+        preprocessingNanos = System.nanoTime() - start;
+    }
+
+    public RouteGraph getRouteGraph() {
+        return routeGraph;
+    }
+
+    public int getRank(int cityId) {
+        return ranks[cityId];
+    }
+
+    public int getShortcutCount() {
+        return edgeOrigins.length - routeGraph.getUnitRouteCount();
+    }
+
+    public long getPreprocessingNanos() {
+        return preprocessingNanos;
+    }
+
+    /**
+     * The edges leaving a city for cities of higher rank occupy indexes from here (inclusive)
+     * to {@link #getUpwardEdgesEnd} (exclusive) in {@link #getUpwardEdge}.
+     */
+    public int getUpwardEdgesStart(int cityId) {
+        return upwardOffsets[cityId];
+    }
+
+    public int getUpwardEdgesEnd(int cityId) {
+        return upwardOffsets[cityId + 1];
+    }
+
+    public int getUpwardEdge(int index) {
+        return upwardEdges[index];
+    }
+
+    /**
+     * The edges arriving at a city from cities of higher rank occupy indexes from here
+     * (inclusive) to {@link #getDownwardEdgesEnd} (exclusive) in {@link #getDownwardEdge}.
+     */
+    public int getDownwardEdgesStart(int cityId) {
+        return downwardOffsets[cityId];
+    }
+
+    public int getDownwardEdgesEnd(int cityId) {
+        return downwardOffsets[cityId + 1];
+    }
+
+    public int getDownwardEdge(int index) {
+        return downwardEdges[index];
+    }
+
+    public int getEdgeOrigin(int edge) {
+        return edgeOrigins[edge];
+    }
+
+    public int getEdgeDestination(int edge) {
+        return edgeDestinations[edge];
+    }
+
+    public long getEdgeDistance(int edge) {
+        return edgeDistances[edge];
+    }
+
+    /**
+     * Expands a chain of edges starting at the origin, shortcuts included, into the city ids
+     * of the unit routes they stand for.
+     */
+    public int[] unpackRoute(int originCityId, int[] edges, int numEdges) {
+        int[] cityIds = new int[numEdges + 1];
+        int numCities = 0;
+        cityIds[numCities++] = originCityId;
+
+        int[] stack = new int[16];
+        for (int i = 0; i < numEdges; i++) {
+            int depth = 0;
+            stack[depth++] = edges[i];
+            while (depth > 0) {
+                int edge = stack[--depth];
+                if (firstChildEdges[edge] == NONE) {
+                    if (numCities == cityIds.length) {
+                        cityIds = Arrays.copyOf(cityIds, numCities * 2);
+                    }
+                    cityIds[numCities++] = edgeDestinations[edge];
+                    continue;
+                }
+                if (depth + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[depth++] = secondChildEdges[edge];
+                stack[depth++] = firstChildEdges[edge];
+            }
+        }
+        return Arrays.copyOf(cityIds, numCities);
+    }
+
+    private static int[] flatten(int[][] rows, int[] offsets) {
+        for (int cityId = 0; cityId < rows.length; cityId++) {
+            offsets[cityId + 1] = offsets[cityId] + rows[cityId].length;
+        }
+        int[] flattened = new int[offsets[rows.length]];
+        for (int cityId = 0; cityId < rows.length; cityId++) {
+            System.arraycopy(rows[cityId], 0, flattened, offsets[cityId], rows[cityId].length);
+        }
+        return flattened;
+    }
+
+    private static class Contractor {
+
+        private final int numCities;
+        private final List<Map<Integer, Integer>> outgoingEdges;
+        private final List<Map<Integer, Integer>> incomingEdges;
+        private final int[] contractedNeighbours;
+        private final int[] levels;
+        private final int[] ranks;
+        private final int[][] upwardEdges;
+        private final int[][] downwardEdges;
+
+        private int[] edgeOrigins;
+        private int[] edgeDestinations;
+        private long[] edgeDistances;
+        private int[] firstChildEdges;
+        private int[] secondChildEdges;
+        private int numEdges;
+
+        private final long[] witnessDistances;
+        private final int[] witnessStamps;
+        private int witnessStamp;
+        private final IndexedMinHeap witnessHeap;
+
+        private final QueryBudget budget = QueryBudget.current();
+        private long numUncheckedCities;
+
+        Contractor(RouteGraph routeGraph) {
+            numCities = routeGraph.getCityCount();
+            outgoingEdges = new ArrayList<>(numCities);
+            incomingEdges = new ArrayList<>(numCities);
+            for (int cityId = 0; cityId < numCities; cityId++) {
+                outgoingEdges.add(new HashMap<>());
+                incomingEdges.add(new HashMap<>());
+            }
+            contractedNeighbours = new int[numCities];
+            levels = new int[numCities];
+            ranks = new int[numCities];
+            upwardEdges = new int[numCities][];
+            downwardEdges = new int[numCities][];
+
+            int capacity = Math.max(16, routeGraph.getUnitRouteCount() * 2);
+            edgeOrigins = new int[capacity];
+            edgeDestinations = new int[capacity];
+            edgeDistances = new long[capacity];
+            firstChildEdges = new int[capacity];
+            secondChildEdges = new int[capacity];
+            for (int cityId = 0; cityId < numCities; cityId++) {
+                for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                    addEdge(cityId, routeGraph.getDestinationCityId(unitRoute), routeGraph.getDistance(unitRoute), NONE, NONE);
+                }
+            }
+
+            witnessDistances = new long[numCities];
+            witnessStamps = new int[numCities];
+            witnessHeap = new IndexedMinHeap(numCities);
+        }
+
+        void contractAll() {
+            PriorityQueue<Long> queue = new PriorityQueue<>();
+            for (int cityId = 0; cityId < numCities; cityId++) {
+                queue.add(queueKey(calculatePriority(cityId), cityId));
+            }
+
+            int rank = 0;
+            while (!queue.isEmpty()) {
+                int cityId = (int) queue.poll().longValue();
+                long key = queueKey(calculatePriority(cityId), cityId);
+                if (!queue.isEmpty() && key > queue.peek()) {
+                    queue.add(key);
+                    continue;
+                }
+                contract(cityId);
+                ranks[cityId] = rank++;
+                checkBudget();
+            }
+        }
+
+        // The expansions are left to the queries, as the hierarchy is shared by every later one.
+        private void checkBudget() {
+            if (++numUncheckedCities >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(0, 0);
+                numUncheckedCities = 0;
+            }
+        }
+
+        private int calculatePriority(int cityId) {
+            int numShortcuts = findShortcuts(cityId, null);
+            int numRemovedEdges = outgoingEdges.get(cityId).size() + incomingEdges.get(cityId).size();
+            return 2 * (numShortcuts - numRemovedEdges) + contractedNeighbours[cityId] + levels[cityId];
+        }
+
+        private void contract(int cityId) {
+            List<int[]> shortcuts = new ArrayList<>();
+            findShortcuts(cityId, shortcuts);
+            for (int[] shortcut : shortcuts) {
+                addShortcut(shortcut[0], shortcut[1], shortcut[2], shortcut[3]);
+            }
+
+            Map<Integer, Integer> outgoing = outgoingEdges.get(cityId);
+            Map<Integer, Integer> incoming = incomingEdges.get(cityId);
+            upwardEdges[cityId] = outgoing.values().stream().mapToInt(Integer::intValue).toArray();
+            downwardEdges[cityId] = incoming.values().stream().mapToInt(Integer::intValue).toArray();
+
+            for (int nextCityId : outgoing.keySet()) {
+                incomingEdges.get(nextCityId).remove(cityId);
+                contractedNeighbours[nextCityId]++;
+                levels[nextCityId] = Math.max(levels[nextCityId], levels[cityId] + 1);
+            }
+            for (int previousCityId : incoming.keySet()) {
+                outgoingEdges.get(previousCityId).remove(cityId);
+                contractedNeighbours[previousCityId]++;
+                levels[previousCityId] = Math.max(levels[previousCityId], levels[cityId] + 1);
+            }
+            outgoing.clear();
+            incoming.clear();
+        }
+
+        // Counts the shortcuts contracting the city would need, adding each one to the list as
+        // {origin, destination, first edge, second edge} if a list is given.
+        private int findShortcuts(int cityId, List<int[]> shortcuts) {
+            int numShortcuts = 0;
+            Map<Integer, Integer> outgoing = outgoingEdges.get(cityId);
+
+            for (Map.Entry<Integer, Integer> incoming : incomingEdges.get(cityId).entrySet()) {
+                int previousCityId = incoming.getKey();
+                long incomingDistance = edgeDistances[incoming.getValue()];
+
+                long maxDistance = -1;
+                for (Map.Entry<Integer, Integer> next : outgoing.entrySet()) {
+                    if (next.getKey() != previousCityId) {
+                        maxDistance = Math.max(maxDistance, incomingDistance + edgeDistances[next.getValue()]);
+                    }
+                }
+                if (maxDistance < 0) {
+                    continue;
+                }
+
+                searchForWitnesses(previousCityId, cityId, maxDistance);
+                for (Map.Entry<Integer, Integer> next : outgoing.entrySet()) {
+                    int nextCityId = next.getKey();
+                    long distance = incomingDistance + edgeDistances[next.getValue()];
+                    if (nextCityId == previousCityId || getWitnessDistance(nextCityId) <= distance) {
+                        continue;
+                    }
+                    numShortcuts++;
+                    if (shortcuts != null) {
+                        shortcuts.add(new int[]{previousCityId, nextCityId, incoming.getValue(), next.getValue()});
+                    }
+                }
+            }
+            return numShortcuts;
+        }
+
+        // Dijkstra from the origin over the cities not yet contracted, avoiding the city being
+        // contracted, as far as the longest route through it that a shortcut could replace.
+        private void searchForWitnesses(int originCityId, int avoidedCityId, long maxDistance) {
+            if (++witnessStamp == 0) {
+                Arrays.fill(witnessStamps, 0);
+                witnessStamp = 1;
+            }
+            witnessStamps[originCityId] = witnessStamp;
+            witnessDistances[originCityId] = 0;
+            witnessHeap.insertOrDecrease(originCityId, 0);
+
+            int numSettled = 0;
+            while (!witnessHeap.isEmpty() && witnessHeap.peekKey() <= maxDistance && numSettled < WITNESS_SEARCH_SETTLE_LIMIT) {
+                long distance = witnessHeap.peekKey();
+                int cityId = witnessHeap.poll();
+                numSettled++;
+                checkBudget();
+
+                for (Map.Entry<Integer, Integer> next : outgoingEdges.get(cityId).entrySet()) {
+                    int nextCityId = next.getKey();
+                    long nextDistance = distance + edgeDistances[next.getValue()];
+                    if (nextCityId != avoidedCityId && nextDistance < getWitnessDistance(nextCityId)) {
+                        witnessStamps[nextCityId] = witnessStamp;
+                        witnessDistances[nextCityId] = nextDistance;
+                        witnessHeap.insertOrDecrease(nextCityId, nextDistance);
+                    }
+                }
+            }
+            witnessHeap.clear();
+        }
+
+        private long getWitnessDistance(int cityId) {
+            return witnessStamps[cityId] == witnessStamp ? witnessDistances[cityId] : Long.MAX_VALUE;
+        }
+
+        private void addShortcut(int originCityId, int destinationCityId, int firstEdge, int secondEdge) {
+            long distance = edgeDistances[firstEdge] + edgeDistances[secondEdge];
+            Integer existingEdge = outgoingEdges.get(originCityId).get(destinationCityId);
+            if (existingEdge == null || distance < edgeDistances[existingEdge]) {
+                addEdge(originCityId, destinationCityId, distance, firstEdge, secondEdge);
+            }
+        }
+
+        private void addEdge(int originCityId, int destinationCityId, long distance, int firstEdge, int secondEdge) {
+            if (numEdges == edgeOrigins.length) {
+                int capacity = numEdges * 2;
+                edgeOrigins = Arrays.copyOf(edgeOrigins, capacity);
+                edgeDestinations = Arrays.copyOf(edgeDestinations, capacity);
+                edgeDistances = Arrays.copyOf(edgeDistances, capacity);
+                firstChildEdges = Arrays.copyOf(firstChildEdges, capacity);
+                secondChildEdges = Arrays.copyOf(secondChildEdges, capacity);
+            }
+            int edge = numEdges++;
+            edgeOrigins[edge] = originCityId;
+            edgeDestinations[edge] = destinationCityId;
+            edgeDistances[edge] = distance;
+            firstChildEdges[edge] = firstEdge;
+            secondChildEdges[edge] = secondEdge;
+
+            outgoingEdges.get(originCityId).put(destinationCityId, edge);
+            incomingEdges.get(destinationCityId).put(originCityId, edge);
+        }
+
+        private static long queueKey(int priority, int cityId) {
+            return ((long) priority << 32) | cityId;
+        }
+    }
+}
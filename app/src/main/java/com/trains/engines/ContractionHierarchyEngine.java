@@ -0,0 +1,279 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+
+/**
+ * Answers shortest route queries with a {@link ContractionHierarchy}, built the first time a
+ * route graph is queried and kept for as long as the graph is. The time it took and the
+ * shortcuts it added are counted in the building query's {@link QueryWork}.
+ * <p>
+ * Each query is a bidirectional Dijkstra that only follows edges up the hierarchy, forwards
+ * from the origin and backwards from the destination, and the best route goes through the
+ * city with the smallest sum of the two distances. Each side stops once its smallest queued
+ * distance reaches the best sum found. For a route from a city back to itself the backward
+ * search starts from every city with a unit route into it instead, already that unit route's
+ * distance away, so the route always has at least one stop.
+ */
+public class ContractionHierarchyEngine implements ShortestPathEngine {
+
+    private static final int NONE = -1;
+
+    private final RouteGraphCache<ContractionHierarchy> contractionHierarchies = new RouteGraphCache<>();
+    private final SearchStatePool<SearchState> searchStates = new SearchStatePool<>(SearchState::new);
+
+    public ContractionHierarchy getContractionHierarchy(RouteGraph routeGraph) {
+        return contractionHierarchies.get(routeGraph, graph -> {
+            ContractionHierarchy contractionHierarchy = new ContractionHierarchy(graph);
+            QueryWork.current().addPreprocessing(contractionHierarchy.getPreprocessingNanos(), contractionHierarchy.getShortcutCount());
+            return contractionHierarchy;
+        });
+    }
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        ContractionHierarchy contractionHierarchy = getContractionHierarchy(routeGraph);
+        SearchState state = searchStates.borrow();
+        state.reset(routeGraph.getCityCount());
+
+        try {
+            state.labelForwards(originCityId, 0, NONE);
+            if (originCityId != destinationCityId) {
+                state.labelBackwards(destinationCityId, 0, NONE);
+            } else {
+                for (int incoming = routeGraph.getIncomingUnitRoutesStart(originCityId); incoming < routeGraph.getIncomingUnitRoutesEnd(originCityId); incoming++) {
+                    int previousCityId = routeGraph.getIncomingOriginCityId(incoming);
+                    int unitRoute = routeGraph.findUnitRoute(previousCityId, originCityId);
+                    state.labelBackwards(previousCityId, routeGraph.getIncomingDistance(incoming), lastEdge(unitRoute));
+                }
+            }
+
+            boolean forwards = true;
+            while (state.canSearchForwards() || state.canSearchBackwards()) {
+                if (forwards ? !state.canSearchForwards() : !state.canSearchBackwards()) {
+                    forwards = !forwards;
+                }
+                if (forwards) {
+                    searchForwards(contractionHierarchy, state);
+                } else {
+                    searchBackwards(contractionHierarchy, state);
+                }
+                forwards = !forwards;
+            }
+
+            if (state.bestDistance == Long.MAX_VALUE) {
+                throw new NoSuchRouteException();
+            }
+            return traceRoute(contractionHierarchy, state, originCityId);
+        } finally {
+            state.forwardHeap.clear();
+            state.backwardHeap.clear();
+            QueryWork.current().addSearch(state.numSettledCities, state.numRelaxedUnitRoutes);
+            searchStates.giveBack(state);
+        }
+    }
+
+    private void searchForwards(ContractionHierarchy contractionHierarchy, SearchState state) {
+        long distance = state.forwardHeap.peekKey();
+        int cityId = state.forwardHeap.poll();
+        if (isStalledForwards(contractionHierarchy, state, cityId, distance)) {
+            return;
+        }
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += contractionHierarchy.getUpwardEdgesEnd(cityId) - contractionHierarchy.getUpwardEdgesStart(cityId);
+        state.checkBudget();
+
+        for (int i = contractionHierarchy.getUpwardEdgesStart(cityId); i < contractionHierarchy.getUpwardEdgesEnd(cityId); i++) {
+            int edge = contractionHierarchy.getUpwardEdge(i);
+            int nextCityId = contractionHierarchy.getEdgeDestination(edge);
+            long nextDistance = distance + contractionHierarchy.getEdgeDistance(edge);
+            if (nextDistance < state.getForwardDistance(nextCityId)) {
+                state.labelForwards(nextCityId, nextDistance, edge);
+            }
+        }
+    }
+
+    private void searchBackwards(ContractionHierarchy contractionHierarchy, SearchState state) {
+        long distance = state.backwardHeap.peekKey();
+        int cityId = state.backwardHeap.poll();
+        if (isStalledBackwards(contractionHierarchy, state, cityId, distance)) {
+            return;
+        }
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += contractionHierarchy.getDownwardEdgesEnd(cityId) - contractionHierarchy.getDownwardEdgesStart(cityId);
+        state.checkBudget();
+
+        for (int i = contractionHierarchy.getDownwardEdgesStart(cityId); i < contractionHierarchy.getDownwardEdgesEnd(cityId); i++) {
+            int edge = contractionHierarchy.getDownwardEdge(i);
+            int previousCityId = contractionHierarchy.getEdgeOrigin(edge);
+            long previousDistance = distance + contractionHierarchy.getEdgeDistance(edge);
+            if (previousDistance < state.getBackwardDistance(previousCityId)) {
+                state.labelBackwards(previousCityId, previousDistance, edge);
+            }
+        }
+    }
+
+    // A city the forward search reached the long way round can be skipped if a city above it
+    // already has a shorter route down to it, as nothing above it can then lie on the best route.
+    private boolean isStalledForwards(ContractionHierarchy contractionHierarchy, SearchState state, int cityId, long distance) {
+        for (int i = contractionHierarchy.getDownwardEdgesStart(cityId); i < contractionHierarchy.getDownwardEdgesEnd(cityId); i++) {
+            int edge = contractionHierarchy.getDownwardEdge(i);
+            long forwardDistance = state.getForwardDistance(contractionHierarchy.getEdgeOrigin(edge));
+            if (forwardDistance != Long.MAX_VALUE && forwardDistance + contractionHierarchy.getEdgeDistance(edge) < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStalledBackwards(ContractionHierarchy contractionHierarchy, SearchState state, int cityId, long distance) {
+        for (int i = contractionHierarchy.getUpwardEdgesStart(cityId); i < contractionHierarchy.getUpwardEdgesEnd(cityId); i++) {
+            int edge = contractionHierarchy.getUpwardEdge(i);
+            long backwardDistance = state.getBackwardDistance(contractionHierarchy.getEdgeDestination(edge));
+            if (backwardDistance != Long.MAX_VALUE && backwardDistance + contractionHierarchy.getEdgeDistance(edge) < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] traceRoute(ContractionHierarchy contractionHierarchy, SearchState state, int originCityId) {
+        int numEdges = 0;
+        for (int cityId = state.meetingCityId; state.previousEdges[cityId] != NONE; cityId = contractionHierarchy.getEdgeOrigin(state.previousEdges[cityId])) {
+            numEdges++;
+        }
+        int numForwardEdges = numEdges;
+        for (int cityId = state.meetingCityId; state.nextEdges[cityId] != NONE; cityId = contractionHierarchy.getEdgeDestination(state.nextEdges[cityId])) {
+            numEdges++;
+            if (isLastEdge(state.nextEdges[cityId])) {
+                break;
+            }
+        }
+
+        int[] edges = new int[numEdges];
+        int i = numForwardEdges;
+        for (int cityId = state.meetingCityId; state.previousEdges[cityId] != NONE; cityId = contractionHierarchy.getEdgeOrigin(state.previousEdges[cityId])) {
+            edges[--i] = state.previousEdges[cityId];
+        }
+        i = numForwardEdges;
+        for (int cityId = state.meetingCityId; state.nextEdges[cityId] != NONE; cityId = contractionHierarchy.getEdgeDestination(state.nextEdges[cityId])) {
+            int edge = state.nextEdges[cityId];
+            if (isLastEdge(edge)) {
+                edges[i] = lastEdgeToEdge(edge);
+                break;
+            }
+            edges[i++] = edge;
+        }
+        return contractionHierarchy.unpackRoute(originCityId, edges, numEdges);
+    }
+
+    // The unit routes into the origin that start the backward search of a cycle query are
+    // encoded below NONE so that tracing the route stops after them, rather than carrying on
+    // around the cycle from the origin's own backward label.
+    private static int lastEdge(int edge) {
+        return -2 - edge;
+    }
+
+    private static boolean isLastEdge(int encodedEdge) {
+        return encodedEdge < NONE;
+    }
+
+    private static int lastEdgeToEdge(int encodedEdge) {
+        return -2 - encodedEdge;
+    }
+
+    private static class SearchState {
+
+        private long[] forwardDistances = new long[0];
+        private long[] backwardDistances = new long[0];
+        private int[] previousEdges = new int[0];
+        private int[] nextEdges = new int[0];
+        private int[] forwardStamps = new int[0];
+        private int[] backwardStamps = new int[0];
+        private int stamp;
+        private final IndexedMinHeap forwardHeap = new IndexedMinHeap(0);
+        private final IndexedMinHeap backwardHeap = new IndexedMinHeap(0);
+
+        private long bestDistance;
+        private int meetingCityId;
+        private long numSettledCities;
+        private long numRelaxedUnitRoutes;
+        private QueryBudget budget;
+        private long numCheckedUnitRoutes;
+
+        void reset(int numCities) {
+            if (numCities > forwardStamps.length) {
+                forwardDistances = new long[numCities];
+                backwardDistances = new long[numCities];
+                previousEdges = new int[numCities];
+                nextEdges = new int[numCities];
+                forwardStamps = new int[numCities];
+                backwardStamps = new int[numCities];
+                stamp = 0;
+                forwardHeap.ensureCapacity(numCities);
+                backwardHeap.ensureCapacity(numCities);
+            }
+            if (++stamp == 0) {
+                Arrays.fill(forwardStamps, 0);
+                Arrays.fill(backwardStamps, 0);
+                stamp = 1;
+            }
+            bestDistance = Long.MAX_VALUE;
+            numSettledCities = 0;
+            numRelaxedUnitRoutes = 0;
+            budget = QueryBudget.current();
+            numCheckedUnitRoutes = 0;
+        }
+
+        void checkBudget() {
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, 0);
+                numCheckedUnitRoutes = numRelaxedUnitRoutes;
+            }
+        }
+
+        boolean canSearchForwards() {
+            return !forwardHeap.isEmpty() && forwardHeap.peekKey() < bestDistance;
+        }
+
+        boolean canSearchBackwards() {
+            return !backwardHeap.isEmpty() && backwardHeap.peekKey() < bestDistance;
+        }
+
+        long getForwardDistance(int cityId) {
+            return forwardStamps[cityId] == stamp ? forwardDistances[cityId] : Long.MAX_VALUE;
+        }
+
+        long getBackwardDistance(int cityId) {
+            return backwardStamps[cityId] == stamp ? backwardDistances[cityId] : Long.MAX_VALUE;
+        }
+
+        void labelForwards(int cityId, long distance, int previousEdge) {
+            forwardStamps[cityId] = stamp;
+            forwardDistances[cityId] = distance;
+            previousEdges[cityId] = previousEdge;
+            forwardHeap.insertOrDecrease(cityId, distance);
+            meet(cityId, distance, getBackwardDistance(cityId));
+        }
+
+        void labelBackwards(int cityId, long distance, int nextEdge) {
+            if (distance >= getBackwardDistance(cityId)) {
+                return;
+            }
+            backwardStamps[cityId] = stamp;
+            backwardDistances[cityId] = distance;
+            nextEdges[cityId] = nextEdge;
+            backwardHeap.insertOrDecrease(cityId, distance);
+            meet(cityId, getForwardDistance(cityId), distance);
+        }
+
+        private void meet(int cityId, long forwardDistance, long backwardDistance) {
+            if (forwardDistance != Long.MAX_VALUE && backwardDistance != Long.MAX_VALUE && forwardDistance + backwardDistance < bestDistance) {
+                bestDistance = forwardDistance + backwardDistance;
+                meetingCityId = cityId;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dial's algorithm: Dijkstra with the heap replaced by a circular array of
+ * {@code maxUnitRouteDistance + 1} buckets indexed by distance, for maps whose unit route
+ * distances are small integers.
+ * <p>
+ * Every queued city is at most {@code maxUnitRouteDistance} beyond the bucket being scanned,
+ * so the ring never wraps onto itself. Buckets are intrusive doubly linked lists over city ids,
+ * making both queueing and moving a city to a nearer bucket O(1). Scratch state is pooled and
+ * stamped per query, as in {@link DijkstraEngine}.
+ */
+public class DialEngine implements ShortestPathEngine {
+
+    private static final int NONE = -1;
+
+    private final SearchStatePool<SearchState> searchStates = new SearchStatePool<>(SearchState::new);
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        SearchState state = searchStates.borrow();
+        state.reset(routeGraph.getCityCount(), routeGraph.getMaxUnitRouteDistance() + 1);
+
+        try {
+            relax(routeGraph, state, originCityId, 0);
+
+            for (long distance = 0; state.numQueued > 0; distance++) {
+                int bucket = (int) (distance % state.numBuckets);
+                int cityId;
+                while ((cityId = state.bucketHeads[bucket]) != NONE) {
+                    state.dequeue(cityId, bucket);
+                    if (cityId == destinationCityId) {
+                        return DijkstraEngine.traceRoute(state.previousCityIds, originCityId, destinationCityId);
+                    }
+                    relax(routeGraph, state, cityId, distance);
+                }
+            }
+
+            throw new NoSuchRouteException();
+        } finally {
+            state.clearBuckets();
+            QueryWork.current().addSearch(state.numSettledCities, state.numRelaxedUnitRoutes);
+            searchStates.giveBack(state);
+        }
+    }
+
+    private void relax(RouteGraph routeGraph, SearchState state, int cityId, long distance) {
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+        state.checkBudget();
+        for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distance + routeGraph.getDistance(unitRoute);
+
+            long currentDistance = state.getDistance(nextCityId);
+            if (nextDistance < currentDistance) {
+                if (state.queued[nextCityId]) {
+                    state.dequeue(nextCityId, (int) (currentDistance % state.numBuckets));
+                }
+                state.setDistance(nextCityId, nextDistance, cityId);
+                state.enqueue(nextCityId, (int) (nextDistance % state.numBuckets));
+            }
+        }
+    }
+
+    private static class SearchState {
+
+        private long[] distances = new long[0];
+        private int[] previousCityIds = new int[0];
+        private int[] stamps = new int[0];
+        private int stamp;
+
+        private int[] bucketHeads = new int[0];
+        private int[] nextInBucket = new int[0];
+        private int[] previousInBucket = new int[0];
+        private boolean[] queued = new boolean[0];
+        private int numBuckets;
+        private int numQueued;
+        private long numSettledCities;
+        private long numRelaxedUnitRoutes;
+        private QueryBudget budget;
+        private long numCheckedUnitRoutes;
+
+        void reset(int numCities, int numBuckets) {
+            if (numCities > stamps.length) {
+                distances = new long[numCities];
+                previousCityIds = new int[numCities];
+                stamps = new int[numCities];
+                nextInBucket = new int[numCities];
+                previousInBucket = new int[numCities];
+                queued = new boolean[numCities];
+                stamp = 0;
+            }
+            if (numBuckets > bucketHeads.length) {
+                bucketHeads = new int[numBuckets];
+                Arrays.fill(bucketHeads, NONE);
+            }
+            this.numBuckets = numBuckets;
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            numSettledCities = 0;
+            numRelaxedUnitRoutes = 0;
+            budget = QueryBudget.current();
+            numCheckedUnitRoutes = 0;
+        }
+
+        void checkBudget() {
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, 0);
+                numCheckedUnitRoutes = numRelaxedUnitRoutes;
+            }
+        }
+
+        long getDistance(int cityId) {
+            return stamps[cityId] == stamp ? distances[cityId] : Long.MAX_VALUE;
+        }
+
+        void setDistance(int cityId, long distance, int previousCityId) {
+            stamps[cityId] = stamp;
+            distances[cityId] = distance;
+            previousCityIds[cityId] = previousCityId;
+        }
+
+        void enqueue(int cityId, int bucket) {
+            int head = bucketHeads[bucket];
+            nextInBucket[cityId] = head;
+            previousInBucket[cityId] = NONE;
+            if (head != NONE) {
+                previousInBucket[head] = cityId;
+            }
+            bucketHeads[bucket] = cityId;
+            queued[cityId] = true;
+            numQueued++;
+        }
+
+        void dequeue(int cityId, int bucket) {
+            int next = nextInBucket[cityId];
+            int previous = previousInBucket[cityId];
+            if (previous == NONE) {
+                bucketHeads[bucket] = next;
+            } else {
+                nextInBucket[previous] = next;
+            }
+            if (next != NONE) {
+                previousInBucket[next] = previous;
+            }
+            queued[cityId] = false;
+            numQueued--;
+        }
+
+        // Leaves the buckets empty for the next query when this one stops early.
+        void clearBuckets() {
+            for (int bucket = 0; bucket < numBuckets && numQueued > 0; bucket++) {
+                while (bucketHeads[bucket] != NONE) {
+                    dequeue(bucketHeads[bucket], bucket);
+                }
+            }
+        }
+    }
+}
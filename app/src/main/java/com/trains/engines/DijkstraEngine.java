@@ -0,0 +1,132 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over a {@link RouteGraph} with an {@link IndexedMinHeap}, stopping as
+ * soon as the destination is settled.
+ * <p>
+ * All working state lives in scratch arrays borrowed from a {@link SearchStatePool} for the
+ * query and reused by later ones, on whichever thread they run. Entries are only trusted when
+ * stamped with the current query, so nothing needs clearing between queries and the engine can
+ * be shared by any number of threads. The cities settled
+ * and unit routes relaxed are added to the thread's {@link QueryWork} once the search ends,
+ * and the search stops early if the thread's {@link QueryBudget} runs out.
+ */
+public class DijkstraEngine implements ShortestPathEngine {
+
+    private final SearchStatePool<SearchState> searchStates = new SearchStatePool<>(SearchState::new);
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        SearchState state = searchStates.borrow();
+        state.reset(routeGraph.getCityCount());
+
+        try {
+            // The origin is not given a distance of zero, only its unit routes are queued, so
+            // the origin itself can be reached again by a route looping back to it.
+            relax(routeGraph, state, originCityId, 0);
+
+            while (!state.heap.isEmpty()) {
+                long distance = state.heap.peekKey();
+                int cityId = state.heap.poll();
+                if (cityId == destinationCityId) {
+                    return traceRoute(state.previousCityIds, originCityId, destinationCityId);
+                }
+                relax(routeGraph, state, cityId, distance);
+            }
+
+            throw new NoSuchRouteException();
+        } finally {
+            state.heap.clear();
+            QueryWork.current().addSearch(state.numSettledCities, state.numRelaxedUnitRoutes);
+            searchStates.giveBack(state);
+        }
+    }
+
+    private void relax(RouteGraph routeGraph, SearchState state, int cityId, long distance) {
+        state.numSettledCities++;
+        state.numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+        state.checkBudget();
+        for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distance + routeGraph.getDistance(unitRoute);
+
+            if (nextDistance < state.getDistance(nextCityId)) {
+                state.setDistance(nextCityId, nextDistance, cityId);
+                state.heap.insertOrDecrease(nextCityId, nextDistance);
+            }
+        }
+    }
+
+    /**
+     * Follows previous city ids back from the destination until the origin is reached, which
+     * for a route from a city back to itself means going all the way round the cycle.
+     */
+    static int[] traceRoute(int[] previousCityIds, int originCityId, int destinationCityId) {
+        int numCities = 2;
+        for (int cityId = previousCityIds[destinationCityId]; cityId != originCityId; cityId = previousCityIds[cityId]) {
+            numCities++;
+        }
+
+        int[] cityIds = new int[numCities];
+        cityIds[numCities - 1] = destinationCityId;
+        int i = numCities - 2;
+        for (int cityId = previousCityIds[destinationCityId]; cityId != originCityId; cityId = previousCityIds[cityId]) {
+            cityIds[i--] = cityId;
+        }
+        cityIds[0] = originCityId;
+        return cityIds;
+    }
+
+    private static class SearchState {
+
+        private long[] distances = new long[0];
+        private int[] previousCityIds = new int[0];
+        private int[] stamps = new int[0];
+        private int stamp;
+        private final IndexedMinHeap heap = new IndexedMinHeap(0);
+        private long numSettledCities;
+        private long numRelaxedUnitRoutes;
+        private QueryBudget budget;
+        private long numCheckedUnitRoutes;
+
+        void reset(int numCities) {
+            if (numCities > stamps.length) {
+                distances = new long[numCities];
+                previousCityIds = new int[numCities];
+                stamps = new int[numCities];
+                stamp = 0;
+                heap.ensureCapacity(numCities);
+            }
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            numSettledCities = 0;
+            numRelaxedUnitRoutes = 0;
+            budget = QueryBudget.current();
+            numCheckedUnitRoutes = 0;
+        }
+
+        void checkBudget() {
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, 0);
+                numCheckedUnitRoutes = numRelaxedUnitRoutes;
+            }
+        }
+
+        long getDistance(int cityId) {
+            return stamps[cityId] == stamp ? distances[cityId] : Long.MAX_VALUE;
+        }
+
+        void setDistance(int cityId, long distance, int previousCityId) {
+            stamps[cityId] = stamp;
+            distances[cityId] = distance;
+            previousCityIds[cityId] = previousCityId;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.trains.engines;
+
+import com.trains.exceptions.RouteCountOverflowException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts routes shorter than a maximum distance by dynamic programming over
+ * (city, distance travelled) instead of enumerating them, in O(E * maxDistance) time.
+ * <p>
+ * Distances are first divided by the GCD of all unit route distances. Only the next
+ * {@code maxStep + 1} distance levels are ever live, so they are kept in a ring of rows, or in a
+ * sorted map of just the reachable levels, each holding just the cities reached at it, when the
+ * distances are too large for a dense ring. Counting stops as soon as no level is live.
+ * Every unit route distance must be positive. Counts saturate at {@link Long#MAX_VALUE} as in
+ * {@link StopCountingEngine}. Each (city, distance travelled) pair reached counts as a settled
+ * city in the {@link QueryWork}, and the thread's {@link QueryBudget} is checked at each level
+ * and as it goes.
+ */
+public class DistanceCountingEngine {
+
+    private static final long OVERFLOW = Long.MAX_VALUE;
+    private static final long MAX_DENSE_TABLE_SIZE = 1 << 22;
+
+    public long countRoutesWithMaxDistance(RouteGraph routeGraph, int originCityId, int destinationCityId, int maxDistance) {
+        if (maxDistance <= 0 || routeGraph.getUnitRouteCount() == 0) {
+            return 0;
+        }
+        if (routeGraph.getMinUnitRouteDistance() <= 0) {
+            throw new IllegalArgumentException("Routes can only be counted by distance when every distance is positive.");
+        }
+
+        int divisor = calculateDistanceGcd(routeGraph);
+        int[] steps = new int[routeGraph.getUnitRouteCount()];
+        for (int unitRoute = 0; unitRoute < steps.length; unitRoute++) {
+            steps[unitRoute] = routeGraph.getDistance(unitRoute) / divisor;
+        }
+        // Routes must be strictly shorter than the maximum distance.
+        int maxLevel = (maxDistance - 1) / divisor;
+        int maxStep = routeGraph.getMaxUnitRouteDistance() / divisor;
+
+        long count;
+        if ((long) (Math.min(maxStep, maxLevel) + 1) * routeGraph.getCityCount() <= MAX_DENSE_TABLE_SIZE) {
+            count = countWithDenseLevels(routeGraph, steps, originCityId, destinationCityId, maxLevel, Math.min(maxStep, maxLevel) + 1);
+        } else {
+            count = countWithSparseLevels(routeGraph, steps, originCityId, destinationCityId, maxLevel);
+        }
+
+        if (count == OVERFLOW) {
+            throw new RouteCountOverflowException();
+        }
+        return count;
+    }
+
+    private long countWithDenseLevels(
+            RouteGraph routeGraph,
+            int[] steps,
+            int originCityId,
+            int destinationCityId,
+            int maxLevel,
+            int numRows
+    ) {
+        int numCities = routeGraph.getCityCount();
+        long[][] levels = new long[numRows][numCities];
+        levels[0][originCityId] = 1;
+        int numLiveCounts = 1;
+
+        QueryBudget budget = QueryBudget.current();
+        long total = 0;
+        long numSettledCities = 0;
+        long numRelaxedUnitRoutes = 0;
+        long numCheckedUnitRoutes = 0;
+        long numCheckedRoutes = 0;
+        try {
+            for (int level = 0; level <= maxLevel && numLiveCounts > 0; level++) {
+                budget.check(0, 0);
+                long[] counts = levels[level % numRows];
+                if (level > 0) {
+                    total = add(total, counts[destinationCityId]);
+                }
+
+                for (int cityId = 0; cityId < numCities; cityId++) {
+                    long count = counts[cityId];
+                    if (count == 0) {
+                        continue;
+                    }
+                    numLiveCounts--;
+                    numSettledCities++;
+                    numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+                    if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                        budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, total - numCheckedRoutes);
+                        numCheckedUnitRoutes = numRelaxedUnitRoutes;
+                        numCheckedRoutes = total;
+                    }
+                    for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                        int nextLevel = level + steps[unitRoute];
+                        if (nextLevel <= maxLevel) {
+                            long[] nextCounts = levels[nextLevel % numRows];
+                            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+                            if (nextCounts[nextCityId] == 0) {
+                                numLiveCounts++;
+                            }
+                            nextCounts[nextCityId] = add(nextCounts[nextCityId], count);
+                        }
+                    }
+                }
+                Arrays.fill(counts, 0);
+            }
+        } finally {
+            QueryWork.current().addSearch(numSettledCities, numRelaxedUnitRoutes);
+        }
+        return total;
+    }
+
+    private long countWithSparseLevels(
+            RouteGraph routeGraph,
+            int[] steps,
+            int originCityId,
+            int destinationCityId,
+            int maxLevel
+    ) {
+        TreeMap<Integer, LevelCounts> levels = new TreeMap<>();
+        LevelCounts originCounts = new LevelCounts();
+        originCounts.add(originCityId, 1);
+        levels.put(0, originCounts);
+
+        QueryBudget budget = QueryBudget.current();
+        long total = 0;
+        long numSettledCities = 0;
+        long numRelaxedUnitRoutes = 0;
+        long numCheckedUnitRoutes = 0;
+        long numCheckedRoutes = 0;
+        try {
+            for (Map.Entry<Integer, LevelCounts> entry = levels.pollFirstEntry(); entry != null; entry = levels.pollFirstEntry()) {
+                budget.check(0, 0);
+                int level = entry.getKey();
+                LevelCounts counts = entry.getValue();
+                if (level > 0) {
+                    total = add(total, counts.get(destinationCityId));
+                }
+
+                for (int slot = 0; slot < counts.getCapacity(); slot++) {
+                    int cityId = counts.getCityId(slot);
+                    if (cityId == LevelCounts.EMPTY) {
+                        continue;
+                    }
+                    long count = counts.getCount(slot);
+                    numSettledCities++;
+                    numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+                    if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                        budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, total - numCheckedRoutes);
+                        numCheckedUnitRoutes = numRelaxedUnitRoutes;
+                        numCheckedRoutes = total;
+                    }
+                    for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                        int nextLevel = level + steps[unitRoute];
+                        if (nextLevel <= maxLevel) {
+                            levels.computeIfAbsent(nextLevel, l -> new LevelCounts())
+                                    .add(routeGraph.getDestinationCityId(unitRoute), count);
+                        }
+                    }
+                }
+            }
+        } finally {
+            QueryWork.current().addSearch(numSettledCities, numRelaxedUnitRoutes);
+        }
+        return total;
+    }
+
+    private int calculateDistanceGcd(RouteGraph routeGraph) {
+        int gcd = 0;
+        for (int unitRoute = 0; unitRoute < routeGraph.getUnitRouteCount() && gcd != 1; unitRoute++) {
+            int a = routeGraph.getDistance(unitRoute);
+            int b = gcd;
+            while (b != 0) {
+                int remainder = a % b;
+                a = b;
+                b = remainder;
+            }
+            gcd = a;
+        }
+        return gcd;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? OVERFLOW : sum;
+    }
+
+    // The counts of one sparse level by city, in an open addressing table of just the cities
+    // reached at it.
+    private static final class LevelCounts {
+
+        private static final int EMPTY = -1;
+
+        private int[] cityIds = emptyCityIds(8);
+        private long[] counts = new long[8];
+        private int size;
+
+        private void add(int cityId, long count) {
+            if (2 * (size + 1) > cityIds.length) {
+                resize();
+            }
+            int slot = findSlot(cityIds, cityId);
+            if (cityIds[slot] == EMPTY) {
+                cityIds[slot] = cityId;
+                size++;
+            }
+            counts[slot] = DistanceCountingEngine.add(counts[slot], count);
+        }
+
+        private long get(int cityId) {
+            int slot = findSlot(cityIds, cityId);
+            return cityIds[slot] == EMPTY ? 0 : counts[slot];
+        }
+
+        private int getCapacity() {
+            return cityIds.length;
+        }
+
+        private int getCityId(int slot) {
+            return cityIds[slot];
+        }
+
+        private long getCount(int slot) {
+            return counts[slot];
+        }
+
+        private void resize() {
+            int[] oldCityIds = cityIds;
+            long[] oldCounts = counts;
+            cityIds = emptyCityIds(2 * oldCityIds.length);
+            counts = new long[2 * oldCounts.length];
+            for (int oldSlot = 0; oldSlot < oldCityIds.length; oldSlot++) {
+                if (oldCityIds[oldSlot] != EMPTY) {
+                    int slot = findSlot(cityIds, oldCityIds[oldSlot]);
+                    cityIds[slot] = oldCityIds[oldSlot];
+                    counts[slot] = oldCounts[oldSlot];
+                }
+            }
+        }
+
+        private static int findSlot(int[] cityIds, int cityId) {
+            int mask = cityIds.length - 1;
+            int hash = cityId * 0x9e3779b9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (cityIds[slot] != EMPTY && cityIds[slot] != cityId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] emptyCityIds(int capacity) {
+            int[] cityIds = new int[capacity];
+            Arrays.fill(cityIds, EMPTY);
+            return cityIds;
+        }
+    }
+}
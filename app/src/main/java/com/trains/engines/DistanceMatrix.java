@@ -0,0 +1,181 @@
+package com.trains.engines;
+
+import com.trains.exceptions.DistanceMatrixTooLargeException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Shortest distances between every pair of cities together with the city before the
+ * destination on each shortest route, kept in flat row major arrays so that a query is a
+ * lookup and its route is rebuilt by following predecessors back to the origin.
+ * <p>
+ * Rows are filled by a full Dijkstra from every city in parallel, checking the deadline and
+ * cancellation of the calculating thread's {@link QueryBudget} before each row. As everywhere
+ * else a route must make at least one stop, so the diagonal holds each city's shortest cycle.
+ * Each array holds a value per pair of cities, so a graph may have at most
+ * {@code MAX_CITIES} cities, and no more than {@link #getMaxCities()} whose arrays fit the heap.
+ */
+public class DistanceMatrix {
+
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+    public static final int MAX_CITIES = PairMatrices.MAX_CITIES;
+    private static final long BYTES_PER_PAIR = Long.BYTES + Integer.BYTES;
+    private static final int NONE = -1;
+    private static final byte UNVISITED = 0;
+    private static final byte ON_WALK = 1;
+    private static final byte LEADS_TO_ORIGIN = 2;
+
+    private final int numCities;
+    private final long[] distances;
+    private final int[] previousCityIds;
+
+    public DistanceMatrix(int numCities, long[] distances, int[] previousCityIds) {
+        this.numCities = numCities;
+        this.distances = distances;
+        this.previousCityIds = previousCityIds;
+    }
+
+    /**
+     * Returns the most cities whose distance matrix fits both the int index range and the
+     * maximum heap size.
+     */
+    public static int getMaxCities() {
+        return PairMatrices.getMaxCities(BYTES_PER_PAIR);
+    }
+
+    /**
+     * @throws DistanceMatrixTooLargeException if the graph has more than {@link #getMaxCities()} cities
+     */
+    public static DistanceMatrix calculate(RouteGraph routeGraph) {
+        int numCities = routeGraph.getCityCount();
+        int maxCities = getMaxCities();
+        if (numCities > maxCities) {
+            throw new DistanceMatrixTooLargeException(numCities, maxCities);
+        }
+        long[] distances = new long[numCities * numCities];
+        int[] previousCityIds = new int[numCities * numCities];
+        ThreadLocal<IndexedMinHeap> heaps = ThreadLocal.withInitial(() -> new IndexedMinHeap(numCities));
+        QueryBudget budget = QueryBudget.current();
+
+        IntStream.range(0, numCities).parallel().forEach(originCityId -> {
+            budget.check(0, 0);
+            calculateRow(routeGraph, originCityId, distances, previousCityIds, heaps.get());
+        });
+
+        return new DistanceMatrix(numCities, distances, previousCityIds);
+    }
+
+    public int getCityCount() {
+        return numCities;
+    }
+
+    public long getDistance(int originCityId, int destinationCityId) {
+        return distances[originCityId * numCities + destinationCityId];
+    }
+
+    public int getPreviousCityId(int originCityId, int destinationCityId) {
+        return previousCityIds[originCityId * numCities + destinationCityId];
+    }
+
+    public int[] findShortestRoute(int originCityId, int destinationCityId) {
+        if (getDistance(originCityId, destinationCityId) == UNREACHABLE) {
+            throw new NoSuchRouteException();
+        }
+
+        int numCitiesOnRoute = 2;
+        for (int cityId = getPreviousCityId(originCityId, destinationCityId); cityId != originCityId; cityId = getPreviousCityId(originCityId, cityId)) {
+            numCitiesOnRoute++;
+        }
+
+        int[] cityIds = new int[numCitiesOnRoute];
+        cityIds[numCitiesOnRoute - 1] = destinationCityId;
+        int i = numCitiesOnRoute - 2;
+        for (int cityId = getPreviousCityId(originCityId, destinationCityId); cityId != originCityId; cityId = getPreviousCityId(originCityId, cityId)) {
+            cityIds[i--] = cityId;
+        }
+        cityIds[0] = originCityId;
+        return cityIds;
+    }
+
+    /**
+     * Returns whether every reachable destination's predecessor is a city, and following the
+     * predecessors back from it reaches the origin without going round a cycle, so that
+     * {@link #findShortestRoute} can rebuild its route, as must be checked for a matrix read
+     * back from a file.
+     */
+    boolean hasValidRoutes() {
+        // Cities not yet visited from the current origin, on the current walk back, or known to
+        // lead back to the origin.
+        byte[] states = new byte[numCities];
+        for (int originCityId = 0; originCityId < numCities; originCityId++) {
+            Arrays.fill(states, UNVISITED);
+            for (int destinationCityId = 0; destinationCityId < numCities; destinationCityId++) {
+                int previousCityId = getPreviousCityId(originCityId, destinationCityId);
+                if (getDistance(originCityId, destinationCityId) == UNREACHABLE) {
+                    if (previousCityId != NONE) {
+                        return false;
+                    }
+                    continue;
+                }
+
+                int cityId = previousCityId;
+                while (cityId != originCityId) {
+                    if (cityId < 0 || cityId >= numCities || states[cityId] == ON_WALK
+                            || getDistance(originCityId, cityId) == UNREACHABLE) {
+                        return false;
+                    }
+                    if (states[cityId] == LEADS_TO_ORIGIN) {
+                        break;
+                    }
+                    states[cityId] = ON_WALK;
+                    cityId = getPreviousCityId(originCityId, cityId);
+                }
+                for (cityId = previousCityId; cityId != originCityId && states[cityId] != LEADS_TO_ORIGIN; cityId = getPreviousCityId(originCityId, cityId)) {
+                    states[cityId] = LEADS_TO_ORIGIN;
+                }
+            }
+        }
+        return true;
+    }
+
+    long[] getDistances() {
+        return distances;
+    }
+
+    int[] getPreviousCityIds() {
+        return previousCityIds;
+    }
+
+    private static void calculateRow(RouteGraph routeGraph, int originCityId, long[] distances, int[] previousCityIds, IndexedMinHeap heap) {
+        int numCities = routeGraph.getCityCount();
+        int rowStart = originCityId * numCities;
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            distances[rowStart + cityId] = UNREACHABLE;
+            previousCityIds[rowStart + cityId] = NONE;
+        }
+
+        // As in DijkstraEngine only the origin's unit routes are queued, not the origin itself.
+        int cityId = originCityId;
+        long distance = 0;
+        while (true) {
+            for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+                long nextDistance = distance + routeGraph.getDistance(unitRoute);
+                if (nextDistance < distances[rowStart + nextCityId]) {
+                    distances[rowStart + nextCityId] = nextDistance;
+                    previousCityIds[rowStart + nextCityId] = cityId;
+                    heap.insertOrDecrease(nextCityId, nextDistance);
+                }
+            }
+
+            if (heap.isEmpty()) {
+                return;
+            }
+            distance = heap.peekKey();
+            cityId = heap.poll();
+        }
+    }
+}
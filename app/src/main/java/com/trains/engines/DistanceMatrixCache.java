@@ -0,0 +1,131 @@
+package com.trains.engines;
+
+import com.trains.exceptions.DistanceMatrixCacheException;
+import com.trains.models.RouteGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stores {@link DistanceMatrix} results on disk, one file per route map, named after a SHA-256
+ * fingerprint of the compiled route graph so the same routes given in any order share a file.
+ * <p>
+ * Files start with a magic number, a format version and the fingerprint, and end with a CRC-32
+ * of everything before it. Anything that does not match, cannot be read, or holds a route that
+ * does not lead back to its origin is treated as a cache miss. Files are written to a
+ * temporary file first and moved into place, so a reader never sees half a matrix. A cache
+ * without a directory keeps nothing, and a graph is only fingerprinted to look for its file
+ * once the directory holds any cache files.
+ */
+public class DistanceMatrixCache {
+
+    private static final int MAGIC = 0x41505350;
+    private static final int VERSION = 2;
+    private static final String FILE_EXTENSION = ".apsp";
+
+    private final Path directory;
+
+    public DistanceMatrixCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static DistanceMatrixCache none() {
+        return new DistanceMatrixCache(null);
+    }
+
+    public Path getCacheFile(RouteGraph routeGraph) {
+        return directory.resolve(routeGraph.getFingerprint() + FILE_EXTENSION);
+    }
+
+    public Optional<DistanceMatrix> load(RouteGraph routeGraph) {
+        if (directory == null || routeGraph.getCityCount() > DistanceMatrix.getMaxCities() || !hasCacheFiles()) {
+            return Optional.empty();
+        }
+        Path cacheFile = getCacheFile(routeGraph);
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)), checksum))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(routeGraph.getFingerprint())) {
+                return Optional.empty();
+            }
+            int numCities = in.readInt();
+            if (numCities != routeGraph.getCityCount()) {
+                return Optional.empty();
+            }
+
+            long[] distances = new long[numCities * numCities];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = in.readLong();
+            }
+            int[] previousCityIds = new int[numCities * numCities];
+            for (int i = 0; i < previousCityIds.length; i++) {
+                previousCityIds[i] = in.readInt();
+            }
+            long expectedChecksum = checksum.getValue();
+            if (in.readLong() != expectedChecksum) {
+                return Optional.empty();
+            }
+
+            DistanceMatrix distanceMatrix = new DistanceMatrix(numCities, distances, previousCityIds);
+            return distanceMatrix.hasValidRoutes() ? Optional.of(distanceMatrix) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private boolean hasCacheFiles() {
+        try (DirectoryStream<Path> cacheFiles = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            return cacheFiles.iterator().hasNext();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void save(RouteGraph routeGraph, DistanceMatrix distanceMatrix) {
+        if (directory == null) {
+            return;
+        }
+        Path cacheFile = getCacheFile(routeGraph);
+        try {
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, "apsp", ".tmp");
+            try {
+                CRC32 checksum = new CRC32();
+                try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporaryFile)), checksum))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeUTF(routeGraph.getFingerprint());
+                    out.writeInt(distanceMatrix.getCityCount());
+                    for (long distance : distanceMatrix.getDistances()) {
+                        out.writeLong(distance);
+                    }
+                    for (int previousCityId : distanceMatrix.getPreviousCityIds()) {
+                        out.writeInt(previousCityId);
+                    }
+                    out.writeLong(checksum.getValue());
+                }
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new DistanceMatrixCacheException(cacheFile.toString());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.trains.engines;
+
+import com.trains.models.RouteGraph;
+
+import java.util.Optional;
+
+/**
+ * Answers shortest route queries from a precomputed {@link DistanceMatrix} when one exists for
+ * the route graph, in memory or in the {@link DistanceMatrixCache}, and otherwise passes them
+ * on to another engine. The disk cache is only checked the first time a graph is queried.
+ * Loading and calculating happen outside the maps' locks, so precomputing one graph's matrix
+ * does not hold up queries on another.
+ */
+public class DistanceMatrixEngine implements ShortestPathEngine {
+
+    private final DistanceMatrixCache distanceMatrixCache;
+    private final ShortestPathEngine fallbackEngine;
+    private final RouteGraphCache<Optional<DistanceMatrix>> distanceMatrices = new RouteGraphCache<>();
+    private final RouteGraphCache<DistanceMatrix> precomputedDistanceMatrices = new RouteGraphCache<>();
+
+    public DistanceMatrixEngine(DistanceMatrixCache distanceMatrixCache, ShortestPathEngine fallbackEngine) {
+        this.distanceMatrixCache = distanceMatrixCache;
+        this.fallbackEngine = fallbackEngine;
+    }
+
+    /**
+     * Returns the distance matrix for the route graph, loading it from the cache or else
+     * calculating it and writing it to the cache for later runs.
+     */
+    public DistanceMatrix precompute(RouteGraph routeGraph) {
+        return precomputedDistanceMatrices.get(routeGraph, graph -> {
+            Optional<DistanceMatrix> distanceMatrix = findDistanceMatrix(graph);
+            if (distanceMatrix.isPresent()) {
+                return distanceMatrix.get();
+            }
+
+            DistanceMatrix calculated = DistanceMatrix.calculate(graph);
+            distanceMatrixCache.save(graph, calculated);
+            distanceMatrices.put(graph, Optional.of(calculated));
+            return calculated;
+        });
+    }
+
+    @Override
+    public int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId) {
+        Optional<DistanceMatrix> distanceMatrix = findDistanceMatrix(routeGraph);
+        if (distanceMatrix.isPresent()) {
+            return distanceMatrix.get().findShortestRoute(originCityId, destinationCityId);
+        }
+        return fallbackEngine.findShortestRoute(routeGraph, originCityId, destinationCityId);
+    }
+
+    private Optional<DistanceMatrix> findDistanceMatrix(RouteGraph routeGraph) {
+        return distanceMatrices.get(routeGraph, distanceMatrixCache::load);
+    }
+}
@@ -0,0 +1,300 @@
+package com.trains.engines;
+
+import com.trains.exceptions.DuplicateRouteException;
+import com.trains.exceptions.InvalidRouteException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.exceptions.SelfRouteException;
+import com.trains.models.RouteGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest path tree from one origin city that is repaired rather than rebuilt when a unit
+ * route is added, removed or has its distance changed, in the style of Ramalingam and Reps.
+ * <ul>
+ * <li>When a route gets shorter or is added only the cities it brings closer are visited, by a
+ * Dijkstra search starting from its destination.</li>
+ * <li>When a route in the tree gets longer or is removed, the subtree hanging from it loses its
+ * distances. Each city in it is then seeded with its best route in from outside the subtree,
+ * and a Dijkstra search over the subtree only settles them again.</li>
+ * <li>A route outside the tree getting longer changes nothing.</li>
+ * </ul>
+ * Each update returns the number of cities it touched. The tree works on its own copy of the
+ * route graph's unit routes and the cities are fixed when it is built. As everywhere else a
+ * route must make at least one stop, so the route from the origin back to itself is its
+ * shortest cycle, worked out from the origin's incoming routes when asked for.
+ * <p>
+ * Not thread safe: updates and queries must not run at the same time.
+ */
+public class DynamicShortestPathTree {
+
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+    private static final int NONE = -1;
+
+    private final RouteGraph routeGraph;
+    private final int originCityId;
+    private final List<Map<Integer, Integer>> outgoing;
+    private final List<Map<Integer, Integer>> incoming;
+    private final long[] distances;
+    private final int[] previousCityIds;
+    private final int[] touchedStamps;
+    private final int[] affectedStamps;
+    private final IndexedMinHeap heap;
+    private int stamp;
+    private int lastTouchedCityCount;
+    private long totalTouchedCityCount;
+
+    public DynamicShortestPathTree(RouteGraph routeGraph, String originCityName) {
+        this.routeGraph = routeGraph;
+        this.originCityId = routeGraph.getCityId(originCityName);
+
+        int numCities = routeGraph.getCityCount();
+        outgoing = new ArrayList<>(numCities);
+        incoming = new ArrayList<>(numCities);
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            outgoing.add(new HashMap<>());
+            incoming.add(new HashMap<>());
+        }
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                outgoing.get(cityId).put(routeGraph.getDestinationCityId(unitRoute), routeGraph.getDistance(unitRoute));
+                incoming.get(routeGraph.getDestinationCityId(unitRoute)).put(cityId, routeGraph.getDistance(unitRoute));
+            }
+        }
+
+        distances = new long[numCities];
+        previousCityIds = new int[numCities];
+        touchedStamps = new int[numCities];
+        affectedStamps = new int[numCities];
+        heap = new IndexedMinHeap(numCities);
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(previousCityIds, NONE);
+
+        stamp++;
+        distances[originCityId] = 0;
+        heap.insertOrDecrease(originCityId, 0);
+        propagate(false);
+    }
+
+    public int getOriginCityId() {
+        return originCityId;
+    }
+
+    public int getLastTouchedCityCount() {
+        return lastTouchedCityCount;
+    }
+
+    public long getTotalTouchedCityCount() {
+        return totalTouchedCityCount;
+    }
+
+    /**
+     * Returns the shortest distance from the origin to the destination, or {@link #UNREACHABLE}.
+     */
+    public long getDistance(String destinationCityName) {
+        return getDistance(routeGraph.getCityId(destinationCityName));
+    }
+
+    public long getDistance(int destinationCityId) {
+        if (destinationCityId != originCityId) {
+            return distances[destinationCityId];
+        }
+        int lastCityId = findLastCityOfShortestCycle();
+        return lastCityId == NONE ? UNREACHABLE : distances[lastCityId] + incoming.get(originCityId).get(lastCityId);
+    }
+
+    public int[] findShortestRoute(int destinationCityId) {
+        int lastCityId = destinationCityId == originCityId ? findLastCityOfShortestCycle() : destinationCityId;
+        if (lastCityId == NONE || distances[lastCityId] == UNREACHABLE) {
+            throw new NoSuchRouteException();
+        }
+
+        Deque<Integer> route = new ArrayDeque<>();
+        if (destinationCityId == originCityId) {
+            route.push(originCityId);
+        }
+        for (int cityId = lastCityId; cityId != NONE; cityId = previousCityIds[cityId]) {
+            route.push(cityId);
+        }
+        return route.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Adds a unit route and returns the number of cities whose distances were updated.
+     */
+    public int addUnitRoute(String originCityName, String destinationCityName, int distance) {
+        int fromCityId = routeGraph.getCityId(originCityName);
+        int toCityId = routeGraph.getCityId(destinationCityName);
+        validateUnitRoute(fromCityId, toCityId, distance);
+        if (outgoing.get(fromCityId).containsKey(toCityId)) {
+            throw new DuplicateRouteException();
+        }
+
+        putUnitRoute(fromCityId, toCityId, distance);
+        return finishUpdate(decrease(fromCityId, toCityId, distance));
+    }
+
+    /**
+     * Removes a unit route and returns the number of cities whose distances were updated.
+     */
+    public int removeUnitRoute(String originCityName, String destinationCityName) {
+        int fromCityId = routeGraph.getCityId(originCityName);
+        int toCityId = routeGraph.getCityId(destinationCityName);
+        if (outgoing.get(fromCityId).remove(toCityId) == null) {
+            throw new NoSuchRouteException();
+        }
+        incoming.get(toCityId).remove(fromCityId);
+
+        return finishUpdate(increase(fromCityId, toCityId));
+    }
+
+    /**
+     * Changes a unit route's distance and returns the number of cities whose distances were
+     * updated.
+     */
+    public int reweightUnitRoute(String originCityName, String destinationCityName, int distance) {
+        int fromCityId = routeGraph.getCityId(originCityName);
+        int toCityId = routeGraph.getCityId(destinationCityName);
+        validateUnitRoute(fromCityId, toCityId, distance);
+        Integer previousDistance = outgoing.get(fromCityId).get(toCityId);
+        if (previousDistance == null) {
+            throw new NoSuchRouteException();
+        }
+
+        putUnitRoute(fromCityId, toCityId, distance);
+        if (distance < previousDistance) {
+            return finishUpdate(decrease(fromCityId, toCityId, distance));
+        }
+        if (distance > previousDistance) {
+            return finishUpdate(increase(fromCityId, toCityId));
+        }
+        return finishUpdate(0);
+    }
+
+    private int decrease(int fromCityId, int toCityId, int distance) {
+        stamp++;
+        if (distances[fromCityId] == UNREACHABLE || toCityId == originCityId
+                || distances[fromCityId] + distance >= distances[toCityId]) {
+            return 0;
+        }
+
+        distances[toCityId] = distances[fromCityId] + distance;
+        previousCityIds[toCityId] = fromCityId;
+        heap.insertOrDecrease(toCityId, distances[toCityId]);
+        return propagate(false);
+    }
+
+    private int increase(int fromCityId, int toCityId) {
+        stamp++;
+        if (previousCityIds[toCityId] != fromCityId) {
+            return 0;
+        }
+
+        // Everything below the route in the tree may now be further away or unreachable.
+        List<Integer> subtree = new ArrayList<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(toCityId);
+        affectedStamps[toCityId] = stamp;
+        while (!pending.isEmpty()) {
+            int cityId = pending.pop();
+            subtree.add(cityId);
+            for (int nextCityId : outgoing.get(cityId).keySet()) {
+                if (affectedStamps[nextCityId] != stamp && previousCityIds[nextCityId] == cityId) {
+                    affectedStamps[nextCityId] = stamp;
+                    pending.push(nextCityId);
+                }
+            }
+        }
+        for (int cityId : subtree) {
+            distances[cityId] = UNREACHABLE;
+            previousCityIds[cityId] = NONE;
+        }
+
+        for (int cityId : subtree) {
+            for (Map.Entry<Integer, Integer> unitRoute : incoming.get(cityId).entrySet()) {
+                int previousCityId = unitRoute.getKey();
+                if (affectedStamps[previousCityId] != stamp && distances[previousCityId] != UNREACHABLE
+                        && distances[previousCityId] + unitRoute.getValue() < distances[cityId]) {
+                    distances[cityId] = distances[previousCityId] + unitRoute.getValue();
+                    previousCityIds[cityId] = previousCityId;
+                }
+            }
+            if (distances[cityId] != UNREACHABLE) {
+                heap.insertOrDecrease(cityId, distances[cityId]);
+            }
+        }
+
+        int numTouched = 0;
+        for (int cityId : subtree) {
+            numTouched += touch(cityId);
+        }
+        return numTouched + propagate(true);
+    }
+
+    // Settles the queued cities, relaxing only into the cities of the affected subtree if asked.
+    private int propagate(boolean onlyAffected) {
+        int numTouched = 0;
+        while (!heap.isEmpty()) {
+            int cityId = heap.poll();
+            numTouched += touch(cityId);
+            for (Map.Entry<Integer, Integer> unitRoute : outgoing.get(cityId).entrySet()) {
+                int nextCityId = unitRoute.getKey();
+                long nextDistance = distances[cityId] + unitRoute.getValue();
+                if (nextCityId != originCityId && (!onlyAffected || affectedStamps[nextCityId] == stamp)
+                        && nextDistance < distances[nextCityId]) {
+                    distances[nextCityId] = nextDistance;
+                    previousCityIds[nextCityId] = cityId;
+                    heap.insertOrDecrease(nextCityId, nextDistance);
+                }
+            }
+        }
+        return numTouched;
+    }
+
+    private int touch(int cityId) {
+        if (touchedStamps[cityId] == stamp) {
+            return 0;
+        }
+        touchedStamps[cityId] = stamp;
+        return 1;
+    }
+
+    private int finishUpdate(int numTouched) {
+        lastTouchedCityCount = numTouched;
+        totalTouchedCityCount += numTouched;
+        return numTouched;
+    }
+
+    private int findLastCityOfShortestCycle() {
+        int lastCityId = NONE;
+        long shortest = UNREACHABLE;
+        for (Map.Entry<Integer, Integer> unitRoute : incoming.get(originCityId).entrySet()) {
+            long distance = distances[unitRoute.getKey()];
+            if (distance != UNREACHABLE && distance + unitRoute.getValue() < shortest) {
+                shortest = distance + unitRoute.getValue();
+                lastCityId = unitRoute.getKey();
+            }
+        }
+        return lastCityId;
+    }
+
+    private void putUnitRoute(int fromCityId, int toCityId, int distance) {
+        outgoing.get(fromCityId).put(toCityId, distance);
+        incoming.get(toCityId).put(fromCityId, distance);
+    }
+
+    private static void validateUnitRoute(int fromCityId, int toCityId, int distance) {
+        if (fromCityId == toCityId) {
+            throw new SelfRouteException();
+        }
+        if (distance < 0) {
+            throw new InvalidRouteException();
+        }
+    }
+}
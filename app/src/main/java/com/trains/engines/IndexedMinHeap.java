@@ -0,0 +1,123 @@
+package com.trains.engines;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of city ids keyed by distance, with an index from city id to heap slot so a
+ * queued city's distance can be decreased in O(log n) rather than removed and re-added.
+ */
+public class IndexedMinHeap {
+
+    private int[] heap;
+    private int[] positions;
+    private long[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int oldCapacity = positions.length;
+            heap = Arrays.copyOf(heap, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            Arrays.fill(positions, oldCapacity, capacity, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int cityId) {
+        return positions[cityId] >= 0;
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Adds the city with the given key, or lowers its key if it is already queued with a
+     * larger one.
+     */
+    public void insertOrDecrease(int cityId, long key) {
+        int position = positions[cityId];
+        if (position < 0) {
+            position = size++;
+            heap[position] = cityId;
+            positions[cityId] = position;
+        } else if (key >= keys[cityId]) {
+            return;
+        }
+        keys[cityId] = key;
+        siftUp(position);
+    }
+
+    public int poll() {
+        int cityId = heap[0];
+        positions[cityId] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return cityId;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int cityId = heap[position];
+        long key = keys[cityId];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentCityId = heap[parent];
+            if (keys[parentCityId] <= key) {
+                break;
+            }
+            heap[position] = parentCityId;
+            positions[parentCityId] = position;
+            position = parent;
+        }
+        heap[position] = cityId;
+        positions[cityId] = position;
+    }
+
+    private void siftDown(int position) {
+        int cityId = heap[position];
+        long key = keys[cityId];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childCityId = heap[child];
+            if (key <= keys[childCityId]) {
+                break;
+            }
+            heap[position] = childCityId;
+            positions[childCityId] = position;
+            position = child;
+        }
+        heap[position] = cityId;
+        positions[cityId] = position;
+    }
+}
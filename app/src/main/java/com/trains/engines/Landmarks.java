@@ -0,0 +1,168 @@
+package com.trains.engines;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Shortest distances from and to a few landmark cities, which by the triangle inequality give
+ * a lower bound on the distance between any two cities without knowing where the cities are.
+ * <p>
+ * For a landmark {@code L}, {@code d(v, t) >= d(v, L) - d(t, L)} and
+ * {@code d(v, t) >= d(L, t) - d(L, v)}, and the bound is the largest of these over all
+ * landmarks. The same tables also show when a city cannot reach another at all, for instance
+ * when a landmark can reach {@code v} but not {@code t}, so exhaustive searches can use them to
+ * drop branches that will never arrive.
+ * <p>
+ * Landmarks are either picked at random or spread out by repeatedly picking the city farthest
+ * from the landmarks already chosen, counting a round trip to each. Each search from or to a
+ * landmark checks the building thread's {@link QueryBudget} as it starts and every
+ * {@link QueryBudget#CHECK_INTERVAL} settled cities after, for its deadline and cancellation.
+ */
+public class Landmarks {
+
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final int[] landmarkCityIds;
+    private final long[][] distancesFromLandmarks;
+    private final long[][] distancesToLandmarks;
+
+    public Landmarks(RouteGraph routeGraph, int numLandmarks, LandmarkSelection selection, long seed) {
+        int numCities = routeGraph.getCityCount();
+        numLandmarks = Math.min(numLandmarks, numCities);
+        landmarkCityIds = new int[numLandmarks];
+        distancesFromLandmarks = new long[numLandmarks][];
+        distancesToLandmarks = new long[numLandmarks][];
+        QueryBudget budget = QueryBudget.current();
+
+        Random random = new Random(seed);
+        if (selection == LandmarkSelection.RANDOM) {
+            int[] cityIds = new int[numCities];
+            for (int cityId = 0; cityId < numCities; cityId++) {
+                cityIds[cityId] = cityId;
+            }
+            for (int i = 0; i < numLandmarks; i++) {
+                int j = i + random.nextInt(numCities - i);
+                int cityId = cityIds[j];
+                cityIds[j] = cityIds[i];
+                addLandmark(routeGraph, budget, i, cityId);
+            }
+            return;
+        }
+
+        long[] roundTrips = new long[numCities];
+        Arrays.fill(roundTrips, UNREACHABLE);
+        boolean[] isLandmark = new boolean[numCities];
+        int cityId = numLandmarks > 0 ? random.nextInt(numCities) : 0;
+        for (int i = 0; i < numLandmarks; i++) {
+            if (i == 0) {
+                // Start from the city farthest from a random one rather than the random one itself.
+                cityId = farthest(calculateDistances(routeGraph, budget, cityId, false), null);
+            }
+            addLandmark(routeGraph, budget, i, cityId);
+            isLandmark[cityId] = true;
+
+            for (int otherCityId = 0; otherCityId < numCities; otherCityId++) {
+                roundTrips[otherCityId] = Math.min(roundTrips[otherCityId],
+                        add(distancesFromLandmarks[i][otherCityId], distancesToLandmarks[i][otherCityId]));
+            }
+            cityId = farthest(roundTrips, isLandmark);
+        }
+    }
+
+    public int getLandmarkCount() {
+        return landmarkCityIds.length;
+    }
+
+    public int getLandmarkCityId(int landmark) {
+        return landmarkCityIds[landmark];
+    }
+
+    /**
+     * Returns a lower bound on the distance from one city to another, or {@link #UNREACHABLE}
+     * if the landmarks show there is no route between them.
+     */
+    public long lowerBound(int originCityId, int destinationCityId) {
+        if (originCityId == destinationCityId) {
+            return 0;
+        }
+
+        long lowerBound = 0;
+        for (int landmark = 0; landmark < landmarkCityIds.length; landmark++) {
+            long destinationToLandmark = distancesToLandmarks[landmark][destinationCityId];
+            if (destinationToLandmark != UNREACHABLE) {
+                long originToLandmark = distancesToLandmarks[landmark][originCityId];
+                if (originToLandmark == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                lowerBound = Math.max(lowerBound, originToLandmark - destinationToLandmark);
+            }
+
+            long landmarkToOrigin = distancesFromLandmarks[landmark][originCityId];
+            if (landmarkToOrigin != UNREACHABLE) {
+                long landmarkToDestination = distancesFromLandmarks[landmark][destinationCityId];
+                if (landmarkToDestination == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                lowerBound = Math.max(lowerBound, landmarkToDestination - landmarkToOrigin);
+            }
+        }
+        return lowerBound;
+    }
+
+    private void addLandmark(RouteGraph routeGraph, QueryBudget budget, int landmark, int cityId) {
+        landmarkCityIds[landmark] = cityId;
+        distancesFromLandmarks[landmark] = calculateDistances(routeGraph, budget, cityId, false);
+        distancesToLandmarks[landmark] = calculateDistances(routeGraph, budget, cityId, true);
+    }
+
+    // Picks the city with the largest distance, unreachable counting as largest of all, which is
+    // not already a landmark.
+    private static int farthest(long[] distances, boolean[] isLandmark) {
+        int farthestCityId = 0;
+        long farthestDistance = -1;
+        for (int cityId = 0; cityId < distances.length; cityId++) {
+            if (distances[cityId] > farthestDistance && (isLandmark == null || !isLandmark[cityId])) {
+                farthestCityId = cityId;
+                farthestDistance = distances[cityId];
+            }
+        }
+        return farthestCityId;
+    }
+
+    // Full Dijkstra from a city, or to it when going backwards over the incoming unit routes.
+    private static long[] calculateDistances(RouteGraph routeGraph, QueryBudget budget, int sourceCityId, boolean backwards) {
+        long[] distances = new long[routeGraph.getCityCount()];
+        Arrays.fill(distances, UNREACHABLE);
+        IndexedMinHeap heap = new IndexedMinHeap(routeGraph.getCityCount());
+        distances[sourceCityId] = 0;
+        heap.insertOrDecrease(sourceCityId, 0);
+
+        long numSettledCities = 0;
+        while (!heap.isEmpty()) {
+            long distance = heap.peekKey();
+            int cityId = heap.poll();
+            if (numSettledCities++ % QueryBudget.CHECK_INTERVAL == 0) {
+                budget.check(0, 0);
+            }
+            int start = backwards ? routeGraph.getIncomingUnitRoutesStart(cityId) : routeGraph.getUnitRoutesStart(cityId);
+            int end = backwards ? routeGraph.getIncomingUnitRoutesEnd(cityId) : routeGraph.getUnitRoutesEnd(cityId);
+
+            for (int i = start; i < end; i++) {
+                int nextCityId = backwards ? routeGraph.getIncomingOriginCityId(i) : routeGraph.getDestinationCityId(i);
+                long nextDistance = distance + (backwards ? routeGraph.getIncomingDistance(i) : routeGraph.getDistance(i));
+                if (nextDistance < distances[nextCityId]) {
+                    distances[nextCityId] = nextDistance;
+                    heap.insertOrDecrease(nextCityId, nextDistance);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static long add(long a, long b) {
+        return a == UNREACHABLE || b == UNREACHABLE ? UNREACHABLE : a + b;
+    }
+}
@@ -0,0 +1,22 @@
+package com.trains.engines;
+
+/**
+ * Limits on flat row major arrays holding a value for every pair of cities, whose length must
+ * fit the int index range and whose bytes must fit the heap.
+ */
+final class PairMatrices {
+
+    static final int MAX_CITIES = 46_340;
+
+    private PairMatrices() {
+    }
+
+    /**
+     * Returns the most cities whose matrices, taking the given bytes per pair of cities in all,
+     * fit both the int index range and the maximum heap size.
+     */
+    static int getMaxCities(long bytesPerPair) {
+        double maxPairs = (double) Runtime.getRuntime().maxMemory() / bytesPerPair;
+        return (int) Math.min(MAX_CITIES, (long) Math.sqrt(maxPairs));
+    }
+}
@@ -0,0 +1,101 @@
+package com.trains.engines;
+
+import com.trains.models.Route;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Counts the routes of a {@link RouteSpliterator} that match a predicate on a fork/join pool.
+ * <p>
+ * Each task splits its spliterator a few times up front and then counts sequentially into a
+ * local counter. While counting it checks whether its pool has run out of queued work, and if
+ * so splits again so that idle workers can steal part of a skewed subtree. Task counts are
+ * summed on join.
+ */
+public class ParallelRouteCounter {
+
+    private static final int ROUTES_BETWEEN_SPLIT_CHECKS = 256;
+
+    private final ForkJoinPool forkJoinPool;
+
+    public ParallelRouteCounter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelRouteCounter(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public long countRoutes(RouteSpliterator routeSpliterator, Predicate<? super Route> predicate) {
+        int initialSplits = 32 - Integer.numberOfLeadingZeros(forkJoinPool.getParallelism()) + 2;
+        return forkJoinPool.invoke(new CountRoutesTask(routeSpliterator, predicate, initialSplits));
+    }
+
+    private static class CountRoutesTask extends RecursiveTask<Long> {
+
+        private final RouteSpliterator routeSpliterator;
+        private final Predicate<? super Route> predicate;
+        private final int splits;
+        private long count;
+
+        CountRoutesTask(RouteSpliterator routeSpliterator, Predicate<? super Route> predicate, int splits) {
+            this.routeSpliterator = routeSpliterator;
+            this.predicate = predicate;
+            this.splits = splits;
+        }
+
+        @Override
+        protected Long compute() {
+            List<CountRoutesTask> forkedTasks = new ArrayList<>();
+            RouteSpliterator spliterator = routeSpliterator;
+
+            for (int i = 0; i < splits; i++) {
+                RouteSpliterator prefix = forkSuffix(spliterator, splits - i - 1, forkedTasks);
+                if (prefix == spliterator) {
+                    break;
+                }
+                spliterator = prefix;
+            }
+
+            int untilSplitCheck = ROUTES_BETWEEN_SPLIT_CHECKS;
+            while (spliterator.tryAdvance(this::countRoute)) {
+                if (--untilSplitCheck == 0) {
+                    untilSplitCheck = ROUTES_BETWEEN_SPLIT_CHECKS;
+                    if (getSurplusQueuedTaskCount() == 0) {
+                        spliterator = forkSuffix(spliterator, 0, forkedTasks);
+                    }
+                }
+            }
+
+            long total = count;
+            for (CountRoutesTask forkedTask : forkedTasks) {
+                total += forkedTask.join();
+            }
+            return total;
+        }
+
+        private void countRoute(Route route) {
+            if (predicate == null || predicate.test(route)) {
+                count++;
+            }
+        }
+
+        // Forks a task for the part of the search the spliterator keeps after splitting and
+        // returns the prefix to carry on with, or the spliterator itself if it cannot split.
+        private RouteSpliterator forkSuffix(RouteSpliterator spliterator, int suffixSplits, List<CountRoutesTask> forkedTasks) {
+            RouteSpliterator prefix = (RouteSpliterator) spliterator.trySplit();
+            if (prefix == null) {
+                return spliterator;
+            }
+
+            CountRoutesTask suffixTask = new CountRoutesTask(spliterator, predicate, suffixSplits);
+            suffixTask.fork();
+            forkedTasks.add(suffixTask);
+            return prefix;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.trains.engines;
+
+import com.trains.exceptions.QueryBudgetExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits on a query: a deadline, a budget of expansions, an expansion being a unit route
+ * followed from a city, and cancellation from any thread.
+ * <p>
+ * Each thread has a current budget, unlimited until {@link #start} installs one. Engines take
+ * the budget when a search starts and {@link #check} it each time they have followed
+ * {@link #CHECK_INTERVAL} more unit routes, so checking costs a comparison per city or unit
+ * route and a few atomic operations per interval. A {@link RouteSpliterator} keeps the budget of the thread
+ * that created it, so every part of a parallel count stops together.
+ * <p>
+ * Once a limit is hit every later check fails too, with a {@link QueryBudgetExceededException}
+ * carrying the routes found and unit routes followed so far.
+ */
+public final class QueryBudget {
+
+    public static final long UNLIMITED = 0;
+    public static final long CHECK_INTERVAL = 1024;
+
+    private static final ThreadLocal<QueryBudget> currentBudget =
+            ThreadLocal.withInitial(() -> new QueryBudget(UNLIMITED, UNLIMITED));
+
+    private final long timeoutMillis;
+    private final long deadlineNanos;
+    private final long maxExpansions;
+    private final AtomicLong numExpansions = new AtomicLong();
+    private final AtomicLong numRoutes = new AtomicLong();
+    private volatile boolean cancelled;
+    private volatile String exceededLimit;
+
+    /**
+     * Creates a budget whose deadline is the timeout from now, where a timeout or maximum of
+     * {@link #UNLIMITED} means no limit.
+     */
+    public QueryBudget(long timeoutMillis, long maxExpansions) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Makes the budget the current thread's and returns it.
+     */
+    public static QueryBudget start(QueryBudget budget) {
+        currentBudget.set(budget);
+        return budget;
+    }
+
+    /**
+     * Puts the current thread back on an unlimited budget.
+     */
+    public static void end() {
+        currentBudget.remove();
+    }
+
+    public static QueryBudget current() {
+        return currentBudget.get();
+    }
+
+    /**
+     * Stops the query at its next check, from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Adds the unit routes followed and routes found since the caller's last check.
+     *
+     * @throws QueryBudgetExceededException if the query has been cancelled, has passed its
+     *                                      deadline or has followed more unit routes than its budget
+     */
+    public void check(long numNewExpansions, long numNewRoutes) {
+        long expansions = numExpansions.addAndGet(numNewExpansions);
+        if (numNewRoutes != 0) {
+            numRoutes.addAndGet(numNewRoutes);
+        }
+
+        if (exceededLimit == null) {
+            if (cancelled) {
+                exceededLimit = "the query was cancelled";
+            } else if (maxExpansions != UNLIMITED && expansions > maxExpansions) {
+                exceededLimit = "it may follow at most " + maxExpansions + " unit routes";
+            } else if (timeoutMillis != UNLIMITED && System.nanoTime() - deadlineNanos > 0) {
+                exceededLimit = "it may take at most " + timeoutMillis + " ms";
+            } else {
+                return;
+            }
+        }
+        throw new QueryBudgetExceededException(exceededLimit, numRoutes.get(), expansions);
+    }
+}
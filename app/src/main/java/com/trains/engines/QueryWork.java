@@ -0,0 +1,80 @@
+package com.trains.engines;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The work the engines did to answer a query: cities settled, unit routes relaxed, routes
+ * enumerated, the deepest a depth first search went, and any preprocessing of the route graph
+ * the query had to wait for, such as building a contraction hierarchy.
+ * <p>
+ * Each thread has a current query's work, replaced by {@link #start()}. Engines count in their
+ * own fields or locals and add the totals once per search, so counting costs nothing per step.
+ * A {@link RouteSpliterator} keeps the work of the thread that created it, so the forked tasks
+ * of a parallel count add to the query that started them, which is why the counters are
+ * {@link LongAdder}s.
+ */
+public final class QueryWork {
+
+    private static final ThreadLocal<QueryWork> currentWork = ThreadLocal.withInitial(QueryWork::new);
+
+    private final LongAdder settledCities = new LongAdder();
+    private final LongAdder relaxedUnitRoutes = new LongAdder();
+    private final LongAdder enumeratedRoutes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder preprocessingNanos = new LongAdder();
+    private final LongAdder shortcuts = new LongAdder();
+
+    /**
+     * Makes new, empty work the current thread's and returns it.
+     */
+    public static QueryWork start() {
+        QueryWork work = new QueryWork();
+        currentWork.set(work);
+        return work;
+    }
+
+    public static QueryWork current() {
+        return currentWork.get();
+    }
+
+    public void addSearch(long numSettledCities, long numRelaxedUnitRoutes) {
+        settledCities.add(numSettledCities);
+        relaxedUnitRoutes.add(numRelaxedUnitRoutes);
+    }
+
+    public void addEnumeration(long numEnumeratedRoutes, long numRelaxedUnitRoutes, int depth) {
+        enumeratedRoutes.add(numEnumeratedRoutes);
+        relaxedUnitRoutes.add(numRelaxedUnitRoutes);
+        maxDepth.accumulate(depth);
+    }
+
+    public void addPreprocessing(long nanos, long numShortcuts) {
+        preprocessingNanos.add(nanos);
+        shortcuts.add(numShortcuts);
+    }
+
+    public long getSettledCities() {
+        return settledCities.sum();
+    }
+
+    public long getRelaxedUnitRoutes() {
+        return relaxedUnitRoutes.sum();
+    }
+
+    public long getEnumeratedRoutes() {
+        return enumeratedRoutes.sum();
+    }
+
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    public long getPreprocessingNanos() {
+        return preprocessingNanos.sum();
+    }
+
+    public long getShortcuts() {
+        return shortcuts.sum();
+    }
+}
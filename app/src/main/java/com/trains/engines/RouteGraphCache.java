@@ -0,0 +1,96 @@
+package com.trains.engines;
+
+import com.trains.models.RouteGraph;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Values worked out from a route graph, such as a contraction hierarchy, kept for as long as
+ * the graph is.
+ * <p>
+ * A value is worked out by the first thread to ask for it, outside the map's lock, so a slow
+ * preprocessing of one graph never holds up queries on another. Threads asking for the same
+ * graph meanwhile wait for that value rather than working it out again. If working it out
+ * fails, for example because the first thread's query ran out of budget, nothing is kept and
+ * the waiting threads try again themselves.
+ */
+final class RouteGraphCache<V> {
+
+    private final Map<RouteGraph, FutureTask<V>> values = Collections.synchronizedMap(new WeakHashMap<>());
+
+    V get(RouteGraph routeGraph, Function<RouteGraph, V> compute) {
+        while (true) {
+            FutureTask<V> task = new FutureTask<>(() -> compute.apply(routeGraph));
+            FutureTask<V> existing = values.putIfAbsent(routeGraph, task);
+            boolean computing = existing == null;
+            if (computing) {
+                existing = task;
+                task.run();
+            }
+
+            try {
+                return getUninterruptibly(existing);
+            } catch (ExecutionException e) {
+                values.remove(routeGraph, existing);
+                if (computing) {
+                    throw rethrow(e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the value for the graph if it has already been worked out, without working it out
+     * or waiting for another thread to.
+     */
+    Optional<V> getIfPresent(RouteGraph routeGraph) {
+        FutureTask<V> task = values.get(routeGraph);
+        if (task == null || !task.isDone()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(getUninterruptibly(task));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    void put(RouteGraph routeGraph, V value) {
+        FutureTask<V> task = new FutureTask<>(() -> value);
+        task.run();
+        values.put(routeGraph, task);
+    }
+
+    private static <V> V getUninterruptibly(FutureTask<V> task) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,300 @@
+package com.trains.engines;
+
+import com.trains.events.RouteBranchEvent;
+import com.trains.events.RouteEvents;
+import com.trains.exceptions.QueryBudgetExceededException;
+import com.trains.models.Route;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily enumerates every route between two cities with a number of stops in
+ * [{@code minStops}, {@code maxStops}] and a distance below {@code maxDistance}, one route per
+ * {@link #tryAdvance}, using an explicit depth first search stack.
+ * <p>
+ * Routes come out in the same order as a recursive depth first search over the unit routes
+ * of each city, and only the stack is kept between calls. {@link #trySplit} hands the first
+ * half of the unexplored unit routes at the shallowest level with work left to a new
+ * spliterator, so parallel searches divide the tree at its first hops and can keep splitting
+ * skewed subtrees further down.
+ * <p>
+ * Given {@link Landmarks}, the search does not go on from a city the landmarks show cannot
+ * reach the destination within the distance left, which never changes the routes found.
+ * <p>
+ * The routes found, unit routes relaxed and most stops reached are added to the
+ * {@link QueryWork} of the thread that created the spliterator once its search is done, so
+ * the parts of a split search all count towards the same query. The search through each
+ * first stop is recorded as a {@link RouteBranchEvent}.
+ * <p>
+ * The {@link QueryBudget} of that thread is checked as the search goes, and once it runs out
+ * the search ends, the spliterator throwing the budget's exception and then reporting no more
+ * routes.
+ */
+public class RouteSpliterator implements Spliterator<Route> {
+
+    private static final int INITIAL_STACK_SIZE = 16;
+
+    private final RouteGraph routeGraph;
+    private final int destinationCityId;
+    private final int minStops;
+    private final int maxStops;
+    private final long maxDistance;
+    private final Landmarks landmarks;
+    private final QueryWork work;
+    private final QueryBudget budget;
+
+    private int[] cityIds;
+    private int[] nextUnitRoutes;
+    private int[] unitRoutesEnds;
+    private long[] distances;
+    private int depth;
+    private long estimatedSize;
+    private long numRoutes;
+    private long numRelaxedUnitRoutes;
+    private int maxDepth;
+    private long numCheckedRoutes;
+    private long numCheckedUnitRoutes;
+    private RouteBranchEvent branchEvent;
+    private int branchFirstStopCityId;
+    private long branchStartNumRoutes;
+    private long branchStartNumRelaxedUnitRoutes;
+
+    public RouteSpliterator(
+            RouteGraph routeGraph,
+            int originCityId,
+            int destinationCityId,
+            int minStops,
+            int maxStops,
+            long maxDistance
+    ) {
+        this(routeGraph, originCityId, destinationCityId, minStops, maxStops, maxDistance, null);
+    }
+
+    public RouteSpliterator(
+            RouteGraph routeGraph,
+            int originCityId,
+            int destinationCityId,
+            int minStops,
+            int maxStops,
+            long maxDistance,
+            Landmarks landmarks
+    ) {
+        this.routeGraph = routeGraph;
+        this.destinationCityId = destinationCityId;
+        this.minStops = minStops;
+        this.maxStops = maxStops;
+        this.maxDistance = maxDistance;
+        this.landmarks = landmarks;
+        this.work = QueryWork.current();
+        this.budget = QueryBudget.current();
+
+        cityIds = new int[INITIAL_STACK_SIZE];
+        nextUnitRoutes = new int[INITIAL_STACK_SIZE];
+        unitRoutesEnds = new int[INITIAL_STACK_SIZE];
+        distances = new long[INITIAL_STACK_SIZE];
+        cityIds[0] = originCityId;
+        nextUnitRoutes[0] = routeGraph.getUnitRoutesStart(originCityId);
+        unitRoutesEnds[0] = routeGraph.getUnitRoutesEnd(originCityId);
+        depth = maxStops > 0 && maxDistance > 0 ? 0 : -1;
+        estimatedSize = Long.MAX_VALUE;
+    }
+
+    private RouteSpliterator(RouteSpliterator other) {
+        this.routeGraph = other.routeGraph;
+        this.destinationCityId = other.destinationCityId;
+        this.minStops = other.minStops;
+        this.maxStops = other.maxStops;
+        this.maxDistance = other.maxDistance;
+        this.landmarks = other.landmarks;
+        this.work = other.work;
+        this.budget = other.budget;
+
+        cityIds = other.cityIds.clone();
+        nextUnitRoutes = other.nextUnitRoutes.clone();
+        unitRoutesEnds = other.unitRoutesEnds.clone();
+        distances = other.distances.clone();
+        depth = other.depth;
+        estimatedSize = other.estimatedSize;
+    }
+
+    // A prefix split off at the first stops takes over the branch in progress, and one split
+    // off deeper starts recording its own part of the branch.
+    private RouteSpliterator(RouteSpliterator other, int level) {
+        this(other);
+        if (level == 0) {
+            branchEvent = other.branchEvent;
+            branchFirstStopCityId = other.branchFirstStopCityId;
+            branchStartNumRoutes = other.branchStartNumRoutes - other.numRoutes;
+            branchStartNumRelaxedUnitRoutes = other.branchStartNumRelaxedUnitRoutes - other.numRelaxedUnitRoutes;
+            other.branchEvent = null;
+        } else if (other.branchEvent != null) {
+            branchEvent = RouteEvents.beginRouteBranch();
+            branchFirstStopCityId = other.branchFirstStopCityId;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Route> action) {
+        while (depth >= 0) {
+            int unitRoute = nextUnitRoutes[depth];
+            if (unitRoute == unitRoutesEnds[depth]) {
+                depth--;
+                if (depth == 0) {
+                    endBranch();
+                }
+                continue;
+            }
+            if (depth == 0) {
+                beginBranch(unitRoute);
+            }
+            nextUnitRoutes[depth]++;
+            numRelaxedUnitRoutes++;
+            if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                checkBudget();
+            }
+
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distances[depth] + routeGraph.getDistance(unitRoute);
+            if (nextDistance >= maxDistance) {
+                continue;
+            }
+
+            int stops = depth + 1;
+            maxDepth = Math.max(maxDepth, stops);
+            boolean isRoute = nextCityId == destinationCityId && stops >= minStops;
+            if (stops < maxStops && canReachDestination(nextCityId, nextDistance)) {
+                push(nextCityId, nextDistance);
+            }
+
+            if (isRoute) {
+                int[] routeCityIds = Arrays.copyOf(cityIds, stops + 1);
+                routeCityIds[stops] = nextCityId;
+                numRoutes++;
+                action.accept(new Route(routeGraph, routeCityIds));
+                return true;
+            }
+        }
+        endBranch();
+        addWork();
+        return false;
+    }
+
+    @Override
+    public Spliterator<Route> trySplit() {
+        while (depth >= 0) {
+            int level = 0;
+            while (level <= depth && nextUnitRoutes[level] == unitRoutesEnds[level]) {
+                level++;
+            }
+            if (level > depth) {
+                return null;
+            }
+
+            int remaining = unitRoutesEnds[level] - nextUnitRoutes[level];
+            if (remaining > 1 || level < depth) {
+                // The prefix keeps everything deeper than this level plus the first half of its
+                // unit routes, and this spliterator resumes from the second half.
+                int middle = nextUnitRoutes[level] + remaining / 2;
+                estimatedSize >>>= 1;
+
+                RouteSpliterator prefix = new RouteSpliterator(this, level);
+                prefix.unitRoutesEnds[level] = middle;
+                nextUnitRoutes[level] = middle;
+                depth = level;
+                return prefix;
+            }
+
+            // A single unit route is left and nothing is in progress below it, so descend
+            // through it first, unless that completes a route which would then go unreported.
+            int unitRoute = nextUnitRoutes[level];
+            int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+            long nextDistance = distances[level] + routeGraph.getDistance(unitRoute);
+            int stops = level + 1;
+            if (nextDistance < maxDistance && nextCityId == destinationCityId && stops >= minStops) {
+                return null;
+            }
+
+            if (level == 0) {
+                beginBranch(unitRoute);
+            }
+            nextUnitRoutes[level]++;
+            if (nextDistance < maxDistance && stops < maxStops && canReachDestination(nextCityId, nextDistance)) {
+                push(nextCityId, nextDistance);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    private boolean canReachDestination(int cityId, long distance) {
+        if (landmarks == null) {
+            return true;
+        }
+        long lowerBound = landmarks.lowerBound(cityId, destinationCityId);
+        return lowerBound != Landmarks.UNREACHABLE && distance + lowerBound < maxDistance;
+    }
+
+    private void beginBranch(int unitRoute) {
+        endBranch();
+        branchEvent = RouteEvents.beginRouteBranch();
+        branchFirstStopCityId = routeGraph.getDestinationCityId(unitRoute);
+        branchStartNumRoutes = numRoutes;
+        branchStartNumRelaxedUnitRoutes = numRelaxedUnitRoutes;
+    }
+
+    private void endBranch() {
+        RouteEvents.endRouteBranch(branchEvent, routeGraph, cityIds[0], branchFirstStopCityId, destinationCityId,
+                numRoutes - branchStartNumRoutes, numRelaxedUnitRoutes - branchStartNumRelaxedUnitRoutes);
+        branchEvent = null;
+    }
+
+    private void checkBudget() {
+        long numNewUnitRoutes = numRelaxedUnitRoutes - numCheckedUnitRoutes;
+        long numNewRoutes = numRoutes - numCheckedRoutes;
+        numCheckedUnitRoutes = numRelaxedUnitRoutes;
+        numCheckedRoutes = numRoutes;
+        try {
+            budget.check(numNewUnitRoutes, numNewRoutes);
+        } catch (QueryBudgetExceededException e) {
+            depth = -1;
+            endBranch();
+            addWork();
+            throw e;
+        }
+    }
+
+    // Adds the work done since it was last added, so a finished search can be asked again.
+    private void addWork() {
+        work.addEnumeration(numRoutes, numRelaxedUnitRoutes, maxDepth);
+        numRoutes = 0;
+        numRelaxedUnitRoutes = 0;
+        numCheckedRoutes = 0;
+        numCheckedUnitRoutes = 0;
+    }
+
+    private void push(int cityId, long distance) {
+        depth++;
+        if (depth == cityIds.length) {
+            cityIds = Arrays.copyOf(cityIds, depth * 2);
+            nextUnitRoutes = Arrays.copyOf(nextUnitRoutes, depth * 2);
+            unitRoutesEnds = Arrays.copyOf(unitRoutesEnds, depth * 2);
+            distances = Arrays.copyOf(distances, depth * 2);
+        }
+        cityIds[depth] = cityId;
+        nextUnitRoutes[depth] = routeGraph.getUnitRoutesStart(cityId);
+        unitRoutesEnds[depth] = routeGraph.getUnitRoutesEnd(cityId);
+        distances[depth] = distance;
+    }
+}
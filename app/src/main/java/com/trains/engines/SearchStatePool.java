@@ -0,0 +1,36 @@
+package com.trains.engines;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+/**
+ * Scratch states for an engine's searches, lent to one query at a time and reused by the next
+ * query whichever thread runs it.
+ * <p>
+ * Unlike a thread local this keeps its states when every query gets a fresh thread, such as the
+ * server's virtual thread per request, so a query only allocates when more queries than ever
+ * before are running at once. The most recently returned state is lent first, as its arrays are
+ * the likeliest to still be in a cache.
+ */
+final class SearchStatePool<S> {
+
+    private final Supplier<S> newState;
+    private final ConcurrentLinkedDeque<S> states = new ConcurrentLinkedDeque<>();
+
+    SearchStatePool(Supplier<S> newState) {
+        this.newState = newState;
+    }
+
+    S borrow() {
+        S state = states.pollFirst();
+        return state != null ? state : newState.get();
+    }
+
+    void giveBack(S state) {
+        states.offerFirst(state);
+    }
+
+    int size() {
+        return states.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.trains.engines;
+
+import com.trains.models.RouteGraph;
+
+public interface ShortestPathEngine {
+
+    /**
+     * Returns the city ids of a shortest route from the origin to the destination, which must
+     * make at least one stop, so a route from a city back to itself is its shortest cycle.
+     *
+     * @throws com.trains.exceptions.NoSuchRouteException if the destination cannot be reached
+     */
+    int[] findShortestRoute(RouteGraph routeGraph, int originCityId, int destinationCityId);
+}
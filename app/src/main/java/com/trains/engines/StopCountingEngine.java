@@ -0,0 +1,220 @@
+package com.trains.engines;
+
+import com.trains.exceptions.RouteCountMatrixTooLargeException;
+import com.trains.exceptions.RouteCountOverflowException;
+import com.trains.models.RouteGraph;
+
+import java.util.Arrays;
+
+/**
+ * Counts routes by number of stops using powers of the adjacency count matrix rather than
+ * enumerating them.
+ * <p>
+ * Arithmetic saturates at {@link Long#MAX_VALUE}. Since every count is non-negative a saturated
+ * intermediate can only ever feed a saturated result, so any count below the limit is exact.
+ * <p>
+ * Counting stop by stop from the origin adds each city reached at each stop to the thread's
+ * {@link QueryWork} as a settled city, checking the thread's {@link QueryBudget} as it goes.
+ * Matrix powers add no work and check only the budget's deadline and cancellation.
+ * <p>
+ * Matrix powers keep several matrices of a count per pair of cities at once, so they are only
+ * used while those fit the heap and the int index range.
+ */
+public class StopCountingEngine {
+
+    private static final long OVERFLOW = Long.MAX_VALUE;
+    // The adjacency matrix, both pairs of powers and sums, a product and a sum being worked out,
+    // and the rows copied out for all pairs.
+    private static final long BYTES_PER_PAIR = 8 * Long.BYTES;
+
+    public long countRoutesWithExactStops(RouteGraph routeGraph, int originCityId, int destinationCityId, int stops) {
+        return countRoutes(routeGraph, originCityId, destinationCityId, stops, false);
+    }
+
+    public long countRoutesWithMaxStops(RouteGraph routeGraph, int originCityId, int destinationCityId, int maxStops) {
+        return countRoutes(routeGraph, originCityId, destinationCityId, maxStops, true);
+    }
+
+    /**
+     * Counts for every origin and destination pair, indexed by city id. Entries equal to
+     * {@link Long#MAX_VALUE} have overflowed.
+     *
+     * @throws RouteCountMatrixTooLargeException if the matrices for the graph's cities would not fit
+     */
+    public long[][] countAllRoutesWithExactStops(RouteGraph routeGraph, int stops) {
+        checkMatrixSize(routeGraph);
+        return toRows(calculateMatrixPowers(routeGraph, stops, false), routeGraph.getCityCount());
+    }
+
+    public long[][] countAllRoutesWithMaxStops(RouteGraph routeGraph, int maxStops) {
+        checkMatrixSize(routeGraph);
+        return toRows(calculateMatrixPowers(routeGraph, maxStops, true), routeGraph.getCityCount());
+    }
+
+    private static void checkMatrixSize(RouteGraph routeGraph) {
+        int maxCities = PairMatrices.getMaxCities(BYTES_PER_PAIR);
+        if (routeGraph.getCityCount() > maxCities) {
+            throw new RouteCountMatrixTooLargeException(routeGraph.getCityCount(), maxCities);
+        }
+    }
+
+    private long countRoutes(RouteGraph routeGraph, int originCityId, int destinationCityId, int stops, boolean isCumulative) {
+        if (stops == 0) {
+            return 0;
+        }
+
+        int numCities = routeGraph.getCityCount();
+        double vectorCost = (double) stops * (routeGraph.getUnitRouteCount() + numCities);
+        double matrixCost = (double) numCities * numCities * numCities * (32 - Integer.numberOfLeadingZeros(stops)) * 2;
+
+        long count;
+        if (vectorCost <= matrixCost || numCities > PairMatrices.getMaxCities(BYTES_PER_PAIR)) {
+            count = propagateRouteCounts(routeGraph, originCityId, destinationCityId, stops, isCumulative);
+        } else {
+            count = calculateMatrixPowers(routeGraph, stops, isCumulative)[originCityId * numCities + destinationCityId];
+        }
+
+        if (count == OVERFLOW) {
+            throw new RouteCountOverflowException();
+        }
+        return count;
+    }
+
+    private long propagateRouteCounts(RouteGraph routeGraph, int originCityId, int destinationCityId, int stops, boolean isCumulative) {
+        long[] counts = new long[routeGraph.getCityCount()];
+        long[] nextCounts = new long[routeGraph.getCityCount()];
+        counts[originCityId] = 1;
+
+        QueryBudget budget = QueryBudget.current();
+        long total = 0;
+        long numSettledCities = 0;
+        long numRelaxedUnitRoutes = 0;
+        long numCheckedUnitRoutes = 0;
+        long numCheckedRoutes = 0;
+        try {
+            for (int stop = 1; stop <= stops; stop++) {
+                Arrays.fill(nextCounts, 0);
+                for (int cityId = 0; cityId < counts.length; cityId++) {
+                    if (counts[cityId] == 0) {
+                        continue;
+                    }
+                    numSettledCities++;
+                    numRelaxedUnitRoutes += routeGraph.getUnitRoutesEnd(cityId) - routeGraph.getUnitRoutesStart(cityId);
+                    if (numRelaxedUnitRoutes - numCheckedUnitRoutes >= QueryBudget.CHECK_INTERVAL) {
+                        budget.check(numRelaxedUnitRoutes - numCheckedUnitRoutes, total - numCheckedRoutes);
+                        numCheckedUnitRoutes = numRelaxedUnitRoutes;
+                        numCheckedRoutes = total;
+                    }
+                    for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                        int nextCityId = routeGraph.getDestinationCityId(unitRoute);
+                        nextCounts[nextCityId] = add(nextCounts[nextCityId], counts[cityId]);
+                    }
+                }
+
+                long[] swap = counts;
+                counts = nextCounts;
+                nextCounts = swap;
+
+                if (isCumulative) {
+                    total = add(total, counts[destinationCityId]);
+                }
+            }
+        } finally {
+            QueryWork.current().addSearch(numSettledCities, numRelaxedUnitRoutes);
+        }
+
+        return isCumulative ? total : counts[destinationCityId];
+    }
+
+    // Binary exponentiation over pairs (A^k, A + A^2 + ... + A^k), where combining the pair for
+    // a steps with the pair for b steps gives (P_a P_b, S_a + P_a S_b).
+    private long[] calculateMatrixPowers(RouteGraph routeGraph, int stops, boolean isCumulative) {
+        QueryBudget budget = QueryBudget.current();
+        int numCities = routeGraph.getCityCount();
+        long[] adjacency = new long[numCities * numCities];
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            for (int unitRoute = routeGraph.getUnitRoutesStart(cityId); unitRoute < routeGraph.getUnitRoutesEnd(cityId); unitRoute++) {
+                adjacency[cityId * numCities + routeGraph.getDestinationCityId(unitRoute)] = 1;
+            }
+        }
+
+        long[] power = identity(numCities);
+        long[] sum = new long[numCities * numCities];
+        long[] basePower = adjacency;
+        long[] baseSum = adjacency;
+
+        for (int remaining = stops; remaining > 0; remaining >>>= 1) {
+            if ((remaining & 1) == 1) {
+                if (isCumulative) {
+                    sum = add(sum, multiply(power, baseSum, numCities, budget));
+                }
+                power = multiply(power, basePower, numCities, budget);
+            }
+            if (remaining > 1) {
+                if (isCumulative) {
+                    baseSum = add(baseSum, multiply(basePower, baseSum, numCities, budget));
+                }
+                basePower = multiply(basePower, basePower, numCities, budget);
+            }
+        }
+
+        if (stops == 0) {
+            // Routes always have at least one stop, so the identity does not count.
+            return new long[numCities * numCities];
+        }
+        return isCumulative ? sum : power;
+    }
+
+    private long[] multiply(long[] left, long[] right, int size, QueryBudget budget) {
+        long[] product = new long[size * size];
+        for (int i = 0; i < size; i++) {
+            budget.check(0, 0);
+            for (int k = 0; k < size; k++) {
+                long value = left[i * size + k];
+                if (value == 0) {
+                    continue;
+                }
+                for (int j = 0; j < size; j++) {
+                    long other = right[k * size + j];
+                    if (other != 0) {
+                        product[i * size + j] = add(product[i * size + j], multiply(value, other));
+                    }
+                }
+            }
+        }
+        return product;
+    }
+
+    private long[] add(long[] left, long[] right) {
+        long[] sum = new long[left.length];
+        for (int i = 0; i < left.length; i++) {
+            sum[i] = add(left[i], right[i]);
+        }
+        return sum;
+    }
+
+    private long[] identity(int size) {
+        long[] identity = new long[size * size];
+        for (int i = 0; i < size; i++) {
+            identity[i * size + i] = 1;
+        }
+        return identity;
+    }
+
+    private long[][] toRows(long[] matrix, int size) {
+        long[][] rows = new long[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = Arrays.copyOfRange(matrix, i * size, (i + 1) * size);
+        }
+        return rows;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? OVERFLOW : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        return a > OVERFLOW / b ? OVERFLOW : a * b;
+    }
+}
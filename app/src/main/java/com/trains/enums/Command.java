@@ -7,9 +7,15 @@ import java.util.stream.Stream;
 public enum Command {
     DISTANCE_OF_ROUTE("dist"),
     SHORTEST_ROUTE("short"),
+    SHORTEST_ROUTE_WITH_CONTRACTION_HIERARCHY("chshort"),
+    SHORTEST_ROUTE_WITH_LANDMARKS("altshort"),
+    SHORTEST_ROUTE_WITH_DISTANCE_MATRIX("apsp"),
     NUMBER_OF_ROUTES_WITH_STOPS("stops"),
     NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS("maxstops"),
-    NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE("maxdist");
+    NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE("maxdist"),
+    BATCH("batch"),
+    SERVE("serve"),
+    COMPILE("compile");
 
     private final String alias;
 
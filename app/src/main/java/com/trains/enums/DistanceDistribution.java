@@ -0,0 +1,44 @@
+package com.trains.enums;
+
+import java.util.Random;
+
+/**
+ * How the distances of generated routes are spread between a minimum and a maximum.
+ */
+public enum DistanceDistribution {
+    UNIFORM {
+        @Override
+        public int sample(Random random, int min, int max) {
+            long range = (long) max - min + 1;
+            if (range <= Integer.MAX_VALUE) {
+                return min + random.nextInt((int) range);
+            }
+            // The range is too wide for nextInt, eg. from 0 to Integer.MAX_VALUE.
+            return (int) (min + Math.floorMod(random.nextLong(), range));
+        }
+    },
+    /**
+     * Centred between the minimum and the maximum, with a standard deviation of a sixth of the
+     * range.
+     */
+    NORMAL {
+        @Override
+        public int sample(Random random, int min, int max) {
+            double distance = (min + max) / 2.0 + random.nextGaussian() * (max - min) / 6.0;
+            return (int) Math.max(min, Math.min(max, Math.round(distance)));
+        }
+    },
+    /**
+     * Mostly short routes and a few long ones, with a mean of a quarter of the range above the
+     * minimum.
+     */
+    EXPONENTIAL {
+        @Override
+        public int sample(Random random, int min, int max) {
+            double distance = -Math.log(1 - random.nextDouble()) * (max - min) / 4.0;
+            return min + (int) Math.min(max - min, distance);
+        }
+    };
+
+    public abstract int sample(Random random, int min, int max);
+}
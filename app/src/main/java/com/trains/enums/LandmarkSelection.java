@@ -0,0 +1,6 @@
+package com.trains.enums;
+
+public enum LandmarkSelection {
+    FARTHEST,
+    RANDOM
+}
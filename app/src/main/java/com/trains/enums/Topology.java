@@ -0,0 +1,8 @@
+package com.trains.enums;
+
+public enum Topology {
+    SPARSE,
+    GRID,
+    SCALE_FREE,
+    COMPLETE
+}
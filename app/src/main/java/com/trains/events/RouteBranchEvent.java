@@ -0,0 +1,35 @@
+package com.trains.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * The depth first search of every route through one first stop from the origin. A branch split
+ * between the parts of a parallel search is recorded once for each part.
+ */
+@Name("com.trains.RouteBranch")
+@Label("Route Branch")
+@Category({"Trains", "Queries"})
+@Threshold("10 ms")
+public final class RouteBranchEvent extends jdk.jfr.Event {
+
+    @Label("Origin")
+    String origin;
+
+    @Label("First Stop")
+    String firstStop;
+
+    @Label("Destination")
+    String destination;
+
+    @Label("Routes")
+    @Description("The routes found through the first stop")
+    long routes;
+
+    @Label("Relaxed Unit Routes")
+    @Description("The unit routes followed through the first stop, the size of the searched subtree")
+    long relaxedUnitRoutes;
+}
@@ -0,0 +1,136 @@
+package com.trains.events;
+
+import com.trains.models.RouteGraph;
+
+/**
+ * Begins and ends the application's Java Flight Recorder events. Each begin returns null when
+ * the Java runtime has no flight recorder, and each end takes that null and does nothing, so
+ * the event classes are never loaded there.
+ * <p>
+ * Events are only filled in and committed when they are being recorded and took longer than
+ * their threshold, so the cost otherwise is an allocation and two clock reads. Record them with
+ * {@code -XX:StartFlightRecording}, lowering the thresholds in the recording's settings to see
+ * faster queries.
+ */
+public final class RouteEvents {
+
+    public static final long NO_BOUND = -1;
+
+    public static final String LANDMARKS_PHASE = "landmarks";
+    public static final String CONTRACTION_HIERARCHY_PHASE = "contraction hierarchy";
+    public static final String DISTANCE_MATRIX_PHASE = "distance matrix";
+    public static final String SEARCH_PHASE = "search";
+
+    public static final String LOAD_PHASE = "load";
+    public static final String PARSE_PHASE = "parse";
+    public static final String MERGE_PHASE = "merge";
+    public static final String COMPILE_PHASE = "compile";
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private RouteEvents() {
+    }
+
+    public static RouteQueryEvent beginRouteQuery() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        RouteQueryEvent event = new RouteQueryEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endRouteQuery(RouteQueryEvent event, String query, String origin, String destination, long bound) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = query;
+            event.origin = origin;
+            event.destination = destination;
+            event.bound = bound;
+            event.commit();
+        }
+    }
+
+    public static ShortestPathPhaseEvent beginShortestPathPhase() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        ShortestPathPhaseEvent event = new ShortestPathPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endShortestPathPhase(ShortestPathPhaseEvent event, Object engine, String phase,
+                                            String origin, String destination) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine.getClass().getSimpleName();
+            event.phase = phase;
+            event.origin = origin;
+            event.destination = destination;
+            event.commit();
+        }
+    }
+
+    public static RouteBranchEvent beginRouteBranch() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        RouteBranchEvent event = new RouteBranchEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endRouteBranch(RouteBranchEvent event, RouteGraph routeGraph, int originCityId,
+                                      int firstStopCityId, int destinationCityId, long numRoutes, long numRelaxedUnitRoutes) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.origin = routeGraph.getCityName(originCityId);
+            event.firstStop = routeGraph.getCityName(firstStopCityId);
+            event.destination = routeGraph.getCityName(destinationCityId);
+            event.routes = numRoutes;
+            event.relaxedUnitRoutes = numRelaxedUnitRoutes;
+            event.commit();
+        }
+    }
+
+    public static RouteMapPhaseEvent beginRouteMapPhase() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        RouteMapPhaseEvent event = new RouteMapPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endRouteMapPhase(RouteMapPhaseEvent event, String phase, String file, long numRoutes) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.file = file;
+            event.routes = numRoutes;
+            event.commit();
+        }
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, RouteEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.trains.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A phase of building a route map in {@link com.trains.factories.RouteMapFactory}.
+ */
+@Name("com.trains.RouteMapPhase")
+@Label("Route Map Phase")
+@Category({"Trains", "Route Maps"})
+@Threshold("10 ms")
+public final class RouteMapPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    @Description("load, parse, merge or compile")
+    String phase;
+
+    @Label("Route File")
+    @Description("The file loaded or parsed, or none for the routes given as arguments")
+    String file;
+
+    @Label("Routes")
+    long routes;
+}
@@ -0,0 +1,30 @@
+package com.trains.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A query answered by {@link com.trains.factories.RouteFactory}, from its start to its end.
+ */
+@Name("com.trains.RouteQuery")
+@Label("Route Query")
+@Category({"Trains", "Queries"})
+@Threshold("100 ms")
+public final class RouteQueryEvent extends jdk.jfr.Event {
+
+    @Label("Query")
+    String query;
+
+    @Label("Origin")
+    String origin;
+
+    @Label("Destination")
+    String destination;
+
+    @Label("Bound")
+    @Description("The stops or distance of a route counting query, or -1 for a shortest route")
+    long bound;
+}
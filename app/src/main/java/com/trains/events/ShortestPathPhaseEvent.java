@@ -0,0 +1,31 @@
+package com.trains.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A phase of a shortest route query: building an engine's landmarks, contraction hierarchy or
+ * distance matrix, or the search itself.
+ */
+@Name("com.trains.ShortestPathPhase")
+@Label("Shortest Path Phase")
+@Category({"Trains", "Queries"})
+@Threshold("10 ms")
+public final class ShortestPathPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Phase")
+    @Description("landmarks, contraction hierarchy, distance matrix or search")
+    String phase;
+
+    @Label("Origin")
+    String origin;
+
+    @Label("Destination")
+    String destination;
+}
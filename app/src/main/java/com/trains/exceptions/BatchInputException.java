@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class BatchInputException extends CommandLineErrorException {
+
+    public BatchInputException(String source) {
+        super("Could not read batch commands from " + source + ".");
+    }
+}
@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class CommandLineOnlyException extends CommandLineErrorException {
+
+    public CommandLineOnlyException(String alias) {
+        super("The " + alias + " command can only be run from the command line.");
+    }
+}
@@ -0,0 +1,13 @@
+package com.trains.exceptions;
+
+public class CompiledRouteFileException extends CommandLineErrorException {
+
+    public static final String NOT_READ = "could not be read";
+    public static final String NOT_WRITTEN = "could not be written";
+    public static final String DAMAGED = "is damaged or was compiled by another version, please compile it again";
+    public static final String NOT_ALONE = "must be given on its own, without any other routes";
+
+    public CompiledRouteFileException(String file, String reason) {
+        super("The compiled route file " + file + " " + reason + ".");
+    }
+}
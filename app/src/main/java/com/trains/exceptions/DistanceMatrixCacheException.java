@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class DistanceMatrixCacheException extends CommandLineErrorException {
+
+    public DistanceMatrixCacheException(String cacheFile) {
+        super("Could not write the distance matrix cache file " + cacheFile + ".");
+    }
+}
@@ -0,0 +1,9 @@
+package com.trains.exceptions;
+
+public class DistanceMatrixTooLargeException extends CommandLineErrorException {
+
+    public DistanceMatrixTooLargeException(int numCities, int maxCities) {
+        super("Could not precompute a distance matrix for " + numCities + " cities, apsp allows at most "
+                + maxCities + ". Please use short instead.");
+    }
+}
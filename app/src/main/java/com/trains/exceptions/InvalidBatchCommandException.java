@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class InvalidBatchCommandException extends CommandLineErrorException {
+
+    public InvalidBatchCommandException() {
+        super("Please enter each batch command on its own line in the format: <command> <command input>, eg. dist ABC.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class InvalidNetworkGeneratorArgumentException extends CommandLineErrorException {
+
+    public InvalidNetworkGeneratorArgumentException(String argument, String requirement) {
+        super("The " + argument + " must be " + requirement + ".");
+    }
+}
@@ -3,7 +3,8 @@ package com.trains.exceptions;
 public class InvalidOriginDestinationStopsInputException extends CommandLineErrorException {
 
     public InvalidOriginDestinationStopsInputException() {
-        super("Please enter a valid origin, destination and number of stops input in the format: AB0\n" +
-                "Which is two letters denoting origin and destination city names and an integer number of stops.");
+        super("Please enter a valid origin, destination and number of stops input in the format: AB0 or KGX-EDB:0\n" +
+                "Which is two letters, or two names separated by a hyphen, denoting origin and destination city names " +
+                "and an integer number of stops.");
     }
 }
@@ -3,8 +3,8 @@ package com.trains.exceptions;
 public class InvalidRouteException extends CommandLineErrorException {
 
     public InvalidRouteException() {
-        super("Please enter a valid route in the format: AB0.\n" +
-                "Where A and B are single capital letters denoting city names  +" +
+        super("Please enter a valid route in the format: AB0 or KGX-EDB:0.\n" +
+                "Where A and B are single capital letters, or KGX and EDB are letters, digits and underscores, denoting city names " +
                 "and 0 is an integer denoting the distance of the route between the two.");
     }
 }
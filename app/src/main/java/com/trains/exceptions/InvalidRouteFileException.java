@@ -0,0 +1,9 @@
+package com.trains.exceptions;
+
+public class InvalidRouteFileException extends CommandLineErrorException {
+
+    public InvalidRouteFileException(String file, long lineNumber, String route, String reason) {
+        super("Invalid route " + route + " on line " + lineNumber + " of " + file + ", " + reason + ".\n" +
+                "Please enter routes in the format: AB0 or KGX-EDB:0, separated by spaces, commas or new lines.");
+    }
+}
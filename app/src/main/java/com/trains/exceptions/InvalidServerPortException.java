@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class InvalidServerPortException extends CommandLineErrorException {
+
+    public InvalidServerPortException() {
+        super("Please enter the server port as a number from 0 to 65535, 0 picking any free port.");
+    }
+}
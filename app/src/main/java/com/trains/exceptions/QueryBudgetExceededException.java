@@ -0,0 +1,22 @@
+package com.trains.exceptions;
+
+public class QueryBudgetExceededException extends CommandLineErrorException {
+
+    private final long partialRouteCount;
+    private final long expansionCount;
+
+    public QueryBudgetExceededException(String limit, long partialRouteCount, long expansionCount) {
+        super("Query budget exceeded, " + limit + ". Found at least " + partialRouteCount
+                + " routes after following " + expansionCount + " unit routes.");
+        this.partialRouteCount = partialRouteCount;
+        this.expansionCount = expansionCount;
+    }
+
+    public long getPartialRouteCount() {
+        return partialRouteCount;
+    }
+
+    public long getExpansionCount() {
+        return expansionCount;
+    }
+}
@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class QueryCacheException extends CommandLineErrorException {
+
+    public QueryCacheException(String file) {
+        super("Could not write the query cache file " + file + ".");
+    }
+}
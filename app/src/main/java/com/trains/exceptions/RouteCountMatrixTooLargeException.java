@@ -0,0 +1,9 @@
+package com.trains.exceptions;
+
+public class RouteCountMatrixTooLargeException extends CommandLineErrorException {
+
+    public RouteCountMatrixTooLargeException(int numCities, int maxCities) {
+        super("Could not count routes between every pair of " + numCities + " cities, at most "
+                + maxCities + " fit in memory.");
+    }
+}
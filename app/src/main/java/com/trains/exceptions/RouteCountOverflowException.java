@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class RouteCountOverflowException extends CommandLineErrorException {
+
+    public RouteCountOverflowException() {
+        super("The number of routes is too large to count, it exceeds " + Long.MAX_VALUE + ".");
+    }
+}
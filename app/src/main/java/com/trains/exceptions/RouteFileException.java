@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class RouteFileException extends CommandLineErrorException {
+
+    public RouteFileException(String file) {
+        super("Could not read the route file " + file + ".");
+    }
+}
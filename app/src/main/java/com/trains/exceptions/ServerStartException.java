@@ -0,0 +1,8 @@
+package com.trains.exceptions;
+
+public class ServerStartException extends CommandLineErrorException {
+
+    public ServerStartException(int port) {
+        super("Could not start the server on port " + port + ".");
+    }
+}
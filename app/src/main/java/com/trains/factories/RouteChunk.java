@@ -0,0 +1,332 @@
+package com.trains.factories;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Routes parsed from ASCII bytes by a hand-written tokenizer, one chunk of a route file or the
+ * routes given as arguments. Routes are of the form AB5 or KGX-EDB:632, separated by spaces,
+ * tabs, commas or new lines, and a # starts a comment running to the end of its line.
+ * <p>
+ * City names are interned into the chunk's own open addressing table over their bytes, so
+ * parsing allocates one array per distinct name rather than any objects per route. Routes are
+ * kept as columns of the chunk's city ids, distances and line numbers, counted from the start
+ * of the chunk. Parsing stops at the first invalid route, whose line and reason are kept.
+ */
+final class RouteChunk {
+
+    private static final int MAX_ERROR_ROUTE_LENGTH = 64;
+
+    private final String file;
+    private long lineOffset;
+
+    private int[] table = new int[64];
+    private int[] nameHashes = new int[32];
+    private byte[][] names = new byte[32][];
+    private int numNames;
+
+    private int[] origins = new int[64];
+    private int[] destinations = new int[64];
+    private int[] distances = new int[64];
+    private int[] lines = new int[64];
+    private int numRoutes;
+    private int numLines;
+
+    private int errorLine;
+    private String errorRoute;
+    private ErrorReason errorReason;
+
+    RouteChunk(String file) {
+        this.file = file;
+    }
+
+    String getFile() {
+        return file;
+    }
+
+    long getLineOffset() {
+        return lineOffset;
+    }
+
+    void setLineOffset(long lineOffset) {
+        this.lineOffset = lineOffset;
+    }
+
+    int getNumNames() {
+        return numNames;
+    }
+
+    String getName(int id) {
+        return new String(names[id], StandardCharsets.US_ASCII);
+    }
+
+    int getNumRoutes() {
+        return numRoutes;
+    }
+
+    int getOrigin(int route) {
+        return origins[route];
+    }
+
+    int getDestination(int route) {
+        return destinations[route];
+    }
+
+    int getDistance(int route) {
+        return distances[route];
+    }
+
+    int getLine(int route) {
+        return lines[route];
+    }
+
+    int getNumLines() {
+        return numLines;
+    }
+
+    boolean hasError() {
+        return errorReason != null;
+    }
+
+    int getErrorLine() {
+        return errorLine;
+    }
+
+    String getErrorRoute() {
+        return errorRoute;
+    }
+
+    ErrorReason getErrorReason() {
+        return errorReason;
+    }
+
+    /**
+     * Parses every line of the buffer, from its start to its limit, and returns whether they
+     * were all valid.
+     */
+    boolean parseLines(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int line = 1;
+        int position = 0;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == '\n') {
+                line++;
+                position++;
+            } else if (isSeparator(b)) {
+                position++;
+            } else if (b == '#') {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+            } else {
+                position = parseRoute(buffer, position, limit, line);
+                if (position < 0) {
+                    return false;
+                }
+            }
+        }
+        numLines = line - 1;
+        return true;
+    }
+
+    /**
+     * Parses a single route given on its own, such as a command line argument, and returns
+     * whether it was valid.
+     */
+    boolean parseRoute(String route) {
+        ByteBuffer buffer = ByteBuffer.wrap(route.getBytes(StandardCharsets.US_ASCII));
+        int end = parseRoute(buffer, 0, buffer.limit(), 0);
+        if (end >= 0 && end < buffer.limit()) {
+            fail(buffer, 0, buffer.limit(), 0, ErrorReason.INVALID_FORMAT);
+            return false;
+        }
+        return end >= 0;
+    }
+
+    // Returns the position after the route, or -1 if it is invalid.
+    private int parseRoute(ByteBuffer buffer, int start, int limit, int line) {
+        int originEnd = skipName(buffer, start, limit);
+        int originStart = start;
+        int destinationStart;
+        int destinationEnd;
+        int distanceStart;
+
+        if (originEnd < limit && buffer.get(originEnd) == '-') {
+            destinationStart = originEnd + 1;
+            destinationEnd = skipName(buffer, destinationStart, limit);
+            if (originEnd == originStart || destinationEnd == destinationStart
+                    || destinationEnd >= limit || buffer.get(destinationEnd) != ':') {
+                return fail(buffer, start, limit, line, ErrorReason.INVALID_FORMAT);
+            }
+            distanceStart = destinationEnd + 1;
+        } else {
+            if (originEnd - start < 3 || !isCapitalLetter(buffer.get(start)) || !isCapitalLetter(buffer.get(start + 1))) {
+                return fail(buffer, start, limit, line, ErrorReason.INVALID_FORMAT);
+            }
+            originEnd = start + 1;
+            destinationStart = originEnd;
+            destinationEnd = start + 2;
+            distanceStart = destinationEnd;
+        }
+
+        long distance = 0;
+        int end = distanceStart;
+        while (end < limit && isDigit(buffer.get(end))) {
+            distance = Math.min(10 * distance + (buffer.get(end) - '0'), Integer.MAX_VALUE + 1L);
+            end++;
+        }
+        if (end == distanceStart || (end < limit && !isSeparator(buffer.get(end)) && buffer.get(end) != '\n' && buffer.get(end) != '#')) {
+            return fail(buffer, start, limit, line, ErrorReason.INVALID_FORMAT);
+        }
+        if (distance > Integer.MAX_VALUE) {
+            return fail(buffer, start, limit, line, ErrorReason.DISTANCE_TOO_LARGE);
+        }
+
+        int origin = intern(buffer, originStart, originEnd);
+        int destination = intern(buffer, destinationStart, destinationEnd);
+        if (origin == destination) {
+            return fail(buffer, start, limit, line, ErrorReason.SELF_ROUTE);
+        }
+
+        addRoute(origin, destination, (int) distance, line);
+        return end;
+    }
+
+    private int fail(ByteBuffer buffer, int start, int limit, int line, ErrorReason reason) {
+        int end = start;
+        while (end < limit && !isSeparator(buffer.get(end)) && buffer.get(end) != '\n') {
+            end++;
+        }
+        byte[] route = new byte[Math.min(end - start, MAX_ERROR_ROUTE_LENGTH)];
+        for (int i = 0; i < route.length; i++) {
+            route[i] = buffer.get(start + i);
+        }
+
+        errorLine = line;
+        errorRoute = new String(route, StandardCharsets.US_ASCII) + (end - start > route.length ? "..." : "");
+        errorReason = reason;
+        return -1;
+    }
+
+    private void addRoute(int origin, int destination, int distance, int line) {
+        if (numRoutes == origins.length) {
+            int capacity = 2 * origins.length;
+            origins = Arrays.copyOf(origins, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+        origins[numRoutes] = origin;
+        destinations[numRoutes] = destination;
+        distances[numRoutes] = distance;
+        lines[numRoutes] = line;
+        numRoutes++;
+    }
+
+    private int intern(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (id < 0) {
+                id = addName(buffer, start, end, hash);
+                table[slot] = id + 1;
+                if (2 * numNames > table.length) {
+                    resizeTable();
+                }
+                return id;
+            }
+            if (nameHashes[id] == hash && isName(names[id], buffer, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    private int addName(ByteBuffer buffer, int start, int end, int hash) {
+        if (numNames == names.length) {
+            names = Arrays.copyOf(names, 2 * names.length);
+            nameHashes = Arrays.copyOf(nameHashes, 2 * nameHashes.length);
+        }
+        byte[] name = new byte[end - start];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(start + i);
+        }
+        names[numNames] = name;
+        nameHashes[numNames] = hash;
+        return numNames++;
+    }
+
+    private void resizeTable() {
+        table = new int[2 * table.length];
+        int mask = table.length - 1;
+        for (int id = 0; id < numNames; id++) {
+            int slot = spread(nameHashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static boolean isName(byte[] name, ByteBuffer buffer, int start, int end) {
+        if (name.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipName(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && isNameCharacter(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Matches City.NAME_REGEX.
+    private static boolean isNameCharacter(byte b) {
+        return isCapitalLetter(b) || (b >= 'a' && b <= 'z') || isDigit(b) || b == '_';
+    }
+
+    private static boolean isCapitalLetter(byte b) {
+        return b >= 'A' && b <= 'Z';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == ',';
+    }
+
+    enum ErrorReason {
+        INVALID_FORMAT("which is not of the form AB0 or KGX-EDB:0"),
+        DISTANCE_TOO_LARGE("whose distance is too large"),
+        SELF_ROUTE("which goes from a city back to itself");
+
+        private final String description;
+
+        ErrorReason(String description) {
+            this.description = description;
+        }
+
+        String getDescription() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.trains.factories;
+
+import com.trains.engines.AltEngine;
+import com.trains.engines.AutoShortestPathEngine;
+import com.trains.engines.ContractionHierarchyEngine;
+import com.trains.engines.DistanceCountingEngine;
+import com.trains.engines.DistanceMatrix;
+import com.trains.engines.DistanceMatrixCache;
+import com.trains.engines.DistanceMatrixEngine;
+import com.trains.engines.Landmarks;
+import com.trains.engines.ParallelRouteCounter;
+import com.trains.engines.RouteSpliterator;
+import com.trains.engines.ShortestPathEngine;
+import com.trains.engines.StopCountingEngine;
+import com.trains.enums.Command;
+import com.trains.enums.LandmarkSelection;
+import com.trains.events.RouteEvents;
+import com.trains.events.RouteQueryEvent;
+import com.trains.events.ShortestPathPhaseEvent;
+import com.trains.exceptions.*;
+import com.trains.models.City;
+import com.trains.models.Route;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Creates routes and counts them for the commands' inputs. Queries other than route distances
+ * and route streams are recorded as {@link RouteQueryEvent}s, and shortest route queries'
+ * preprocessing and search as {@link ShortestPathPhaseEvent}s, when a flight recording is on
+ * and they are slower than the events' thresholds.
+ */
+@Component
+public class RouteFactory {
+
+    private static final Pattern routeInputPattern = Pattern.compile("^[A-Z]{2,}$");
+    private static final Pattern namedRouteInputPattern = Pattern.compile("^" + City.NAME_REGEX + "(-" + City.NAME_REGEX + ")+$");
+    private static final Pattern originDestinationInputPattern = Pattern.compile("^([A-Z])([A-Z])$");
+    private static final Pattern namedOriginDestinationInputPattern = Pattern.compile("^(" + City.NAME_REGEX + ")-(" + City.NAME_REGEX + ")$");
+    private static final Pattern originDestinationNumberInputPattern = Pattern.compile("^([A-Z])([A-Z])(\\d+)$");
+    private static final Pattern namedOriginDestinationNumberInputPattern = Pattern.compile("^(" + City.NAME_REGEX + ")-(" + City.NAME_REGEX + "):(\\d+)$");
+
+    private final ShortestPathEngine shortestPathEngine;
+    private final AltEngine altEngine;
+    private final DistanceMatrixEngine distanceMatrixEngine;
+    private final StopCountingEngine stopCountingEngine = new StopCountingEngine();
+    private final DistanceCountingEngine distanceCountingEngine = new DistanceCountingEngine();
+    private final ParallelRouteCounter parallelRouteCounter = new ParallelRouteCounter();
+    private final ContractionHierarchyEngine contractionHierarchyEngine = new ContractionHierarchyEngine();
+
+    public RouteFactory() {
+        this(new AutoShortestPathEngine());
+    }
+
+    /**
+     * Creates the application's factory, where shortest route queries use a distance matrix
+     * precomputed by an earlier run on the same routes whenever one is in the cache directory.
+     */
+    @Autowired
+    public RouteFactory(
+            @Value("${trains.landmarks.count:" + AltEngine.DEFAULT_LANDMARK_COUNT + "}") int numLandmarks,
+            @Value("${trains.landmarks.selection:FARTHEST}") LandmarkSelection landmarkSelection,
+            @Value("${trains.apsp.cache-directory:${java.io.tmpdir}/trains-apsp}") String distanceMatrixCacheDirectory
+    ) {
+        this(new AltEngine(numLandmarks, landmarkSelection), new DistanceMatrixEngine(
+                new DistanceMatrixCache(Paths.get(distanceMatrixCacheDirectory)), new AutoShortestPathEngine()));
+    }
+
+    private RouteFactory(AltEngine altEngine, DistanceMatrixEngine distanceMatrixEngine) {
+        this(distanceMatrixEngine, altEngine, distanceMatrixEngine);
+    }
+
+    public RouteFactory(ShortestPathEngine shortestPathEngine) {
+        this(shortestPathEngine, new AltEngine());
+    }
+
+    /**
+     * Creates a factory whose apsp distance matrices are only kept in memory.
+     */
+    public RouteFactory(ShortestPathEngine shortestPathEngine, AltEngine altEngine) {
+        this(shortestPathEngine, altEngine, new DistanceMatrixEngine(DistanceMatrixCache.none(), shortestPathEngine));
+    }
+
+    public RouteFactory(ShortestPathEngine shortestPathEngine, AltEngine altEngine, DistanceMatrixEngine distanceMatrixEngine) {
+        this.shortestPathEngine = shortestPathEngine;
+        this.altEngine = altEngine;
+        this.distanceMatrixEngine = distanceMatrixEngine;
+    }
+
+    public Route createRoute(String input, RouteMap routeMap) {
+        String[] cityNames;
+        if (routeInputPattern.matcher(input).matches()) {
+            cityNames = input.split("");
+        } else if (namedRouteInputPattern.matcher(input).matches()) {
+            cityNames = input.split("-");
+        } else {
+            throw new InvalidDistanceInputException();
+        }
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int[] cityIds = new int[cityNames.length];
+        for (int i = 0; i < cityNames.length; i++) {
+            cityIds[i] = routeGraph.getCityId(cityNames[i]);
+        }
+
+        return new Route(routeGraph, cityIds);
+    }
+
+    public Route createShortestRoute(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationInput(input);
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        int[] cityIds = traceQuery(Command.SHORTEST_ROUTE, matcher, RouteEvents.NO_BOUND, () ->
+                traceShortestPathPhase(shortestPathEngine, RouteEvents.SEARCH_PHASE, matcher, () ->
+                        shortestPathEngine.findShortestRoute(routeGraph, originCityId, destinationCityId)));
+
+        return new Route(routeGraph, cityIds);
+    }
+
+    public Route createShortestRouteWithContractionHierarchy(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationInput(input);
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        int[] cityIds = traceQuery(Command.SHORTEST_ROUTE_WITH_CONTRACTION_HIERARCHY, matcher, RouteEvents.NO_BOUND, () -> {
+            traceShortestPathPhase(contractionHierarchyEngine, RouteEvents.CONTRACTION_HIERARCHY_PHASE, matcher, () ->
+                    contractionHierarchyEngine.getContractionHierarchy(routeGraph));
+            return traceShortestPathPhase(contractionHierarchyEngine, RouteEvents.SEARCH_PHASE, matcher, () ->
+                    contractionHierarchyEngine.findShortestRoute(routeGraph, originCityId, destinationCityId));
+        });
+
+        return new Route(routeGraph, cityIds);
+    }
+
+    public Route createShortestRouteWithLandmarks(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationInput(input);
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        int[] cityIds = traceQuery(Command.SHORTEST_ROUTE_WITH_LANDMARKS, matcher, RouteEvents.NO_BOUND, () -> {
+            traceShortestPathPhase(altEngine, RouteEvents.LANDMARKS_PHASE, matcher, () -> altEngine.getLandmarks(routeGraph));
+            return traceShortestPathPhase(altEngine, RouteEvents.SEARCH_PHASE, matcher, () ->
+                    altEngine.findShortestRoute(routeGraph, originCityId, destinationCityId));
+        });
+
+        return new Route(routeGraph, cityIds);
+    }
+
+    public Route createShortestRouteWithDistanceMatrix(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationInput(input);
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        int[] cityIds = traceQuery(Command.SHORTEST_ROUTE_WITH_DISTANCE_MATRIX, matcher, RouteEvents.NO_BOUND, () -> {
+            DistanceMatrix distanceMatrix = traceShortestPathPhase(distanceMatrixEngine, RouteEvents.DISTANCE_MATRIX_PHASE, matcher, () ->
+                    distanceMatrixEngine.precompute(routeGraph));
+            return traceShortestPathPhase(distanceMatrixEngine, RouteEvents.SEARCH_PHASE, matcher, () ->
+                    distanceMatrix.findShortestRoute(originCityId, destinationCityId));
+        });
+
+        return new Route(routeGraph, cityIds);
+    }
+
+    public List<Route> createAllRoutesWithExactStops(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+
+        return traceQuery(Command.NUMBER_OF_ROUTES_WITH_STOPS, matcher, Integer.parseInt(matcher.group(3)), () ->
+                streamAllRoutesWithExactStops(input, routeMap).collect(toList()));
+    }
+
+    public List<Route> createAllRoutesWithMaxStops(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+
+        return traceQuery(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS, matcher, Integer.parseInt(matcher.group(3)), () ->
+                streamAllRoutesWithMaxStops(input, routeMap).collect(toList()));
+    }
+
+    public List<Route> createAllRoutesWithMaxDistance(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+
+        return traceQuery(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE, matcher, Integer.parseInt(matcher.group(3)), () ->
+                streamAllRoutesWithMaxDistance(input, routeMap).collect(toList()));
+    }
+
+    public Stream<Route> streamAllRoutesWithExactStops(String input, RouteMap routeMap) {
+        int numStops = validateOriginDestinationStopsInputAndGetNumber(input);
+
+        return streamAllRoutes(input, routeMap, numStops, numStops, Long.MAX_VALUE);
+    }
+
+    public Stream<Route> streamAllRoutesWithMaxStops(String input, RouteMap routeMap) {
+        int maxStops = validateOriginDestinationStopsInputAndGetNumber(input);
+
+        return streamAllRoutes(input, routeMap, 1, maxStops, Long.MAX_VALUE);
+    }
+
+    public Stream<Route> streamAllRoutesWithMaxDistance(String input, RouteMap routeMap) {
+        int maxDistance = validateOriginDestinationStopsInputAndGetNumber(input);
+
+        return streamAllRoutes(input, routeMap, 1, Integer.MAX_VALUE, maxDistance);
+    }
+
+    public long countAllRoutesWithExactStops(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int numStops = Integer.parseInt(matcher.group(3));
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_STOPS, matcher, numStops, () ->
+                stopCountingEngine.countRoutesWithExactStops(routeGraph, originCityId, destinationCityId, numStops));
+    }
+
+    public long countAllRoutesWithMaxStops(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int maxStops = Integer.parseInt(matcher.group(3));
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS, matcher, maxStops, () ->
+                stopCountingEngine.countRoutesWithMaxStops(routeGraph, originCityId, destinationCityId, maxStops));
+    }
+
+    public long countAllRoutesWithMaxDistance(String input, RouteMap routeMap) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int maxDistance = Integer.parseInt(matcher.group(3));
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE, matcher, maxDistance, () -> {
+            // Zero distance routes make the distance table cyclic, so fall back to enumerating them.
+            if (routeGraph.getUnitRouteCount() > 0 && routeGraph.getMinUnitRouteDistance() == 0) {
+                return streamAllRoutes(input, routeMap, 1, Integer.MAX_VALUE, maxDistance).count();
+            }
+
+            return distanceCountingEngine.countRoutesWithMaxDistance(routeGraph, originCityId, destinationCityId, maxDistance);
+        });
+    }
+
+    public long countAllRoutesWithExactStops(String input, RouteMap routeMap, Predicate<? super Route> predicate) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int numStops = Integer.parseInt(matcher.group(3));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_STOPS, matcher, numStops, () -> parallelRouteCounter.countRoutes(
+                createRouteSpliterator(input, routeMap, numStops, numStops, Long.MAX_VALUE), predicate));
+    }
+
+    public long countAllRoutesWithMaxStops(String input, RouteMap routeMap, Predicate<? super Route> predicate) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int maxStops = Integer.parseInt(matcher.group(3));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS, matcher, maxStops, () -> parallelRouteCounter.countRoutes(
+                createRouteSpliterator(input, routeMap, 1, maxStops, Long.MAX_VALUE), predicate));
+    }
+
+    public long countAllRoutesWithMaxDistance(String input, RouteMap routeMap, Predicate<? super Route> predicate) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+        int maxDistance = Integer.parseInt(matcher.group(3));
+
+        return traceCount(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE, matcher, maxDistance, () -> parallelRouteCounter.countRoutes(
+                createRouteSpliterator(input, routeMap, 1, Integer.MAX_VALUE, maxDistance), predicate));
+    }
+
+    private Stream<Route> streamAllRoutes(String input, RouteMap routeMap, int minStops, int maxStops, long maxDistance) {
+        return StreamSupport.stream(createRouteSpliterator(input, routeMap, minStops, maxStops, maxDistance), false);
+    }
+
+    private RouteSpliterator createRouteSpliterator(String input, RouteMap routeMap, int minStops, int maxStops, long maxDistance) {
+        Matcher matcher = matchOriginDestinationNumberInput(input);
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int originCityId = routeGraph.getCityId(matcher.group(1));
+        int destinationCityId = routeGraph.getCityId(matcher.group(2));
+
+        // Landmarks only prune by distance, and are only worth using if a query selected them.
+        Landmarks landmarks = maxDistance == Long.MAX_VALUE ? null : altEngine.findLandmarks(routeGraph).orElse(null);
+        return new RouteSpliterator(routeGraph, originCityId, destinationCityId, minStops, maxStops, maxDistance, landmarks);
+    }
+
+    private static <T> T traceQuery(Command command, Matcher matcher, long bound, Supplier<T> query) {
+        RouteQueryEvent event = RouteEvents.beginRouteQuery();
+        try {
+            return query.get();
+        } finally {
+            RouteEvents.endRouteQuery(event, command.getAlias(), matcher.group(1), matcher.group(2), bound);
+        }
+    }
+
+    private static long traceCount(Command command, Matcher matcher, long bound, LongSupplier count) {
+        RouteQueryEvent event = RouteEvents.beginRouteQuery();
+        try {
+            return count.getAsLong();
+        } finally {
+            RouteEvents.endRouteQuery(event, command.getAlias(), matcher.group(1), matcher.group(2), bound);
+        }
+    }
+
+    private static <T> T traceShortestPathPhase(Object engine, String phase, Matcher matcher, Supplier<T> search) {
+        ShortestPathPhaseEvent event = RouteEvents.beginShortestPathPhase();
+        try {
+            return search.get();
+        } finally {
+            RouteEvents.endShortestPathPhase(event, engine, phase, matcher.group(1), matcher.group(2));
+        }
+    }
+
+    private int validateOriginDestinationStopsInputAndGetNumber(String input) {
+        return Integer.parseInt(matchOriginDestinationNumberInput(input).group(3));
+    }
+
+    private static Matcher matchOriginDestinationInput(String input) {
+        Matcher matcher = originDestinationInputPattern.matcher(input);
+        if (!matcher.matches()) {
+            matcher = namedOriginDestinationInputPattern.matcher(input);
+            if (!matcher.matches()) {
+                throw new InvalidOriginDestinationInputException();
+            }
+        }
+        return matcher;
+    }
+
+    private static Matcher matchOriginDestinationNumberInput(String input) {
+        Matcher matcher = originDestinationNumberInputPattern.matcher(input);
+        if (!matcher.matches()) {
+            matcher = namedOriginDestinationNumberInputPattern.matcher(input);
+            if (!matcher.matches()) {
+                throw new InvalidOriginDestinationStopsInputException();
+            }
+        }
+        return matcher;
+    }
+}
@@ -0,0 +1,274 @@
+package com.trains.factories;
+
+import com.trains.events.RouteEvents;
+import com.trains.events.RouteMapPhaseEvent;
+import com.trains.exceptions.CompiledRouteFileException;
+import com.trains.exceptions.DuplicateRouteException;
+import com.trains.exceptions.InvalidRouteException;
+import com.trains.exceptions.InvalidRouteFileException;
+import com.trains.exceptions.RouteFileException;
+import com.trains.exceptions.SelfRouteException;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteGraphFile;
+import com.trains.models.RouteMap;
+import com.trains.models.SymbolTable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+@Component
+public class RouteMapFactory {
+
+    private static final long DEFAULT_MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    private static final int LINE_SEARCH_BUFFER_SIZE = 4096;
+
+    private final long minChunkSize;
+
+    public RouteMapFactory() {
+        this(DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    RouteMapFactory(long minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public RouteMap createRouteMap(List<String> routes) {
+        return createRouteMap(routes, Collections.emptyList());
+    }
+
+    /**
+     * Creates a route map from routes of the form AB5, between cities named by single capital
+     * letters, or KGX-EDB:632 for any city names, and from the routes in each of the route files.
+     * <p>
+     * Route files hold routes of either form separated by spaces, commas or new lines, with # for
+     * comments. Each file is memory mapped and split into chunks at line ends, which are parsed in
+     * parallel and then merged. Invalid, self and duplicate routes in a file are reported with
+     * their line number.
+     * <p>
+     * A route file compiled by {@link RouteGraphFile} is loaded as it is, and must be the only
+     * routes given.
+     * <p>
+     * Loading, parsing, merging and compiling are each recorded as a {@link RouteMapPhaseEvent}.
+     */
+    public RouteMap createRouteMap(List<String> routes, List<Path> routeFiles) {
+        for (Path routeFile : routeFiles) {
+            if (RouteGraphFile.isRouteGraphFile(routeFile)) {
+                if (!routes.isEmpty() || routeFiles.size() > 1) {
+                    throw new CompiledRouteFileException(routeFile.toString(), CompiledRouteFileException.NOT_ALONE);
+                }
+                RouteMapPhaseEvent loadEvent = RouteEvents.beginRouteMapPhase();
+                RouteMap routeMap = new RouteMap(RouteGraphFile.load(routeFile));
+                RouteEvents.endRouteMapPhase(loadEvent, RouteEvents.LOAD_PHASE, routeFile.toString(),
+                        routeMap.getRouteGraph().getUnitRouteCount());
+                return routeMap;
+            }
+        }
+
+        List<RouteChunk> chunks = new ArrayList<>();
+
+        RouteMapPhaseEvent parseEvent = RouteEvents.beginRouteMapPhase();
+        RouteChunk argumentChunk = new RouteChunk(null);
+        for (String route : routes) {
+            if (!argumentChunk.parseRoute(route)) {
+                if (argumentChunk.getErrorReason() == RouteChunk.ErrorReason.SELF_ROUTE) {
+                    throw new SelfRouteException();
+                }
+                throw new InvalidRouteException();
+            }
+        }
+        chunks.add(argumentChunk);
+        RouteEvents.endRouteMapPhase(parseEvent, RouteEvents.PARSE_PHASE, null, argumentChunk.getNumRoutes());
+
+        for (Path routeFile : routeFiles) {
+            RouteMapPhaseEvent parseFileEvent = RouteEvents.beginRouteMapPhase();
+            List<RouteChunk> fileChunks = parseRouteFile(routeFile);
+            RouteEvents.endRouteMapPhase(parseFileEvent, RouteEvents.PARSE_PHASE, routeFile.toString(),
+                    fileChunks.stream().mapToLong(RouteChunk::getNumRoutes).sum());
+            for (RouteChunk chunk : fileChunks) {
+                if (chunk.hasError()) {
+                    throw new InvalidRouteFileException(chunk.getFile(), chunk.getLineOffset() + chunk.getErrorLine(),
+                            chunk.getErrorRoute(), chunk.getErrorReason().getDescription());
+                }
+            }
+            chunks.addAll(fileChunks);
+        }
+
+        return mergeChunks(chunks);
+    }
+
+    private List<RouteChunk> parseRouteFile(Path routeFile) {
+        try (FileChannel channel = FileChannel.open(routeFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long numChunks = Math.max(1, Math.max(
+                    Math.min(Runtime.getRuntime().availableProcessors(), size / minChunkSize),
+                    (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE));
+
+            long[] starts = new long[(int) numChunks + 1];
+            starts[(int) numChunks] = size;
+            for (int chunk = 1; chunk < numChunks; chunk++) {
+                starts[chunk] = findLineStart(channel, Math.max(size / numChunks * chunk, starts[chunk - 1]), size);
+            }
+
+            List<RouteChunk> chunks = new ArrayList<>();
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                long length = starts[chunk + 1] - starts[chunk];
+                if (length > Integer.MAX_VALUE) {
+                    throw new RouteFileException(routeFile.toString());
+                }
+                chunks.add(new RouteChunk(routeFile.toString()));
+                buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, starts[chunk], length));
+            }
+
+            IntStream.range(0, chunks.size()).parallel()
+                    .forEach(chunk -> chunks.get(chunk).parseLines(buffers.get(chunk)));
+
+            long lineOffset = 0;
+            for (RouteChunk chunk : chunks) {
+                chunk.setLineOffset(lineOffset);
+                lineOffset += chunk.getNumLines();
+            }
+            return chunks;
+        } catch (IOException e) {
+            throw new RouteFileException(routeFile.toString());
+        }
+    }
+
+    // Returns the position just after the first line end at or after the position less one.
+    private static long findLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_SEARCH_BUFFER_SIZE);
+        for (long offset = position - 1; offset < size; offset += buffer.limit()) {
+            buffer.clear();
+            if (channel.read(buffer, offset) <= 0) {
+                break;
+            }
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    // Interns every chunk's city names into one table, renumbers the cities in name order and
+    // lays the unit routes out row by row as the route graph's arrays, checking each sorted row
+    // for duplicates, without creating a city or unit route object per route.
+    private RouteMap mergeChunks(List<RouteChunk> chunks) {
+        RouteMapPhaseEvent mergeEvent = RouteEvents.beginRouteMapPhase();
+        SymbolTable cityNames = new SymbolTable();
+        int[][] cityIds = new int[chunks.size()][];
+        int numRoutes = 0;
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            RouteChunk routeChunk = chunks.get(chunk);
+            cityIds[chunk] = new int[routeChunk.getNumNames()];
+            for (int id = 0; id < routeChunk.getNumNames(); id++) {
+                cityIds[chunk][id] = cityNames.intern(routeChunk.getName(id));
+            }
+            numRoutes += routeChunk.getNumRoutes();
+        }
+
+        String[] sortedCityNames = new String[cityNames.size()];
+        for (int cityId = 0; cityId < sortedCityNames.length; cityId++) {
+            sortedCityNames[cityId] = cityNames.getName(cityId);
+        }
+        Arrays.parallelSort(sortedCityNames);
+        for (int[] chunkCityIds : cityIds) {
+            for (int id = 0; id < chunkCityIds.length; id++) {
+                chunkCityIds[id] = Arrays.binarySearch(sortedCityNames, cityNames.getName(chunkCityIds[id]));
+            }
+        }
+
+        int[] offsets = new int[sortedCityNames.length + 1];
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            RouteChunk routeChunk = chunks.get(chunk);
+            for (int route = 0; route < routeChunk.getNumRoutes(); route++) {
+                offsets[cityIds[chunk][routeChunk.getOrigin(route)] + 1]++;
+            }
+        }
+        for (int cityId = 0; cityId < sortedCityNames.length; cityId++) {
+            offsets[cityId + 1] += offsets[cityId];
+        }
+
+        // Each row holds its unit routes as destination and distance packed together, so sorting
+        // a row sorts by destination.
+        long[] rows = new long[numRoutes];
+        int[] ends = Arrays.copyOf(offsets, sortedCityNames.length);
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            RouteChunk routeChunk = chunks.get(chunk);
+            for (int route = 0; route < routeChunk.getNumRoutes(); route++) {
+                int originCityId = cityIds[chunk][routeChunk.getOrigin(route)];
+                rows[ends[originCityId]++] = pack(cityIds[chunk][routeChunk.getDestination(route)], routeChunk.getDistance(route));
+            }
+        }
+        IntStream.range(0, sortedCityNames.length).parallel()
+                .forEach(cityId -> Arrays.sort(rows, offsets[cityId], offsets[cityId + 1]));
+        for (int cityId = 0; cityId < sortedCityNames.length; cityId++) {
+            for (int i = offsets[cityId] + 1; i < offsets[cityId + 1]; i++) {
+                if (destinationOf(rows[i]) == destinationOf(rows[i - 1])) {
+                    throwFirstDuplicateRoute(chunks, cityIds);
+                }
+            }
+        }
+        RouteEvents.endRouteMapPhase(mergeEvent, RouteEvents.MERGE_PHASE, null, numRoutes);
+
+        // Compile the route graph once here so every query on this map shares it.
+        RouteMapPhaseEvent compileEvent = RouteEvents.beginRouteMapPhase();
+        int[] destinations = new int[numRoutes];
+        int[] distances = new int[numRoutes];
+        for (int unitRoute = 0; unitRoute < numRoutes; unitRoute++) {
+            destinations[unitRoute] = destinationOf(rows[unitRoute]);
+            distances[unitRoute] = (int) rows[unitRoute];
+        }
+        RouteMap routeMap = new RouteMap(RouteGraph.fromArrays(sortedCityNames, offsets, destinations, distances));
+        RouteEvents.endRouteMapPhase(compileEvent, RouteEvents.COMPILE_PHASE, null, numRoutes);
+
+        return routeMap;
+    }
+
+    private static void throwFirstDuplicateRoute(List<RouteChunk> chunks, int[][] cityIds) {
+        Map<Long, String> firstLocations = new HashMap<>();
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            RouteChunk routeChunk = chunks.get(chunk);
+            for (int route = 0; route < routeChunk.getNumRoutes(); route++) {
+                long unitRoute = pack(cityIds[chunk][routeChunk.getOrigin(route)], cityIds[chunk][routeChunk.getDestination(route)]);
+                long line = routeChunk.getLineOffset() + routeChunk.getLine(route);
+                String firstLocation = firstLocations.putIfAbsent(unitRoute, routeChunk.getFile() == null
+                        ? "a route given as an argument" : "the route on line " + line + " of " + routeChunk.getFile());
+                if (firstLocation == null) {
+                    continue;
+                }
+                if (routeChunk.getFile() == null) {
+                    throw new DuplicateRouteException();
+                }
+                throw new InvalidRouteFileException(routeChunk.getFile(), line,
+                        routeChunk.getName(routeChunk.getOrigin(route)) + "-" + routeChunk.getName(routeChunk.getDestination(route)),
+                        "which repeats " + firstLocation);
+            }
+        }
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | low;
+    }
+
+    private static int destinationOf(long row) {
+        return (int) (row >>> 32);
+    }
+}
@@ -0,0 +1,247 @@
+package com.trains.generators;
+
+import com.trains.enums.DistanceDistribution;
+import com.trains.enums.Topology;
+import com.trains.exceptions.InvalidNetworkGeneratorArgumentException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates route networks for load and scale testing. The same arguments always give the same
+ * routes in the same order, and every city can reach every other.
+ * <ul>
+ * <li>{@link Topology#SPARSE}: each city has a route to the next one, closing a ring, and routes
+ * to other cities picked at random until it has the density's number of routes out.</li>
+ * <li>{@link Topology#GRID}: cities are laid out row by row on a square grid, with routes both
+ * ways between neighbours. The density is not used.</li>
+ * <li>{@link Topology#SCALE_FREE}: hubs and spokes grown by preferential attachment. The first
+ * density plus one cities are all linked, then each further city links both ways to the
+ * density's number of earlier cities, picked with odds in proportion to their routes.</li>
+ * <li>{@link Topology#COMPLETE}: a route from every city to every other. The density is not
+ * used.</li>
+ * </ul>
+ * Cities are named A to Z when there are at most 26 of them, so routes are of the form AB5, and
+ * C0, C1 and so on otherwise, with routes of the form C0-C1:5. Routes are generated one at a
+ * time and never kept, the generator holding an int per city, or per route for the scale free
+ * topology, so networks of millions of routes can be streamed straight to a file.
+ */
+public class NetworkGenerator {
+
+    private static final int NUM_LETTER_NAMES = 26;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_SCALE_FREE_ROUTES = 1 << 30;
+
+    private final Topology topology;
+    private final int numCities;
+    private final int density;
+    private final DistanceDistribution distanceDistribution;
+    private final int minDistance;
+    private final int maxDistance;
+    private final long seed;
+
+    /**
+     * Routes as they are generated, by the ids of their cities from 0 to the number of cities
+     * less one.
+     */
+    @FunctionalInterface
+    public interface RouteConsumer {
+        void accept(int originCityId, int destinationCityId, int distance);
+    }
+
+    public NetworkGenerator(Topology topology, int numCities, int density,
+                            DistanceDistribution distanceDistribution, int minDistance, int maxDistance, long seed) {
+        if (numCities < 2) {
+            throw new InvalidNetworkGeneratorArgumentException("number of cities", "at least 2");
+        }
+        if ((topology == Topology.SPARSE || topology == Topology.SCALE_FREE) && (density < 1 || density >= numCities)) {
+            throw new InvalidNetworkGeneratorArgumentException("density", "from 1 to the number of cities less one");
+        }
+        if (minDistance < 0 || maxDistance < minDistance) {
+            throw new InvalidNetworkGeneratorArgumentException("minimum distance", "at least 0 and no more than the maximum");
+        }
+
+        this.topology = topology;
+        this.numCities = numCities;
+        this.density = density;
+        this.distanceDistribution = distanceDistribution;
+        this.minDistance = minDistance;
+        this.maxDistance = maxDistance;
+        this.seed = seed;
+    }
+
+    public int getCityCount() {
+        return numCities;
+    }
+
+    public String getCityName(int cityId) {
+        return numCities <= NUM_LETTER_NAMES ? String.valueOf((char) ('A' + cityId)) : "C" + cityId;
+    }
+
+    /**
+     * Passes each route to the consumer in turn and returns the number of routes.
+     */
+    public long generate(RouteConsumer consumer) {
+        Random random = new Random(seed);
+        switch (topology) {
+            case SPARSE:
+                return generateSparse(random, consumer);
+            case GRID:
+                return generateGrid(random, consumer);
+            case SCALE_FREE:
+                return generateScaleFree(random, consumer);
+            case COMPLETE:
+                return generateComplete(random, consumer);
+            default:
+                throw new IllegalStateException("Unknown topology " + topology);
+        }
+    }
+
+    /**
+     * Returns the routes in the form given to {@link com.trains.factories.RouteMapFactory}.
+     */
+    public List<String> generateRoutes() {
+        List<String> routes = new ArrayList<>();
+        StringBuilder route = new StringBuilder();
+        generate((originCityId, destinationCityId, distance) -> {
+            route.setLength(0);
+            routes.add(appendRoute(route, originCityId, destinationCityId, distance).toString());
+        });
+        return routes;
+    }
+
+    /**
+     * Writes the routes one per line to the stream, which is left open, and returns the number
+     * of routes.
+     */
+    public long writeRoutes(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), WRITE_BUFFER_SIZE);
+        StringBuilder route = new StringBuilder();
+        IOException[] failure = new IOException[1];
+        long numRoutes = generate((originCityId, destinationCityId, distance) -> {
+            if (failure[0] != null) {
+                return;
+            }
+            route.setLength(0);
+            appendRoute(route, originCityId, destinationCityId, distance).append('\n');
+            try {
+                writer.append(route);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        writer.flush();
+        return numRoutes;
+    }
+
+    private StringBuilder appendRoute(StringBuilder route, int originCityId, int destinationCityId, int distance) {
+        if (numCities <= NUM_LETTER_NAMES) {
+            return route.append((char) ('A' + originCityId)).append((char) ('A' + destinationCityId)).append(distance);
+        }
+        return route.append('C').append(originCityId).append("-C").append(destinationCityId).append(':').append(distance);
+    }
+
+    private long generateSparse(Random random, RouteConsumer consumer) {
+        // Marks each city's destinations with the city's id plus one, so nothing is cleared.
+        int[] destinationStamps = new int[numCities];
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            int nextCityId = (cityId + 1) % numCities;
+            destinationStamps[nextCityId] = cityId + 1;
+            consumer.accept(cityId, nextCityId, sampleDistance(random));
+            for (int i = 1; i < density; i++) {
+                int destinationCityId;
+                do {
+                    destinationCityId = random.nextInt(numCities);
+                } while (destinationCityId == cityId || destinationStamps[destinationCityId] == cityId + 1);
+                destinationStamps[destinationCityId] = cityId + 1;
+                consumer.accept(cityId, destinationCityId, sampleDistance(random));
+            }
+        }
+        return (long) numCities * density;
+    }
+
+    private long generateGrid(Random random, RouteConsumer consumer) {
+        int width = (int) Math.ceil(Math.sqrt(numCities));
+        long numRoutes = 0;
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            int rightCityId = cityId + 1;
+            if (rightCityId % width != 0 && rightCityId < numCities) {
+                consumer.accept(cityId, rightCityId, sampleDistance(random));
+                consumer.accept(rightCityId, cityId, sampleDistance(random));
+                numRoutes += 2;
+            }
+            int belowCityId = cityId + width;
+            if (belowCityId < numCities) {
+                consumer.accept(cityId, belowCityId, sampleDistance(random));
+                consumer.accept(belowCityId, cityId, sampleDistance(random));
+                numRoutes += 2;
+            }
+        }
+        return numRoutes;
+    }
+
+    private long generateScaleFree(Random random, RouteConsumer consumer) {
+        int numSeedCities = density + 1;
+        long numAllRouteEnds = (long) numSeedCities * density + 2L * density * (numCities - numSeedCities);
+        if (numAllRouteEnds > MAX_SCALE_FREE_ROUTES) {
+            throw new InvalidNetworkGeneratorArgumentException("number of routes", "at most " + MAX_SCALE_FREE_ROUTES + " for a scale free network");
+        }
+        // Each city appears once for every route it has, so picking from here favours hubs.
+        int[] routeEnds = new int[(int) numAllRouteEnds];
+        int numRouteEnds = 0;
+        long numRoutes = 0;
+
+        for (int cityId = 0; cityId < numSeedCities; cityId++) {
+            for (int otherCityId = 0; otherCityId < numSeedCities; otherCityId++) {
+                if (otherCityId != cityId) {
+                    consumer.accept(cityId, otherCityId, sampleDistance(random));
+                    routeEnds[numRouteEnds++] = cityId;
+                    numRoutes++;
+                }
+            }
+        }
+
+        int[] linkStamps = new int[numCities];
+        for (int cityId = numSeedCities; cityId < numCities; cityId++) {
+            int numPreviousRouteEnds = numRouteEnds;
+            for (int i = 0; i < density; i++) {
+                int linkedCityId;
+                do {
+                    linkedCityId = routeEnds[random.nextInt(numPreviousRouteEnds)];
+                } while (linkStamps[linkedCityId] == cityId);
+                linkStamps[linkedCityId] = cityId;
+                consumer.accept(cityId, linkedCityId, sampleDistance(random));
+                consumer.accept(linkedCityId, cityId, sampleDistance(random));
+                routeEnds[numRouteEnds++] = cityId;
+                routeEnds[numRouteEnds++] = linkedCityId;
+                numRoutes += 2;
+            }
+        }
+        return numRoutes;
+    }
+
+    private long generateComplete(Random random, RouteConsumer consumer) {
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            for (int otherCityId = 0; otherCityId < numCities; otherCityId++) {
+                if (otherCityId != cityId) {
+                    consumer.accept(cityId, otherCityId, sampleDistance(random));
+                }
+            }
+        }
+        return (long) numCities * (numCities - 1);
+    }
+
+    private int sampleDistance(Random random) {
+        return distanceDistribution.sample(random, minDistance, maxDistance);
+    }
+}
@@ -0,0 +1,113 @@
+package com.trains.generators;
+
+import com.trains.enums.DistanceDistribution;
+import com.trains.enums.Topology;
+import com.trains.exceptions.CommandLineErrorException;
+import com.trains.exceptions.InvalidNetworkGeneratorArgumentException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Writes a network made by {@link NetworkGenerator} to a route file, or to the standard output
+ * for {@code -}, without starting Spring. The file can then be given to any command as
+ * {@code @file}. A summary, or the error, goes to the standard error.
+ */
+public class NetworkGeneratorApp {
+
+    static final String USAGE = "Usage: <sparse|grid|scale_free|complete> <number of cities> <route file or ->"
+            + " (--density=3 --distribution=<uniform|normal|exponential> --min-distance=1 --max-distance=9 --seed=1)";
+
+    private static final String STANDARD_OUTPUT = "-";
+    private static final Pattern OPTION_ARG = Pattern.compile("^--([^=]+)=(.*)$");
+
+    public static void main(String[] args) {
+        System.err.println(run(args, System.out));
+    }
+
+    /**
+     * Writes the network given by the arguments and returns the summary or the error message.
+     */
+    static String run(String[] args, PrintStream standardOutput) {
+        List<String> positionalArgs = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            Matcher matcher = OPTION_ARG.matcher(arg);
+            if (matcher.matches()) {
+                options.put(matcher.group(1), matcher.group(2));
+            } else {
+                positionalArgs.add(arg);
+            }
+        }
+        if (positionalArgs.size() != 3) {
+            return USAGE;
+        }
+
+        try {
+            NetworkGenerator generator = new NetworkGenerator(
+                    parseEnum(Topology.class, "topology", positionalArgs.get(0)),
+                    parseInt("number of cities", positionalArgs.get(1)),
+                    parseInt("density", options.getOrDefault("density", "3")),
+                    parseEnum(DistanceDistribution.class, "distribution", options.getOrDefault("distribution", "uniform")),
+                    parseInt("minimum distance", options.getOrDefault("min-distance", "1")),
+                    parseInt("maximum distance", options.getOrDefault("max-distance", "9")),
+                    parseLong("seed", options.getOrDefault("seed", "1")));
+
+            String file = positionalArgs.get(2);
+            long numRoutes;
+            if (STANDARD_OUTPUT.equals(file)) {
+                numRoutes = generator.writeRoutes(standardOutput);
+            } else {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(file)))) {
+                    numRoutes = generator.writeRoutes(out);
+                }
+            }
+            return "Generated " + numRoutes + " routes between " + generator.getCityCount() + " cities into " + file + ".";
+        } catch (IOException | InvalidPathException e) {
+            return "The route file " + positionalArgs.get(2) + " could not be written.";
+        } catch (CommandLineErrorException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String argument, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidNetworkGeneratorArgumentException(argument, "one of " + Arrays.stream(type.getEnumConstants())
+                    .map(constant -> constant.name().toLowerCase(Locale.ROOT))
+                    .collect(joining(", ")));
+        }
+    }
+
+    private static int parseInt(String argument, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidNetworkGeneratorArgumentException(argument, "a whole number");
+        }
+    }
+
+    private static long parseLong(String argument, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidNetworkGeneratorArgumentException(argument, "a whole number");
+        }
+    }
+}
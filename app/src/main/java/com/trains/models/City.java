@@ -9,23 +9,29 @@ import java.util.Set;
 
 import static java.util.stream.Collectors.groupingBy;
 
-public class City implements Comparable<City> {
+public class City {
 
-    private final char name;
+    /**
+     * City names are letters, digits and underscores, eg. KGX, though routes and command inputs
+     * may still be written with single capital letters for names, eg. AB5.
+     */
+    public static final String NAME_REGEX = "[A-Za-z0-9_]+";
+
+    private final String name;
     private final Set<UnitRoute> unitRoutes;
-    private int minDistance;
-    private City previousCity;
 
-    public City(char name, Set<UnitRoute> unitRoutes) {
+    public City(String name, Set<UnitRoute> unitRoutes) {
         this.name = name;
         this.unitRoutes = unitRoutes;
 
-        minDistance = Integer.MAX_VALUE;
-
         validateUnitRoutes();
     }
 
-    public char getName() {
+    public City(char name, Set<UnitRoute> unitRoutes) {
+        this(String.valueOf(name), unitRoutes);
+    }
+
+    public String getName() {
         return name;
     }
 
@@ -33,22 +39,6 @@ public class City implements Comparable<City> {
         return unitRoutes;
     }
 
-    public int getMinDistance() {
-        return minDistance;
-    }
-
-    public void setMinDistance(int minDistance) {
-        this.minDistance = minDistance;
-    }
-
-    public City getPreviousCity() {
-        return previousCity;
-    }
-
-    public void setPreviousCity(City previousCity) {
-        this.previousCity = previousCity;
-    }
-
     public void addUnitRoute(UnitRoute unitRoute) {
         unitRoutes.add(unitRoute);
 
@@ -64,7 +54,7 @@ public class City implements Comparable<City> {
             return false;
         }
         City city = (City) obj;
-        return name == city.name;
+        return name.equals(city.name);
     }
 
     @Override
@@ -74,12 +64,7 @@ public class City implements Comparable<City> {
     }
 
     public boolean equals(City city) {
-        return city.getName() == name;
-    }
-
-    public int compareTo(City city)
-    {
-        return Integer.compare(minDistance, city.getMinDistance());
+        return city.getName().equals(name);
     }
 
     public int getDistanceTo(City city) {
@@ -0,0 +1,42 @@
+package com.trains.models;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current {@link RouteMapSnapshot} of a route map that changes while it is being
+ * queried. Readers take the current snapshot and keep using it for the whole of a query, and
+ * updates swap in a new snapshot atomically, retrying if another update got there first.
+ */
+public class LiveRouteMap {
+
+    private final AtomicReference<RouteMapSnapshot> snapshot;
+
+    public LiveRouteMap(RouteMapSnapshot snapshot) {
+        this.snapshot = new AtomicReference<>(snapshot);
+    }
+
+    public RouteMapSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Applies the update to the current snapshot and makes its result current. The update may
+     * be applied more than once when updates race, so must not have side effects.
+     */
+    public RouteMapSnapshot update(UnaryOperator<RouteMapSnapshot> update) {
+        return snapshot.updateAndGet(update);
+    }
+
+    public RouteMapSnapshot addUnitRoute(String originCityName, String destinationCityName, int distance) {
+        return update(s -> s.withUnitRoute(originCityName, destinationCityName, distance));
+    }
+
+    public RouteMapSnapshot removeUnitRoute(String originCityName, String destinationCityName) {
+        return update(s -> s.withoutUnitRoute(originCityName, destinationCityName));
+    }
+
+    public RouteMapSnapshot reweightUnitRoute(String originCityName, String destinationCityName, int distance) {
+        return update(s -> s.withDistance(originCityName, destinationCityName, distance));
+    }
+}
@@ -0,0 +1,46 @@
+package com.trains.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Route {
+
+    private final RouteGraph routeGraph;
+    private final int[] cityIds;
+    private List<City> cities;
+
+    public Route(List<City> cities) {
+        this.routeGraph = null;
+        this.cityIds = null;
+        this.cities = cities;
+    }
+
+    public Route(RouteGraph routeGraph, int[] cityIds) {
+        this.routeGraph = routeGraph;
+        this.cityIds = cityIds;
+    }
+
+    public List<City> getCities() {
+        if (cities == null) {
+            List<City> routeCities = new ArrayList<>(cityIds.length);
+            for (int cityId : cityIds) {
+                routeCities.add(routeGraph.getCity(cityId));
+            }
+            cities = routeCities;
+        }
+        return cities;
+    }
+
+    public int calculateDistance() {
+        if (routeGraph != null) {
+            return routeGraph.calculateDistance(cityIds);
+        }
+
+        // Is there a neater way to do this??
+        int distance = 0;
+        for (int i = 0; i < cities.size() - 1; i++) {
+            distance += cities.get(i).getDistanceTo(cities.get(i + 1));
+        }
+        return distance;
+    }
+}
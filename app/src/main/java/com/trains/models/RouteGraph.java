@@ -0,0 +1,411 @@
+package com.trains.models;
+
+import com.trains.exceptions.NoSuchCityException;
+import com.trains.exceptions.NoSuchRouteException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * Immutable compressed sparse row view of a route map.
+ * <p>
+ * Cities are given dense ids in name order and the unit routes leaving city {@code i} occupy
+ * indexes {@code offsets[i]} (inclusive) to {@code offsets[i + 1]} (exclusive) of the
+ * {@code destinations} and {@code distances} arrays, sorted by destination id.
+ * <p>
+ * A reverse index lists the unit routes arriving at each city in the same way, by origin id,
+ * for searches that work backwards from a destination.
+ * <p>
+ * As the layout depends only on the routes and not the order they were given in, so does the
+ * graph's fingerprint, which keys results cached for it.
+ * <p>
+ * A graph with one unit route added, removed or reweighted can be derived from another by
+ * copying its arrays with the change spliced in, sharing the city names and any array the
+ * change leaves alone, rather than compiled again from cities.
+ */
+public class RouteGraph {
+
+    private final int numCities;
+    private final SymbolTable cityIds;
+    private final int[] offsets;
+    private final int[] destinations;
+    private final int[] distances;
+    private final int[] incomingOffsets;
+    private final int[] incomingOrigins;
+    private final int[] incomingDistances;
+    private final int minUnitRouteDistance;
+    private final int maxUnitRouteDistance;
+    private volatile City[] cities;
+    private volatile String fingerprint;
+
+    public RouteGraph(Collection<City> cities) {
+        City[] sortedCities = cities.toArray(new City[0]);
+        Arrays.sort(sortedCities, Comparator.comparing(City::getName));
+        this.cities = sortedCities;
+        numCities = sortedCities.length;
+
+        cityIds = new SymbolTable();
+        for (City city : sortedCities) {
+            cityIds.intern(city.getName());
+        }
+
+        offsets = new int[numCities + 1];
+        for (int id = 0; id < numCities; id++) {
+            offsets[id + 1] = offsets[id] + sortedCities[id].getUnitRoutes().size();
+        }
+
+        destinations = new int[offsets[numCities]];
+        distances = new int[offsets[numCities]];
+        for (int id = 0; id < numCities; id++) {
+            long[] row = new long[sortedCities[id].getUnitRoutes().size()];
+            int i = 0;
+            for (UnitRoute unitRoute : sortedCities[id].getUnitRoutes()) {
+                int destinationId = getCityId(unitRoute.getDestinationCity().getName());
+                row[i++] = ((long) destinationId << 32) | (unitRoute.getDistance() & 0xFFFFFFFFL);
+            }
+            Arrays.sort(row);
+
+            for (i = 0; i < row.length; i++) {
+                destinations[offsets[id] + i] = (int) (row[i] >>> 32);
+                distances[offsets[id] + i] = (int) row[i];
+            }
+        }
+
+        int[][] reverseIndex = createReverseIndex(numCities, offsets, destinations, distances);
+        incomingOffsets = reverseIndex[0];
+        incomingOrigins = reverseIndex[1];
+        incomingDistances = reverseIndex[2];
+
+        minUnitRouteDistance = Arrays.stream(distances).min().orElse(0);
+        maxUnitRouteDistance = Arrays.stream(distances).max().orElse(0);
+    }
+
+    /**
+     * Creates a graph from arrays already laid out as described above, with the city names in
+     * order, such as those read back by {@link RouteGraphFile}. The reverse index is created if
+     * it is not given, and the cities are only created when first asked for.
+     */
+    RouteGraph(String[] cityNames, int[] offsets, int[] destinations, int[] distances, int[][] reverseIndex,
+               int minUnitRouteDistance, int maxUnitRouteDistance, String fingerprint) {
+        numCities = cityNames.length;
+        cityIds = new SymbolTable();
+        for (String cityName : cityNames) {
+            cityIds.intern(cityName);
+        }
+
+        this.offsets = offsets;
+        this.destinations = destinations;
+        this.distances = distances;
+        if (reverseIndex == null) {
+            reverseIndex = createReverseIndex(numCities, offsets, destinations, distances);
+        }
+        incomingOffsets = reverseIndex[0];
+        incomingOrigins = reverseIndex[1];
+        incomingDistances = reverseIndex[2];
+        this.minUnitRouteDistance = minUnitRouteDistance;
+        this.maxUnitRouteDistance = maxUnitRouteDistance;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Creates a graph from arrays already laid out as described above, with the city names in
+     * order and each city's unit routes sorted by destination id. The arrays are kept rather
+     * than copied, so must not be changed afterwards.
+     */
+    public static RouteGraph fromArrays(String[] cityNames, int[] offsets, int[] destinations, int[] distances) {
+        int minDistance = Integer.MAX_VALUE;
+        int maxDistance = Integer.MIN_VALUE;
+        for (int distance : distances) {
+            minDistance = Math.min(minDistance, distance);
+            maxDistance = Math.max(maxDistance, distance);
+        }
+        return new RouteGraph(cityNames, offsets, destinations, distances, null,
+                distances.length == 0 ? 0 : minDistance, distances.length == 0 ? 0 : maxDistance, null);
+    }
+
+    private RouteGraph(SymbolTable cityIds, int[] offsets, int[] destinations, int[] distances,
+                       int[] incomingOffsets, int[] incomingOrigins, int[] incomingDistances,
+                       int minUnitRouteDistance, int maxUnitRouteDistance) {
+        numCities = cityIds.size();
+        this.cityIds = cityIds;
+        this.offsets = offsets;
+        this.destinations = destinations;
+        this.distances = distances;
+        this.incomingOffsets = incomingOffsets;
+        this.incomingOrigins = incomingOrigins;
+        this.incomingDistances = incomingDistances;
+        this.minUnitRouteDistance = minUnitRouteDistance;
+        this.maxUnitRouteDistance = maxUnitRouteDistance;
+    }
+
+    private static int[][] createReverseIndex(int numCities, int[] offsets, int[] destinations, int[] distances) {
+        int[] incomingOffsets = new int[numCities + 1];
+        for (int destinationId : destinations) {
+            incomingOffsets[destinationId + 1]++;
+        }
+        for (int id = 0; id < numCities; id++) {
+            incomingOffsets[id + 1] += incomingOffsets[id];
+        }
+
+        // Origins are visited in id order, so each incoming row ends up sorted by origin id.
+        int[] incomingOrigins = new int[destinations.length];
+        int[] incomingDistances = new int[destinations.length];
+        int[] nextIncoming = Arrays.copyOf(incomingOffsets, numCities);
+        for (int id = 0; id < numCities; id++) {
+            for (int unitRoute = offsets[id]; unitRoute < offsets[id + 1]; unitRoute++) {
+                int incoming = nextIncoming[destinations[unitRoute]]++;
+                incomingOrigins[incoming] = id;
+                incomingDistances[incoming] = distances[unitRoute];
+            }
+        }
+        return new int[][]{incomingOffsets, incomingOrigins, incomingDistances};
+    }
+
+    /**
+     * Returns a graph with a new unit route between two of this graph's cities.
+     */
+    RouteGraph withUnitRoute(int originCityId, int destinationCityId, int distance) {
+        int unitRoute = -Arrays.binarySearch(destinations, offsets[originCityId], offsets[originCityId + 1], destinationCityId) - 1;
+        int incoming = -findIncomingUnitRoute(originCityId, destinationCityId) - 1;
+        boolean first = destinations.length == 0;
+        return new RouteGraph(cityIds,
+                shiftOffsets(offsets, originCityId, 1),
+                insert(destinations, unitRoute, destinationCityId),
+                insert(distances, unitRoute, distance),
+                shiftOffsets(incomingOffsets, destinationCityId, 1),
+                insert(incomingOrigins, incoming, originCityId),
+                insert(incomingDistances, incoming, distance),
+                first ? distance : Math.min(minUnitRouteDistance, distance),
+                first ? distance : Math.max(maxUnitRouteDistance, distance));
+    }
+
+    /**
+     * Returns a graph without the unit route, which must be on this graph.
+     */
+    RouteGraph withoutUnitRoute(int originCityId, int destinationCityId) {
+        int unitRoute = findUnitRoute(originCityId, destinationCityId);
+        int incoming = findIncomingUnitRoute(originCityId, destinationCityId);
+        int[] newDistances = remove(distances, unitRoute);
+        int distance = distances[unitRoute];
+        return new RouteGraph(cityIds,
+                shiftOffsets(offsets, originCityId, -1),
+                remove(destinations, unitRoute),
+                newDistances,
+                shiftOffsets(incomingOffsets, destinationCityId, -1),
+                remove(incomingOrigins, incoming),
+                remove(incomingDistances, incoming),
+                distance == minUnitRouteDistance ? Arrays.stream(newDistances).min().orElse(0) : minUnitRouteDistance,
+                distance == maxUnitRouteDistance ? Arrays.stream(newDistances).max().orElse(0) : maxUnitRouteDistance);
+    }
+
+    /**
+     * Returns a graph with the unit route's distance changed, which shares every array but the
+     * distances with this one.
+     */
+    RouteGraph withDistance(int originCityId, int destinationCityId, int distance) {
+        int unitRoute = findUnitRoute(originCityId, destinationCityId);
+        int incoming = findIncomingUnitRoute(originCityId, destinationCityId);
+        int[] newDistances = distances.clone();
+        newDistances[unitRoute] = distance;
+        int[] newIncomingDistances = incomingDistances.clone();
+        newIncomingDistances[incoming] = distance;
+
+        int oldDistance = distances[unitRoute];
+        int min = oldDistance == minUnitRouteDistance && distance > oldDistance
+                ? Arrays.stream(newDistances).min().orElse(0) : Math.min(minUnitRouteDistance, distance);
+        int max = oldDistance == maxUnitRouteDistance && distance < oldDistance
+                ? Arrays.stream(newDistances).max().orElse(0) : Math.max(maxUnitRouteDistance, distance);
+        return new RouteGraph(cityIds, offsets, destinations, newDistances,
+                incomingOffsets, incomingOrigins, newIncomingDistances, min, max);
+    }
+
+    // Incoming rows are sorted by origin id, so this is a binary search like findUnitRoute,
+    // returning -(insertion point) - 1 if there is no such unit route.
+    private int findIncomingUnitRoute(int originCityId, int destinationCityId) {
+        return Arrays.binarySearch(incomingOrigins, incomingOffsets[destinationCityId], incomingOffsets[destinationCityId + 1], originCityId);
+    }
+
+    private static int[] shiftOffsets(int[] offsets, int cityId, int delta) {
+        int[] shifted = offsets.clone();
+        for (int id = cityId + 1; id < shifted.length; id++) {
+            shifted[id] += delta;
+        }
+        return shifted;
+    }
+
+    private static int[] insert(int[] values, int index, int value) {
+        int[] inserted = new int[values.length + 1];
+        System.arraycopy(values, 0, inserted, 0, index);
+        inserted[index] = value;
+        System.arraycopy(values, index, inserted, index + 1, values.length - index);
+        return inserted;
+    }
+
+    private static int[] remove(int[] values, int index) {
+        int[] removed = new int[values.length - 1];
+        System.arraycopy(values, 0, removed, 0, index);
+        System.arraycopy(values, index + 1, removed, index, values.length - index - 1);
+        return removed;
+    }
+
+    public int getCityCount() {
+        return numCities;
+    }
+
+    public int getUnitRouteCount() {
+        return destinations.length;
+    }
+
+    public int getMinUnitRouteDistance() {
+        return minUnitRouteDistance;
+    }
+
+    public int getMaxUnitRouteDistance() {
+        return maxUnitRouteDistance;
+    }
+
+    public City getCity(int cityId) {
+        return getCities()[cityId];
+    }
+
+    public String getCityName(int cityId) {
+        return cityIds.getName(cityId);
+    }
+
+    City[] getCities() {
+        City[] graphCities = cities;
+        if (graphCities == null) {
+            graphCities = createCities();
+            cities = graphCities;
+        }
+        return graphCities;
+    }
+
+    // The graph has no self or duplicate routes, so the cities' unit routes are filled in
+    // directly rather than validated again one by one.
+    private City[] createCities() {
+        City[] graphCities = new City[numCities];
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            graphCities[cityId] = new City(cityIds.getName(cityId), new HashSet<>());
+        }
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            for (int unitRoute = offsets[cityId]; unitRoute < offsets[cityId + 1]; unitRoute++) {
+                graphCities[cityId].getUnitRoutes().add(new UnitRoute(graphCities[destinations[unitRoute]], distances[unitRoute]));
+            }
+        }
+        return graphCities;
+    }
+
+    public int getCityId(String name) {
+        int cityId = cityIds.findId(name);
+        if (cityId == SymbolTable.NONE) {
+            throw new NoSuchCityException(name);
+        }
+        return cityId;
+    }
+
+    public int getCityId(char name) {
+        return getCityId(String.valueOf(name));
+    }
+
+    public int getUnitRoutesStart(int cityId) {
+        return offsets[cityId];
+    }
+
+    public int getUnitRoutesEnd(int cityId) {
+        return offsets[cityId + 1];
+    }
+
+    public int getDestinationCityId(int unitRoute) {
+        return destinations[unitRoute];
+    }
+
+    public int getDistance(int unitRoute) {
+        return distances[unitRoute];
+    }
+
+    public int getIncomingUnitRoutesStart(int cityId) {
+        return incomingOffsets[cityId];
+    }
+
+    public int getIncomingUnitRoutesEnd(int cityId) {
+        return incomingOffsets[cityId + 1];
+    }
+
+    public int getIncomingOriginCityId(int incomingUnitRoute) {
+        return incomingOrigins[incomingUnitRoute];
+    }
+
+    public int getIncomingDistance(int incomingUnitRoute) {
+        return incomingDistances[incomingUnitRoute];
+    }
+
+    /**
+     * Returns the index of the unit route from the origin to the destination, or -1 if there is
+     * none.
+     */
+    public int findUnitRoute(int originCityId, int destinationCityId) {
+        int unitRoute = Arrays.binarySearch(destinations, offsets[originCityId], offsets[originCityId + 1], destinationCityId);
+        return unitRoute < 0 ? -1 : unitRoute;
+    }
+
+    public int getDistance(int originCityId, int destinationCityId) {
+        int unitRoute = findUnitRoute(originCityId, destinationCityId);
+        if (unitRoute < 0) {
+            throw new NoSuchRouteException();
+        }
+        return distances[unitRoute];
+    }
+
+    public int calculateDistance(int[] cityIds) {
+        int distance = 0;
+        for (int i = 0; i < cityIds.length - 1; i++) {
+            distance += getDistance(cityIds[i], cityIds[i + 1]);
+        }
+        return distance;
+    }
+
+    /**
+     * Returns a SHA-256 hex digest of the cities and unit routes, the same for any two graphs
+     * with the same routes.
+     */
+    public String getFingerprint() {
+        String graphFingerprint = fingerprint;
+        if (graphFingerprint == null) {
+            graphFingerprint = calculateFingerprint();
+            fingerprint = graphFingerprint;
+        }
+        return graphFingerprint;
+    }
+
+    private String calculateFingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder row = new StringBuilder();
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            row.setLength(0);
+            row.append(cityIds.getName(cityId));
+            for (int unitRoute = offsets[cityId]; unitRoute < offsets[cityId + 1]; unitRoute++) {
+                row.append(' ').append(destinations[unitRoute]).append(':').append(distances[unitRoute]);
+            }
+            row.append('\n');
+            digest.update(row.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
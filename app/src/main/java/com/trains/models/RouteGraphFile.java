@@ -0,0 +1,335 @@
+package com.trains.models;
+
+import com.trains.exceptions.CompiledRouteFileException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes compiled route graphs, so a large route map is parsed and checked once and
+ * later runs only map the file and copy its arrays.
+ * <p>
+ * Files are little endian. A fixed size header holds a magic number, whose first byte is not
+ * ASCII so that no plain text route file starts with it, the format version, flags,
+ * the city and unit route counts, the shortest and longest unit route distances, the length of
+ * the city names, a CRC-32 of everything after the header and the graph's fingerprint. Then come
+ * the offsets and UTF-8 bytes of the city names in id order, padded to a whole number of ints,
+ * and the {@link RouteGraph} arrays: offsets, destinations and distances, and the reverse index's
+ * offsets, origins and distances if the flags say it was written.
+ * <p>
+ * Files are written to a temporary file first and moved into place. A file that does not match
+ * the format or its checksum, whose offsets or city ids point outside its arrays, whose rows are
+ * not sorted by city id, or which holds a negative distance or a repeated city name, is rejected
+ * as a whole. The shortest and longest distances are worked out again from the distances rather
+ * than trusted from the header.
+ */
+public final class RouteGraphFile {
+
+    private static final int MAGIC = 0x4e525489;
+    private static final int VERSION = 1;
+    private static final int FLAG_REVERSE_INDEX = 1;
+    private static final int HEADER_SIZE = 128;
+    private static final int FINGERPRINT_LENGTH = 64;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private RouteGraphFile() {
+    }
+
+    /**
+     * Returns whether the file is long enough to hold a header, and starts with the magic number
+     * and format version of a compiled route graph.
+     */
+    public static boolean isRouteGraphFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return false;
+            }
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // Keep reading until the magic number and version are complete or the file ends.
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static void save(RouteGraph routeGraph, Path file, boolean includeReverseIndex) {
+        int numCities = routeGraph.getCityCount();
+        byte[][] cityNames = new byte[numCities][];
+        int nameBytesLength = 0;
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            cityNames[cityId] = routeGraph.getCityName(cityId).getBytes(StandardCharsets.UTF_8);
+            nameBytesLength += cityNames[cityId].length;
+        }
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, "routes", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                    channel.position(HEADER_SIZE);
+                    PayloadWriter out = new PayloadWriter(channel);
+
+                    int nameOffset = 0;
+                    out.writeInt(nameOffset);
+                    for (byte[] cityName : cityNames) {
+                        nameOffset += cityName.length;
+                        out.writeInt(nameOffset);
+                    }
+                    for (byte[] cityName : cityNames) {
+                        out.writeBytes(cityName);
+                    }
+                    out.writeBytes(new byte[padding(nameBytesLength)]);
+
+                    for (int cityId = 0; cityId <= numCities; cityId++) {
+                        out.writeInt(cityId < numCities ? routeGraph.getUnitRoutesStart(cityId) : routeGraph.getUnitRouteCount());
+                    }
+                    for (int unitRoute = 0; unitRoute < routeGraph.getUnitRouteCount(); unitRoute++) {
+                        out.writeInt(routeGraph.getDestinationCityId(unitRoute));
+                    }
+                    for (int unitRoute = 0; unitRoute < routeGraph.getUnitRouteCount(); unitRoute++) {
+                        out.writeInt(routeGraph.getDistance(unitRoute));
+                    }
+                    if (includeReverseIndex) {
+                        for (int cityId = 0; cityId <= numCities; cityId++) {
+                            out.writeInt(cityId < numCities ? routeGraph.getIncomingUnitRoutesStart(cityId) : routeGraph.getUnitRouteCount());
+                        }
+                        for (int incoming = 0; incoming < routeGraph.getUnitRouteCount(); incoming++) {
+                            out.writeInt(routeGraph.getIncomingOriginCityId(incoming));
+                        }
+                        for (int incoming = 0; incoming < routeGraph.getUnitRouteCount(); incoming++) {
+                            out.writeInt(routeGraph.getIncomingDistance(incoming));
+                        }
+                    }
+                    out.flush();
+
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC)
+                            .putInt(VERSION)
+                            .putInt(includeReverseIndex ? FLAG_REVERSE_INDEX : 0)
+                            .putInt(numCities)
+                            .putInt(routeGraph.getUnitRouteCount())
+                            .putInt(routeGraph.getMinUnitRouteDistance())
+                            .putInt(routeGraph.getMaxUnitRouteDistance())
+                            .putInt(nameBytesLength)
+                            .putLong(out.getChecksum())
+                            .put(routeGraph.getFingerprint().getBytes(StandardCharsets.US_ASCII));
+                    header.clear();
+                    while (header.hasRemaining()) {
+                        channel.write(header, header.position());
+                    }
+                }
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.NOT_WRITTEN);
+        }
+    }
+
+    public static RouteGraph load(Path file) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.NOT_READ);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int flags = buffer.getInt(8);
+        int numCities = buffer.getInt(12);
+        int numUnitRoutes = buffer.getInt(16);
+        int nameBytesLength = buffer.getInt(28);
+        boolean hasReverseIndex = (flags & FLAG_REVERSE_INDEX) != 0;
+        long offsetsSize = 4L * numCities + 4;
+        long expectedSize = HEADER_SIZE
+                + offsetsSize + nameBytesLength + padding(nameBytesLength)
+                + offsetsSize + 8L * numUnitRoutes
+                + (hasReverseIndex ? offsetsSize + 8L * numUnitRoutes : 0);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || (flags & ~FLAG_REVERSE_INDEX) != 0
+                || numCities < 0 || numUnitRoutes < 0 || nameBytesLength < 0 || expectedSize != buffer.capacity()) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+        }
+
+        CRC32 checksum = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(HEADER_SIZE);
+        checksum.update(payload);
+        if (checksum.getValue() != buffer.getLong(32)) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+        }
+        byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+        for (int i = 0; i < FINGERPRINT_LENGTH; i++) {
+            fingerprint[i] = buffer.get(40 + i);
+        }
+
+        int position = HEADER_SIZE;
+        int[] nameOffsets = readInts(buffer, position, numCities + 1);
+        position += 4 * (numCities + 1);
+        byte[] nameBytes = new byte[nameBytesLength];
+        ByteBuffer names = buffer.duplicate();
+        names.position(position);
+        names.get(nameBytes);
+        position += nameBytesLength + padding(nameBytesLength);
+
+        if (!isOffsets(nameOffsets, nameBytesLength)) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+        }
+        String[] cityNames = new String[numCities];
+        Set<String> uniqueCityNames = new HashSet<>(2 * numCities);
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            cityNames[cityId] = new String(nameBytes, nameOffsets[cityId], nameOffsets[cityId + 1] - nameOffsets[cityId], StandardCharsets.UTF_8);
+            uniqueCityNames.add(cityNames[cityId]);
+        }
+        if (uniqueCityNames.size() != numCities) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+        }
+
+        int[] offsets = readInts(buffer, position, numCities + 1);
+        position += 4 * (numCities + 1);
+        int[] destinations = readInts(buffer, position, numUnitRoutes);
+        position += 4 * numUnitRoutes;
+        int[] distances = readInts(buffer, position, numUnitRoutes);
+        position += 4 * numUnitRoutes;
+        if (!isOffsets(offsets, numUnitRoutes) || !isCityIds(destinations, numCities)
+                || !isSortedRows(offsets, destinations) || !isDistances(distances)) {
+            throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+        }
+        int[][] reverseIndex = null;
+        if (hasReverseIndex) {
+            int[] incomingOffsets = readInts(buffer, position, numCities + 1);
+            position += 4 * (numCities + 1);
+            int[] incomingOrigins = readInts(buffer, position, numUnitRoutes);
+            position += 4 * numUnitRoutes;
+            int[] incomingDistances = readInts(buffer, position, numUnitRoutes);
+            if (!isOffsets(incomingOffsets, numUnitRoutes) || !isCityIds(incomingOrigins, numCities)
+                    || !isSortedRows(incomingOffsets, incomingOrigins) || !isDistances(incomingDistances)) {
+                throw new CompiledRouteFileException(file.toString(), CompiledRouteFileException.DAMAGED);
+            }
+            reverseIndex = new int[][]{incomingOffsets, incomingOrigins, incomingDistances};
+        }
+
+        int minDistance = Integer.MAX_VALUE;
+        int maxDistance = Integer.MIN_VALUE;
+        for (int distance : distances) {
+            minDistance = Math.min(minDistance, distance);
+            maxDistance = Math.max(maxDistance, distance);
+        }
+        return new RouteGraph(cityNames, offsets, destinations, distances, reverseIndex,
+                numUnitRoutes == 0 ? 0 : minDistance, numUnitRoutes == 0 ? 0 : maxDistance,
+                new String(fingerprint, StandardCharsets.US_ASCII));
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int position, int length) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(position);
+        int[] ints = new int[length];
+        bytes.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(ints);
+        return ints;
+    }
+
+    // Whether the offsets start at 0, never go down and end at the length of what they index.
+    private static boolean isOffsets(int[] offsets, int length) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != length) {
+            return false;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCityIds(int[] cityIds, int numCities) {
+        for (int cityId : cityIds) {
+            if (cityId < 0 || cityId >= numCities) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether each row's city ids go strictly up, as looking up a unit route searches its row.
+    private static boolean isSortedRows(int[] offsets, int[] cityIds) {
+        for (int row = 0; row < offsets.length - 1; row++) {
+            for (int i = offsets[row] + 1; i < offsets[row + 1]; i++) {
+                if (cityIds[i] <= cityIds[i - 1]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDistances(int[] distances) {
+        for (int distance : distances) {
+            if (distance < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int padding(int length) {
+        return -length & 3;
+    }
+
+    // Buffers the payload, and the checksum over it, on its way to the file.
+    private static final class PayloadWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 checksum = new CRC32();
+
+        private PayloadWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void writeInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put(b);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private long getChecksum() {
+            return checksum.getValue();
+        }
+    }
+}
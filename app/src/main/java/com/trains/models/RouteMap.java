@@ -0,0 +1,66 @@
+package com.trains.models;
+
+import com.trains.exceptions.DuplicateCityException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.groupingBy;
+
+public class RouteMap {
+
+    private volatile Set<City> cities;
+    private volatile RouteGraph routeGraph;
+
+    public RouteMap(Set<City> cities) {
+        boolean isDuplicate = cities.stream()
+                .collect(groupingBy(City::getName))
+                .values().stream()
+                .anyMatch(cs -> cs.size() > 1);
+
+        if (isDuplicate) {
+            throw new DuplicateCityException();
+        }
+
+        this.cities = cities;
+    }
+
+    /**
+     * Creates a route map from a compiled route graph, whose cities are only created when first
+     * asked for.
+     */
+    public RouteMap(RouteGraph routeGraph) {
+        this.routeGraph = routeGraph;
+    }
+
+    public Set<City> getCities() {
+        Set<City> mapCities = cities;
+        if (mapCities == null) {
+            synchronized (this) {
+                mapCities = cities;
+                if (mapCities == null) {
+                    mapCities = new HashSet<>(Arrays.asList(routeGraph.getCities()));
+                    cities = mapCities;
+                }
+            }
+        }
+        return mapCities;
+    }
+
+    public RouteGraph getRouteGraph() {
+        RouteGraph graph = routeGraph;
+        if (graph == null) {
+            graph = new RouteGraph(getCities());
+            routeGraph = graph;
+        }
+        return graph;
+    }
+
+    public void addCityIfMissing(City city) {
+        if (getCities().add(city)) {
+            routeGraph = null;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.trains.models;
+
+import com.trains.exceptions.DuplicateRouteException;
+import com.trains.exceptions.InvalidRouteException;
+import com.trains.exceptions.NoSuchCityException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.exceptions.SelfRouteException;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable, versioned route map whose updates each return a new snapshot, leaving this one
+ * untouched for any queries still running on it.
+ * <p>
+ * Cities have dense ids in name order as in {@link RouteGraph}. The unit routes leaving each
+ * city are a row of destination id and distance pairs packed into longs and sorted by
+ * destination, and rows are grouped into fixed size chunks. An update copies only the changed
+ * row, its chunk and the table of chunks, and shares every other row with the snapshot it was
+ * made from. Adding a route to a city not yet on the map renumbers the cities, so that copies
+ * every row.
+ * <p>
+ * The {@link RouteMap} for querying a snapshot is compiled the first time it is asked for. An
+ * update that keeps the same cities remembers the snapshot it was made from and the change it
+ * made, and then derives its {@link RouteGraph} by patching that snapshot's, so a query after
+ * an update does not compile the whole map again. Only after more than
+ * {@code MAX_PENDING_PATCHES} updates in a row without a query in between, or after cities are
+ * added, is the graph compiled from the rows, still without creating any cities.
+ */
+public final class RouteMapSnapshot {
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final long[] NO_UNIT_ROUTES = new long[0];
+    private static final int MAX_PENDING_PATCHES = 8;
+
+    private final long version;
+    private final String[] cityNames;
+    private final long[][][] chunks;
+    private final int numUnitRoutes;
+    private final int numPendingPatches;
+    private volatile RouteMap routeMap;
+    // Dropped once the route map is compiled, so a chain of snapshots is not kept alive.
+    private RouteMapSnapshot parent;
+    private UnaryOperator<RouteGraph> patch;
+
+    private RouteMapSnapshot(long version, String[] cityNames, long[][][] chunks, int numUnitRoutes,
+                             RouteMapSnapshot parent, UnaryOperator<RouteGraph> patch, RouteMap routeMap) {
+        this.version = version;
+        this.cityNames = cityNames;
+        this.chunks = chunks;
+        this.numUnitRoutes = numUnitRoutes;
+        this.routeMap = routeMap;
+        int parentPendingPatches = parent == null ? 0 : parent.getPendingPatchCount();
+        if (parent != null && parentPendingPatches < MAX_PENDING_PATCHES) {
+            this.parent = parent;
+            this.patch = patch;
+            this.numPendingPatches = parentPendingPatches + 1;
+        } else {
+            this.numPendingPatches = 0;
+        }
+    }
+
+    public static RouteMapSnapshot of(RouteMap routeMap) {
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        int numCities = routeGraph.getCityCount();
+        String[] cityNames = new String[numCities];
+        long[][] rows = new long[numCities][];
+        for (int cityId = 0; cityId < numCities; cityId++) {
+            cityNames[cityId] = routeGraph.getCityName(cityId);
+            int start = routeGraph.getUnitRoutesStart(cityId);
+            rows[cityId] = new long[routeGraph.getUnitRoutesEnd(cityId) - start];
+            for (int i = 0; i < rows[cityId].length; i++) {
+                rows[cityId][i] = pack(routeGraph.getDestinationCityId(start + i), routeGraph.getDistance(start + i));
+            }
+        }
+        return new RouteMapSnapshot(0, cityNames, toChunks(rows), routeGraph.getUnitRouteCount(), null, null,
+                new RouteMap(routeGraph));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getCityCount() {
+        return cityNames.length;
+    }
+
+    public int getUnitRouteCount() {
+        return numUnitRoutes;
+    }
+
+    public boolean hasUnitRoute(String originCityName, String destinationCityName) {
+        int originCityId = findCityId(originCityName);
+        int destinationCityId = findCityId(destinationCityName);
+        return originCityId >= 0 && destinationCityId >= 0 && findInRow(getRow(originCityId), destinationCityId) >= 0;
+    }
+
+    public int getDistance(String originCityName, String destinationCityName) {
+        long[] row = getRow(getCityId(originCityName));
+        int i = findInRow(row, getCityId(destinationCityName));
+        if (i < 0) {
+            throw new NoSuchRouteException();
+        }
+        return distanceOf(row[i]);
+    }
+
+    /**
+     * Returns a snapshot with a new unit route, adding either city if it is not on the map yet.
+     */
+    public RouteMapSnapshot withUnitRoute(String originCityName, String destinationCityName, int distance) {
+        validateUnitRoute(originCityName, destinationCityName, distance);
+        if (hasUnitRoute(originCityName, destinationCityName)) {
+            throw new DuplicateRouteException();
+        }
+
+        RouteMapSnapshot snapshot = this;
+        boolean newCities = findCityId(originCityName) < 0 || findCityId(destinationCityName) < 0;
+        if (newCities) {
+            snapshot = withCities(originCityName, destinationCityName);
+        }
+
+        int originCityId = snapshot.getCityId(originCityName);
+        int destinationCityId = snapshot.getCityId(destinationCityName);
+        long[] row = snapshot.getRow(originCityId);
+        int insertionPoint = -findInRow(row, destinationCityId) - 1;
+        long[] newRow = new long[row.length + 1];
+        System.arraycopy(row, 0, newRow, 0, insertionPoint);
+        newRow[insertionPoint] = pack(destinationCityId, distance);
+        System.arraycopy(row, insertionPoint, newRow, insertionPoint + 1, row.length - insertionPoint);
+        return snapshot.withRow(originCityId, newRow, numUnitRoutes + 1,
+                newCities ? null : graph -> graph.withUnitRoute(originCityId, destinationCityId, distance));
+    }
+
+    /**
+     * Returns a snapshot without the unit route. Cities stay on the map when their last unit
+     * route is removed.
+     */
+    public RouteMapSnapshot withoutUnitRoute(String originCityName, String destinationCityName) {
+        int originCityId = getCityId(originCityName);
+        int destinationCityId = getCityId(destinationCityName);
+        long[] row = getRow(originCityId);
+        int i = findInRow(row, destinationCityId);
+        if (i < 0) {
+            throw new NoSuchRouteException();
+        }
+
+        long[] newRow = new long[row.length - 1];
+        System.arraycopy(row, 0, newRow, 0, i);
+        System.arraycopy(row, i + 1, newRow, i, row.length - i - 1);
+        return withRow(originCityId, newRow, numUnitRoutes - 1,
+                graph -> graph.withoutUnitRoute(originCityId, destinationCityId));
+    }
+
+    /**
+     * Returns a snapshot with the existing unit route's distance changed.
+     */
+    public RouteMapSnapshot withDistance(String originCityName, String destinationCityName, int distance) {
+        validateUnitRoute(originCityName, destinationCityName, distance);
+        int originCityId = getCityId(originCityName);
+        int destinationCityId = getCityId(destinationCityName);
+        long[] row = getRow(originCityId);
+        int i = findInRow(row, destinationCityId);
+        if (i < 0) {
+            throw new NoSuchRouteException();
+        }
+
+        long[] newRow = row.clone();
+        newRow[i] = pack(destinationCityId, distance);
+        return withRow(originCityId, newRow, numUnitRoutes,
+                graph -> graph.withDistance(originCityId, destinationCityId, distance));
+    }
+
+    public RouteMap getRouteMap() {
+        RouteMap map = routeMap;
+        if (map == null) {
+            synchronized (this) {
+                map = routeMap;
+                if (map == null) {
+                    map = new RouteMap(parent == null ? compileRouteGraph() : patch.apply(parent.getRouteMap().getRouteGraph()));
+                    routeMap = map;
+                    parent = null;
+                    patch = null;
+                }
+            }
+        }
+        return map;
+    }
+
+    private synchronized int getPendingPatchCount() {
+        return routeMap == null ? numPendingPatches : 0;
+    }
+
+    long[] getRow(int cityId) {
+        return chunks[cityId >>> CHUNK_SHIFT][cityId & (CHUNK_SIZE - 1)];
+    }
+
+    int findCityId(String cityName) {
+        int cityId = Arrays.binarySearch(cityNames, cityName);
+        return cityId < 0 ? -1 : cityId;
+    }
+
+    private int getCityId(String cityName) {
+        int cityId = findCityId(cityName);
+        if (cityId < 0) {
+            throw new NoSuchCityException(cityName);
+        }
+        return cityId;
+    }
+
+    private RouteMapSnapshot withRow(int cityId, long[] row, int newNumUnitRoutes, UnaryOperator<RouteGraph> graphPatch) {
+        long[][][] newChunks = chunks.clone();
+        long[][] newChunk = chunks[cityId >>> CHUNK_SHIFT].clone();
+        newChunk[cityId & (CHUNK_SIZE - 1)] = row;
+        newChunks[cityId >>> CHUNK_SHIFT] = newChunk;
+        return new RouteMapSnapshot(version + 1, cityNames, newChunks, newNumUnitRoutes,
+                graphPatch == null ? null : this, graphPatch, null);
+    }
+
+    // Keeps the version, as the result is only a step within a single update.
+    private RouteMapSnapshot withCities(String... newCityNames) {
+        String[] names = Arrays.copyOf(cityNames, cityNames.length + newCityNames.length);
+        int numNames = cityNames.length;
+        for (String newCityName : newCityNames) {
+            if (Arrays.binarySearch(names, 0, numNames, newCityName) < 0 && findCityId(newCityName) < 0) {
+                names[numNames++] = newCityName;
+                Arrays.sort(names, 0, numNames);
+            }
+        }
+        names = Arrays.copyOf(names, numNames);
+
+        int[] newCityIds = new int[cityNames.length];
+        for (int cityId = 0; cityId < cityNames.length; cityId++) {
+            newCityIds[cityId] = Arrays.binarySearch(names, cityNames[cityId]);
+        }
+
+        long[][] rows = new long[names.length][];
+        Arrays.fill(rows, NO_UNIT_ROUTES);
+        for (int cityId = 0; cityId < cityNames.length; cityId++) {
+            long[] row = getRow(cityId).clone();
+            for (int i = 0; i < row.length; i++) {
+                row[i] = pack(newCityIds[destinationOf(row[i])], distanceOf(row[i]));
+            }
+            rows[newCityIds[cityId]] = row;
+        }
+        return new RouteMapSnapshot(version, names, toChunks(rows), numUnitRoutes, null, null, null);
+    }
+
+    // Rows are already sorted by destination id, so they are laid out as the graph's arrays
+    // directly, and the graph only creates cities if they are asked for.
+    private RouteGraph compileRouteGraph() {
+        int[] offsets = new int[cityNames.length + 1];
+        for (int cityId = 0; cityId < cityNames.length; cityId++) {
+            offsets[cityId + 1] = offsets[cityId] + getRow(cityId).length;
+        }
+
+        int[] destinations = new int[numUnitRoutes];
+        int[] distances = new int[numUnitRoutes];
+        int minDistance = Integer.MAX_VALUE;
+        int maxDistance = Integer.MIN_VALUE;
+        for (int cityId = 0; cityId < cityNames.length; cityId++) {
+            long[] row = getRow(cityId);
+            for (int i = 0; i < row.length; i++) {
+                destinations[offsets[cityId] + i] = destinationOf(row[i]);
+                distances[offsets[cityId] + i] = distanceOf(row[i]);
+                minDistance = Math.min(minDistance, distanceOf(row[i]));
+                maxDistance = Math.max(maxDistance, distanceOf(row[i]));
+            }
+        }
+        return new RouteGraph(cityNames, offsets, destinations, distances, null,
+                numUnitRoutes == 0 ? 0 : minDistance, numUnitRoutes == 0 ? 0 : maxDistance, null);
+    }
+
+    private static void validateUnitRoute(String originCityName, String destinationCityName, int distance) {
+        if (originCityName.equals(destinationCityName)) {
+            throw new SelfRouteException();
+        }
+        if (distance < 0) {
+            throw new InvalidRouteException();
+        }
+    }
+
+    private static long[][][] toChunks(long[][] rows) {
+        long[][][] chunks = new long[(rows.length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT][][];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] = new long[CHUNK_SIZE][];
+            Arrays.fill(chunks[chunk], NO_UNIT_ROUTES);
+            int start = chunk << CHUNK_SHIFT;
+            System.arraycopy(rows, start, chunks[chunk], 0, Math.min(CHUNK_SIZE, rows.length - start));
+        }
+        return chunks;
+    }
+
+    private static int findInRow(long[] row, int destinationCityId) {
+        int low = 0;
+        int high = row.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleCityId = destinationOf(row[middle]);
+            if (middleCityId < destinationCityId) {
+                low = middle + 1;
+            } else if (middleCityId > destinationCityId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static long pack(int destinationCityId, int distance) {
+        return ((long) destinationCityId << 32) | (distance & 0xFFFFFFFFL);
+    }
+
+    private static int destinationOf(long unitRoute) {
+        return (int) (unitRoute >>> 32);
+    }
+
+    private static int distanceOf(long unitRoute) {
+        return (int) unitRoute;
+    }
+}
@@ -0,0 +1,42 @@
+package com.trains.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns city names, giving each a dense int id in the order it is first seen, with constant
+ * time lookups from name to id and back. Interning hands back the table's own copy of each
+ * name, so every city and route built from the table shares one string per name.
+ */
+public class SymbolTable {
+
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    public int findId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? NONE : id;
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
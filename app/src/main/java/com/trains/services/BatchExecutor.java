@@ -0,0 +1,109 @@
+package com.trains.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs one command per line of input and writes one result per line, in input order.
+ * <p>
+ * With a parallelism above one, commands run on a fixed pool of daemon threads while later
+ * lines are still being read. At most {@code RESULTS_IN_FLIGHT_PER_THREAD} results per thread
+ * are held back waiting for an earlier, slower command to finish. Output is flushed whenever
+ * the next result in order is not ready yet or no more input is ready to read, so results
+ * appear as they complete without flushing every line of a large batch.
+ */
+public class BatchExecutor {
+
+    private static final int RESULTS_IN_FLIGHT_PER_THREAD = 64;
+
+    private final int parallelism;
+
+    public BatchExecutor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public long execute(BufferedReader commands, Function<String, String> commandExecutor, PrintWriter out) throws IOException {
+        if (parallelism == 1) {
+            return executeSequentially(commands, commandExecutor, out);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-executor-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<String>> results = new ArrayDeque<>();
+            long numCommands = 0;
+            for (String command = commands.readLine(); command != null; command = commands.readLine()) {
+                if (!command.trim().isEmpty()) {
+                    String line = command;
+                    results.add(CompletableFuture.supplyAsync(() -> commandExecutor.apply(line), executorService));
+                    numCommands++;
+                }
+
+                if (results.size() >= parallelism * RESULTS_IN_FLIGHT_PER_THREAD) {
+                    writeNextResult(results, out);
+                }
+                if (!commands.ready()) {
+                    while (!results.isEmpty() && results.peek().isDone()) {
+                        writeNextResult(results, out);
+                    }
+                    out.flush();
+                }
+            }
+            while (!results.isEmpty()) {
+                writeNextResult(results, out);
+            }
+            out.flush();
+            return numCommands;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private long executeSequentially(BufferedReader commands, Function<String, String> commandExecutor, PrintWriter out) throws IOException {
+        long numCommands = 0;
+        for (String command = commands.readLine(); command != null; command = commands.readLine()) {
+            if (!command.trim().isEmpty()) {
+                out.println(commandExecutor.apply(command));
+                numCommands++;
+            }
+            if (!commands.ready()) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return numCommands;
+    }
+
+    private void writeNextResult(Deque<Future<String>> results, PrintWriter out) {
+        Future<String> result = results.poll();
+        if (!result.isDone()) {
+            out.flush();
+        }
+
+        try {
+            out.println(result.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
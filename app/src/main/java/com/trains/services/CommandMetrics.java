@@ -0,0 +1,159 @@
+package com.trains.services;
+
+import com.trains.engines.QueryWork;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies, errors and work of one command's queries. Recording takes no locks, other than the
+ * first time an error type is seen, so it can be left on.
+ */
+class CommandMetrics implements CommandMetricsMXBean {
+
+    private final String command;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errorCount = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errorCountsByType = new ConcurrentHashMap<>();
+    private final LongAdder settledCities = new LongAdder();
+    private final LongAdder relaxedUnitRoutes = new LongAdder();
+    private final LongAdder enumeratedRoutes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder preprocessingNanos = new LongAdder();
+    private final LongAdder shortcuts = new LongAdder();
+
+    CommandMetrics(String command) {
+        this.command = command;
+    }
+
+    void record(long nanos, QueryWork work, long numAllocatedBytes, Throwable error) {
+        latencies.record(nanos);
+        if (error != null) {
+            errorCount.increment();
+            errorCountsByType.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+        }
+        settledCities.add(work.getSettledCities());
+        relaxedUnitRoutes.add(work.getRelaxedUnitRoutes());
+        enumeratedRoutes.add(work.getEnumeratedRoutes());
+        maxDepth.accumulate(work.getMaxDepth());
+        allocatedBytes.add(numAllocatedBytes);
+        preprocessingNanos.add(work.getPreprocessingNanos());
+        shortcuts.add(work.getShortcuts());
+    }
+
+    @Override
+    public String getCommand() {
+        return command;
+    }
+
+    @Override
+    public long getQueryCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCountsByType() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorCountsByType.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getMeanLatencyMicros() {
+        return toMicros(latencies.getMean());
+    }
+
+    @Override
+    public long getMedianLatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long get90thPercentileLatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(90));
+    }
+
+    @Override
+    public long get99thPercentileLatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long get999thPercentileLatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public long getMaxLatencyMicros() {
+        return toMicros(latencies.getMax());
+    }
+
+    @Override
+    public long getSettledCities() {
+        return settledCities.sum();
+    }
+
+    @Override
+    public long getRelaxedUnitRoutes() {
+        return relaxedUnitRoutes.sum();
+    }
+
+    @Override
+    public long getEnumeratedRoutes() {
+        return enumeratedRoutes.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getMeanAllocatedBytes() {
+        long numQueries = getQueryCount();
+        return numQueries == 0 ? 0 : getAllocatedBytes() / numQueries;
+    }
+
+    @Override
+    public long getPreprocessingMicros() {
+        return toMicros(preprocessingNanos.sum());
+    }
+
+    @Override
+    public long getShortcuts() {
+        return shortcuts.sum();
+    }
+
+    /**
+     * Returns the metrics on one line, for the batch summary.
+     */
+    String describe() {
+        return command + ": " + getQueryCount() + " queries, " + getErrorCount() + " errors " + getErrorCountsByType()
+                + ", latency us mean " + getMeanLatencyMicros() + " p50 " + getMedianLatencyMicros()
+                + " p90 " + get90thPercentileLatencyMicros() + " p99 " + get99thPercentileLatencyMicros()
+                + " p99.9 " + get999thPercentileLatencyMicros() + " max " + getMaxLatencyMicros()
+                + ", settled " + getSettledCities() + ", relaxed " + getRelaxedUnitRoutes()
+                + ", enumerated " + getEnumeratedRoutes() + ", max depth " + getMaxDepth()
+                + ", allocated bytes mean " + getMeanAllocatedBytes()
+                + ", preprocessing us " + getPreprocessingMicros() + " shortcuts " + getShortcuts() + ".";
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,45 @@
+package com.trains.services;
+
+import java.util.Map;
+
+/**
+ * A command's metrics as seen over JMX, with latencies in microseconds.
+ */
+public interface CommandMetricsMXBean {
+
+    String getCommand();
+
+    long getQueryCount();
+
+    long getErrorCount();
+
+    Map<String, Long> getErrorCountsByType();
+
+    long getMeanLatencyMicros();
+
+    long getMedianLatencyMicros();
+
+    long get90thPercentileLatencyMicros();
+
+    long get99thPercentileLatencyMicros();
+
+    long get999thPercentileLatencyMicros();
+
+    long getMaxLatencyMicros();
+
+    long getSettledCities();
+
+    long getRelaxedUnitRoutes();
+
+    long getEnumeratedRoutes();
+
+    int getMaxDepth();
+
+    long getAllocatedBytes();
+
+    long getMeanAllocatedBytes();
+
+    long getPreprocessingMicros();
+
+    long getShortcuts();
+}
@@ -0,0 +1,97 @@
+package com.trains.services;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds in the style of HdrHistogram, with buckets a 64th of a
+ * power of two wide, so any recorded value is known to within 1.6%. Values from 0 to about 18
+ * minutes are kept, and longer ones are counted as the longest.
+ * <p>
+ * Each bucket is a {@link LongAdder}, so recording takes no locks and threads recording at the
+ * same time do not contend. Reads sum the buckets and are only exact when nothing is recording.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private final LongAdder[] buckets = new LongAdder[indexOf(MAX_VALUE) + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        buckets[indexOf(value)].increment();
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMean() {
+        long numValues = count.sum();
+        return numValues == 0 ? 0 : total.sum() / numValues;
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the highest value of the bucket holding the given percentile of the values, or 0
+     * if there are none.
+     */
+    long getValueAtPercentile(double percentile) {
+        long[] counts = new long[buckets.length];
+        long numValues = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            numValues += counts[i];
+        }
+        if (numValues == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * numValues));
+        long numBelow = 0;
+        for (int i = 0; i < counts.length; i++) {
+            numBelow += counts[i];
+            if (numBelow >= rank) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    // Values below SUB_BUCKET_COUNT have a bucket each. Above that each power of two is split
+    // into half as many buckets, by the value's top SUB_BUCKET_BITS bits.
+    static int indexOf(long value) {
+        int magnitude = 64 - Long.numberOfLeadingZeros(value);
+        if (magnitude <= SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> (SUB_BUCKET_BITS - 1)) - 1;
+        long subBucket = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,214 @@
+package com.trains.services;
+
+import com.trains.exceptions.QueryCacheException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Least recently used cache of command results, bounded both by the number of entries and by
+ * their total weight, the characters in their keys and results. Entries are evicted, least
+ * recently used first, until both bounds hold again.
+ * <p>
+ * When given a file the cache can be written to it and read back by a later run. Files are
+ * written to a temporary file first and moved into place, and a file that does not match or
+ * cannot be read leaves the cache empty. Keys, results and statistics are guarded by the
+ * cache's lock.
+ */
+@Component
+public class QueryCache {
+
+    private static final int MAGIC = 0x51434348;
+    private static final int VERSION = 1;
+    private static final int MAX_PERSISTED_LENGTH = 16 * 1024;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Path file;
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private boolean loaded;
+
+    public QueryCache(int maxEntries, long maxWeight) {
+        this(maxEntries, maxWeight, (Path) null);
+    }
+
+    @Autowired
+    public QueryCache(
+            @Value("${trains.query-cache.max-entries:10000}") int maxEntries,
+            @Value("${trains.query-cache.max-weight:16777216}") long maxWeight,
+            @Value("${trains.query-cache.file:}") String file
+    ) {
+        this(maxEntries, maxWeight, file.isEmpty() ? null : Paths.get(file));
+    }
+
+    public QueryCache(int maxEntries, long maxWeight, Path file) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.file = file;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && maxWeight > 0;
+    }
+
+    public synchronized Optional<String> get(String key) {
+        String result = entries.get(key);
+        if (result == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return Optional.ofNullable(result);
+    }
+
+    public synchronized void put(String key, String result) {
+        String previous = entries.put(key, result);
+        if (previous != null) {
+            weight -= weigh(key, previous);
+        }
+        weight += weigh(key, result);
+
+        Iterator<Map.Entry<String, String>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            Map.Entry<String, String> entry = eldest.next();
+            weight -= weigh(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized String describeStatistics() {
+        return "Query cache: " + hitCount + " hits, " + missCount + " misses, " + evictionCount + " evictions.";
+    }
+
+    public boolean isPersistent() {
+        return file != null;
+    }
+
+    /**
+     * Adds the entries in the cache's file, if it has one and it exists, as if they had just
+     * been put in the order they were used in the run that saved them. Only the first call
+     * reads the file.
+     */
+    public void load() {
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+        }
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int numEntries = in.readInt();
+            Map<String, String> loaded = new LinkedHashMap<>();
+            for (int i = 0; i < numEntries; i++) {
+                loaded.put(readString(in), readString(in));
+            }
+            synchronized (this) {
+                loaded.forEach(this::put);
+            }
+        } catch (IOException e) {
+            // An unreadable cache is the same as an empty one.
+        }
+    }
+
+    public void save() {
+        if (file == null) {
+            return;
+        }
+
+        Map<String, String> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(entries);
+        }
+        snapshot.entrySet().removeIf(entry -> entry.getKey().length() > MAX_PERSISTED_LENGTH
+                || entry.getValue().length() > MAX_PERSISTED_LENGTH);
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, "queries", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+                        writeString(out, entry.getKey());
+                        writeString(out, entry.getValue());
+                    }
+                }
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new QueryCacheException(file.toString());
+        }
+    }
+
+    private static long weigh(String key, String result) {
+        return key.length() + result.length();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 4 * MAX_PERSISTED_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,98 @@
+package com.trains.services;
+
+import com.trains.engines.QueryWork;
+import com.trains.enums.Command;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of the queries answered by {@link RoutingService}, per command. When enabled each
+ * command's {@link CommandMetricsMXBean} is registered with the platform MBean server as
+ * {@code com.trains:type=QueryMetrics,command=<alias>}, replacing any registered before.
+ * <p>
+ * Bytes allocated are those of the thread answering the query, so work done for it by the
+ * common fork join pool, as in a parallel count, is not included.
+ */
+@Component
+public class QueryMetrics {
+
+    private static final String OBJECT_NAME_PREFIX = "com.trains:type=QueryMetrics,command=";
+
+    private final Map<Command, CommandMetrics> metricsByCommand = new EnumMap<>(Command.class);
+    private final com.sun.management.ThreadMXBean allocationMXBean = getAllocationMXBean();
+
+    public QueryMetrics() {
+        this(false);
+    }
+
+    @Autowired
+    public QueryMetrics(@Value("${trains.metrics.jmx:true}") boolean registerMBeans) {
+        for (Command command : Command.values()) {
+            metricsByCommand.put(command, new CommandMetrics(command.getAlias()));
+        }
+        if (registerMBeans) {
+            registerMBeans();
+        }
+    }
+
+    public CommandMetricsMXBean getMetrics(Command command) {
+        return metricsByCommand.get(command);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or 0 when the JVM cannot tell.
+     */
+    long getAllocatedBytes() {
+        return allocationMXBean == null ? 0 : allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    void record(Command command, long nanos, QueryWork work, long numAllocatedBytes, Throwable error) {
+        metricsByCommand.get(command).record(nanos, work, numAllocatedBytes, error);
+    }
+
+    /**
+     * Returns a line for each command that has been queried, or an empty string if none has.
+     */
+    String describe() {
+        return metricsByCommand.values().stream()
+                .filter(metrics -> metrics.getQueryCount() > 0)
+                .map(CommandMetrics::describe)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (CommandMetrics metrics : metricsByCommand.values()) {
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + metrics.getCommand());
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(metrics, name);
+            } catch (JMException e) {
+                // Metrics are still kept and shown in the batch summary without JMX.
+            }
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        return allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled()
+                ? allocationMXBean
+                : null;
+    }
+}
@@ -0,0 +1,306 @@
+package com.trains.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.trains.exceptions.CommandLineErrorException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Answers routing commands over HTTP against route maps compiled once and held in memory, using
+ * the JDK's built-in HTTP server on a local address.
+ * <ul>
+ * <li>{@code GET /query?command=short&input=AD&map=default} runs a command</li>
+ * <li>{@code PUT /maps/<name>} with routes separated by whitespace in the body adds or
+ * replaces a route map</li>
+ * <li>{@code GET /maps} lists the route maps</li>
+ * <li>{@code POST /shutdown} stops the server</li>
+ * </ul>
+ * Commands run on a worker pool, virtual threads where the runtime has them and otherwise a
+ * fixed pool of platform threads, with at most {@code numWorkers} running at once, or one per
+ * processor if that is not above 0. At most {@code queueDepth} more may wait for a worker, and
+ * any further requests are turned away with 503 Service Unavailable straight away rather than
+ * queueing without limit. Uploaded route maps are parsed on the same worker pool, so the
+ * HTTP server's dispatcher thread never waits for a large upload.
+ */
+public class RoutingServer {
+
+    public static final String DEFAULT_ROUTE_MAP_NAME = "default";
+
+    private static final int OK = 200;
+    private static final int CREATED = 201;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_SERVER_ERROR = 500;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final InetSocketAddress address;
+    private final int numWorkers;
+    private final boolean usingVirtualThreads;
+    private final ExecutorService workers;
+    private final RouteMapFactory routeMapFactory;
+    private final CommandExecutor commandExecutor;
+    private final Map<String, RouteMap> routeMaps = new ConcurrentHashMap<>();
+    private final Semaphore runningPermits;
+    private final Semaphore inFlightPermits;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private HttpServer httpServer;
+
+    public RoutingServer(
+            InetSocketAddress address,
+            int numWorkers,
+            int queueDepth,
+            boolean useVirtualThreads,
+            RouteMapFactory routeMapFactory,
+            CommandExecutor commandExecutor
+    ) {
+        this.address = address;
+        this.numWorkers = numWorkers > 0 ? numWorkers : Runtime.getRuntime().availableProcessors();
+        ExecutorService virtualThreadExecutor = useVirtualThreads ? createVirtualThreadExecutor() : null;
+        this.usingVirtualThreads = virtualThreadExecutor != null;
+        this.workers = usingVirtualThreads ? virtualThreadExecutor : createPlatformThreadExecutor(this.numWorkers);
+        this.routeMapFactory = routeMapFactory;
+        this.commandExecutor = commandExecutor;
+        this.runningPermits = new Semaphore(this.numWorkers);
+        this.inFlightPermits = new Semaphore(this.numWorkers + Math.max(0, queueDepth));
+    }
+
+    public void addRouteMap(String name, RouteMap routeMap) {
+        routeMaps.put(name, routeMap);
+    }
+
+    public void start() throws IOException {
+        httpServer = HttpServer.create(address, 0);
+        httpServer.createContext("/query", this::handleQuery);
+        httpServer.createContext("/maps", this::handleMaps);
+        httpServer.createContext("/shutdown", this::handleShutdown);
+        httpServer.start();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return usingVirtualThreads;
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+        workers.shutdown();
+        stopped.countDown();
+    }
+
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, METHOD_NOT_ALLOWED, "Please use GET for queries.");
+            return;
+        }
+        submit(exchange, () -> answerQuery(exchange));
+    }
+
+    // Runs on the HTTP server's dispatcher thread, so only queues the work and never blocks.
+    private void submit(HttpExchange exchange, Supplier<Answer> work) throws IOException {
+        if (!inFlightPermits.tryAcquire()) {
+            respond(exchange, SERVICE_UNAVAILABLE, "Too many requests in progress, please try again later.");
+            return;
+        }
+
+        try {
+            workers.execute(() -> {
+                Answer answer;
+                try {
+                    runningPermits.acquireUninterruptibly();
+                    try {
+                        answer = work.get();
+                    } catch (RuntimeException e) {
+                        answer = new Answer(INTERNAL_SERVER_ERROR, "Could not answer the request: "
+                                + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()));
+                    } finally {
+                        runningPermits.release();
+                    }
+                } finally {
+                    inFlightPermits.release();
+                }
+                // Sent once the permits are back, so a client's next query is not turned away.
+                try {
+                    respond(exchange, answer.status, answer.body);
+                } catch (IOException e) {
+                    // The client has gone, so there is no one to tell.
+                } finally {
+                    exchange.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            respond(exchange, SERVICE_UNAVAILABLE, "The server is stopping.");
+        }
+    }
+
+    private Answer answerQuery(HttpExchange exchange) {
+        Map<String, String> parameters;
+        try {
+            parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            return new Answer(BAD_REQUEST, "Please URL-encode the query parameters.");
+        }
+        String command = parameters.get("command");
+        String input = parameters.get("input");
+        if (command == null || input == null) {
+            return new Answer(BAD_REQUEST, "Please give both a command and an input, eg. /query?command=short&input=AD.");
+        }
+
+        String mapName = parameters.getOrDefault("map", DEFAULT_ROUTE_MAP_NAME);
+        RouteMap routeMap = routeMaps.get(mapName);
+        if (routeMap == null) {
+            return new Answer(NOT_FOUND, "No such route map " + mapName + ".");
+        }
+
+        try {
+            return new Answer(OK, commandExecutor.execute(command, input, routeMap));
+        } catch (CommandLineErrorException e) {
+            return new Answer(BAD_REQUEST, e.getMessage());
+        } catch (NumberFormatException e) {
+            return new Answer(BAD_REQUEST, "Please enter a number no larger than " + Integer.MAX_VALUE + ".");
+        }
+    }
+
+    private void handleMaps(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.length() > "/maps/".length() ? path.substring("/maps/".length()) : "";
+
+        if ("GET".equals(exchange.getRequestMethod()) && name.isEmpty()) {
+            respond(exchange, OK, String.join("\n", new TreeSet<>(routeMaps.keySet())));
+        } else if ("PUT".equals(exchange.getRequestMethod()) && !name.isEmpty()) {
+            submit(exchange, () -> loadRouteMap(name, exchange));
+        } else {
+            respond(exchange, METHOD_NOT_ALLOWED, "Please use GET /maps or PUT /maps/<name>.");
+        }
+    }
+
+    private Answer loadRouteMap(String name, HttpExchange exchange) {
+        String body;
+        try {
+            body = readBody(exchange.getRequestBody()).trim();
+        } catch (IOException e) {
+            return new Answer(BAD_REQUEST, "Could not read the routes for route map " + name + ".");
+        }
+
+        try {
+            RouteMap routeMap = routeMapFactory.createRouteMap(Arrays.asList(body.isEmpty() ? new String[0] : body.split("\\s+")));
+            routeMaps.put(name, routeMap);
+            return new Answer(CREATED, "Loaded route map " + name + " with " + routeMap.getCities().size() + " cities.");
+        } catch (CommandLineErrorException e) {
+            return new Answer(BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void handleShutdown(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, METHOD_NOT_ALLOWED, "Please use POST to shut down.");
+            return;
+        }
+        respond(exchange, OK, "Stopping.");
+        new Thread(this::stop, "routing-server-shutdown").start();
+    }
+
+    private static ExecutorService createPlatformThreadExecutor(int numWorkers) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(numWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "routing-server-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Virtual threads arrived in Java 21 and the build targets Java 8, so look them up by name.
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(
+                        URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public interface CommandExecutor {
+
+        /**
+         * @throws CommandLineErrorException if the command or its input is not valid
+         */
+        String execute(String commandName, String commandInput, RouteMap routeMap);
+    }
+
+    private static final class Answer {
+
+        private final int status;
+        private final String body;
+
+        private Answer(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.trains.services;
+
+import com.trains.engines.QueryBudget;
+import com.trains.engines.QueryWork;
+import com.trains.enums.Command;
+import com.trains.exceptions.*;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.City;
+import com.trains.models.Route;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteGraphFile;
+import com.trains.models.RouteMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+@Service
+public class RoutingService {
+
+    private static final int COMMAND_NAME_ARG_INDEX = 0;
+    private static final int COMMAND_INPUT_ARG_INDEX = 1;
+    private static final int ROUTES_ARGS_STARTING_INDEX = 2;
+    private static final int MIN_NUM_ROUTES = 1;
+    private static final String BATCH_STANDARD_INPUT = "-";
+    private static final String ROUTE_FILE_PREFIX = "@";
+    private static final int MAX_PORT = 65535;
+    private static final Pattern LEADING_ZEROS = Pattern.compile(
+            "^([A-Z]{2}|" + City.NAME_REGEX + "-" + City.NAME_REGEX + ":)0+(?=\\d+$)");
+
+    private final RouteMapFactory routeMapFactory;
+    private final RouteFactory routeFactory;
+    private final BatchExecutor batchExecutor;
+    private final QueryCache queryCache;
+    private final QueryMetrics queryMetrics;
+    private final long queryTimeoutMillis;
+    private final long maxQueryExpansions;
+    private final int serverWorkers;
+    private final int serverQueueDepth;
+    private final boolean serverVirtualThreads;
+    private final Set<QueryBudget> runningQueryBudgets = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutDown;
+    private volatile RoutingServer runningServer;
+
+    public RoutingService(
+            RouteMapFactory routeMapFactory,
+            RouteFactory routeFactory
+    ) {
+        this(routeMapFactory, routeFactory, new QueryCache(0, 0), new QueryMetrics(), 1,
+                QueryBudget.UNLIMITED, QueryBudget.UNLIMITED, 0, 1024, true);
+    }
+
+    @Autowired
+    public RoutingService(
+            RouteMapFactory routeMapFactory,
+            RouteFactory routeFactory,
+            QueryCache queryCache,
+            QueryMetrics queryMetrics,
+            @Value("${trains.batch.parallelism:1}") int batchParallelism,
+            @Value("${trains.query.timeout-millis:0}") long queryTimeoutMillis,
+            @Value("${trains.query.max-expansions:0}") long maxQueryExpansions,
+            @Value("${trains.server.workers:0}") int serverWorkers,
+            @Value("${trains.server.queue-depth:1024}") int serverQueueDepth,
+            @Value("${trains.server.virtual-threads:true}") boolean serverVirtualThreads
+    ) {
+        if (queryTimeoutMillis < 0) {
+            throw new IllegalArgumentException("The trains.query.timeout-millis property must be 0 for no limit or a number of milliseconds.");
+        }
+        if (maxQueryExpansions < 0) {
+            throw new IllegalArgumentException("The trains.query.max-expansions property must be 0 for no limit or a number of unit routes.");
+        }
+        this.routeMapFactory = routeMapFactory;
+        this.routeFactory = routeFactory;
+        this.batchExecutor = new BatchExecutor(batchParallelism);
+        this.queryCache = queryCache;
+        this.queryMetrics = queryMetrics;
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        this.maxQueryExpansions = maxQueryExpansions;
+        this.serverWorkers = serverWorkers;
+        this.serverQueueDepth = serverQueueDepth;
+        this.serverVirtualThreads = serverVirtualThreads;
+    }
+
+    public String executeRoutingCommand(List<String> args) {
+        return executeRoutingCommand(args, System.out);
+    }
+
+    /**
+     * Executes the command given by the arguments and returns its result, except for a batch
+     * whose commands' results are written to the output stream line by line as they complete,
+     * and which returns the number of commands executed followed by the query metrics of each
+     * command, and for the server which runs until it is shut down.
+     */
+    public String executeRoutingCommand(List<String> args, PrintStream out) {
+        if (args.size() < ROUTES_ARGS_STARTING_INDEX + MIN_NUM_ROUTES) {
+            return "Please enter at least 3 arguments.\n" +
+                    "Usage: java -jar <path/to/jar> <command> <command input> <route 1> (<route 2> ... <route N>)";
+        }
+
+        try {
+            Command command = Command.fromAlias(args.get(COMMAND_NAME_ARG_INDEX));
+            String commandInput = args.get(COMMAND_INPUT_ARG_INDEX);
+
+            List<String> routes = new ArrayList<>();
+            List<Path> routeFiles = new ArrayList<>();
+            for (String route : args.subList(ROUTES_ARGS_STARTING_INDEX, args.size())) {
+                if (route.startsWith(ROUTE_FILE_PREFIX)) {
+                    routeFiles.add(toRouteFilePath(route.substring(ROUTE_FILE_PREFIX.length())));
+                } else {
+                    routes.add(route);
+                }
+            }
+            RouteMap routeMap = routeMapFactory.createRouteMap(routes, routeFiles);
+
+            queryCache.load();
+            String result;
+            try {
+                result = executeLoadedCommand(command, commandInput, routeMap, out);
+            } catch (CommandLineErrorException e) {
+                result = e.getMessage();
+            }
+            // Reported after the command's own result or error rather than in place of it.
+            try {
+                queryCache.save();
+            } catch (QueryCacheException e) {
+                result += "\n" + e.getMessage();
+            }
+            return result;
+        } catch (CommandLineErrorException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String executeLoadedCommand(Command command, String commandInput, RouteMap routeMap, PrintStream out) {
+        if (command == Command.BATCH) {
+            long numCommands = executeBatch(commandInput, routeMap, out);
+            String metrics = queryMetrics.describe();
+            return "Executed " + numCommands + " commands."
+                    + (queryCache.isEnabled() ? " " + queryCache.describeStatistics() : "")
+                    + (metrics.isEmpty() ? "" : "\n" + metrics);
+        }
+        if (command == Command.SERVE) {
+            serve(commandInput, routeMap, out);
+            return "Server stopped.";
+        }
+        if (command == Command.COMPILE) {
+            return compile(commandInput, routeMap);
+        }
+        // A single command can only hit a cache that outlives the process, so otherwise skip
+        // fingerprinting the route graph for a key.
+        return executeCommand(command, commandInput, routeMap, queryCache.isPersistent());
+    }
+
+    /**
+     * Executes a single command against an already compiled route map, for callers such as the
+     * {@link RoutingServer} that keep route maps between commands.
+     *
+     * @throws CommandLineErrorException if the command or its input is not valid
+     */
+    public String executeCommand(String commandName, String commandInput, RouteMap routeMap) {
+        return executeCommand(Command.fromAlias(commandName), commandInput, routeMap, true);
+    }
+
+    /**
+     * Cancels the queries in progress and any started later, which end with a
+     * {@link QueryBudgetExceededException}, and stops the server if one is running. Called from
+     * another thread, such as a shutdown hook when the user presses Ctrl-C.
+     */
+    public void shutdown() {
+        shutDown = true;
+        cancelRunningQueries();
+        RoutingServer server = runningServer;
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private void cancelRunningQueries() {
+        runningQueryBudgets.forEach(QueryBudget::cancel);
+    }
+
+    private String compile(String file, RouteMap routeMap) {
+        Path path;
+        try {
+            path = Paths.get(file);
+        } catch (InvalidPathException e) {
+            throw new CompiledRouteFileException(file, CompiledRouteFileException.NOT_WRITTEN);
+        }
+
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+        RouteGraphFile.save(routeGraph, path, true);
+        return "Compiled " + routeGraph.getCityCount() + " cities and " + routeGraph.getUnitRouteCount()
+                + " routes into " + file + ".";
+    }
+
+    private void serve(String portInput, RouteMap routeMap, PrintStream out) {
+        int port;
+        try {
+            port = Integer.parseInt(portInput);
+        } catch (NumberFormatException e) {
+            throw new InvalidServerPortException();
+        }
+        if (port < 0 || port > MAX_PORT) {
+            throw new InvalidServerPortException();
+        }
+
+        RoutingServer server = new RoutingServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                serverWorkers,
+                serverQueueDepth,
+                serverVirtualThreads,
+                routeMapFactory,
+                this::executeCommand);
+        server.addRouteMap(RoutingServer.DEFAULT_ROUTE_MAP_NAME, routeMap);
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new ServerStartException(port);
+        }
+
+        out.println("Listening on http://localhost:" + server.getPort() + "/query");
+        out.flush();
+        runningServer = server;
+        try {
+            if (shutDown) {
+                server.stop();
+            }
+            server.awaitStop();
+        } catch (InterruptedException e) {
+            server.stop();
+            Thread.currentThread().interrupt();
+        } finally {
+            runningServer = null;
+            cancelRunningQueries();
+        }
+    }
+
+    private static Path toRouteFilePath(String routeFile) {
+        try {
+            return Paths.get(routeFile);
+        } catch (InvalidPathException e) {
+            throw new RouteFileException(routeFile);
+        }
+    }
+
+    private long executeBatch(String source, RouteMap routeMap, PrintStream out) {
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)));
+        try (BufferedReader commands = BATCH_STANDARD_INPUT.equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(source))) {
+            return batchExecutor.execute(commands, line -> executeBatchCommand(line, routeMap), writer);
+        } catch (IOException | InvalidPathException e) {
+            throw new BatchInputException(source);
+        } finally {
+            writer.flush();
+        }
+    }
+
+    private String executeBatchCommand(String line, RouteMap routeMap) {
+        try {
+            String[] commandArgs = line.trim().split("\\s+");
+            if (commandArgs.length != 2) {
+                throw new InvalidBatchCommandException();
+            }
+            return executeCommand(commandArgs[0], commandArgs[1], routeMap);
+        } catch (CommandLineErrorException e) {
+            // Keep to one line of output per command.
+            return e.getMessage().replace('\n', ' ');
+        } catch (RuntimeException e) {
+            // One bad line must not lose the results of every line after it.
+            return (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()).replace('\n', ' ');
+        }
+    }
+
+    /**
+     * Executes the command within the query timeout and expansion budget, answering it from
+     * the query cache if asked to, and records its latency, work and any error in the query
+     * metrics.
+     */
+    private String executeCommand(Command command, String commandInput, RouteMap routeMap, boolean useQueryCache) {
+        long startNanos = System.nanoTime();
+        long startAllocatedBytes = queryMetrics.getAllocatedBytes();
+        QueryWork work = QueryWork.start();
+        QueryBudget budget = QueryBudget.start(new QueryBudget(queryTimeoutMillis, maxQueryExpansions));
+        runningQueryBudgets.add(budget);
+        if (shutDown) {
+            budget.cancel();
+        }
+        RuntimeException error = null;
+        try {
+            return useQueryCache
+                    ? executeCachedCommand(command, commandInput, routeMap)
+                    : runCommand(command, commandInput, routeMap);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            runningQueryBudgets.remove(budget);
+            QueryBudget.end();
+            queryMetrics.record(command, System.nanoTime() - startNanos, work,
+                    queryMetrics.getAllocatedBytes() - startAllocatedBytes, error);
+        }
+    }
+
+    /**
+     * Answers the command from the query cache when it has been seen before for a route map
+     * with the same routes. Only results are cached, never errors, and not apsp whose point is
+     * writing the distance matrix file.
+     */
+    private String executeCachedCommand(Command command, String commandInput, RouteMap routeMap) {
+        if (!queryCache.isEnabled() || command == Command.SHORTEST_ROUTE_WITH_DISTANCE_MATRIX) {
+            return runCommand(command, commandInput, routeMap);
+        }
+
+        String key = routeMap.getRouteGraph().getFingerprint() + '\n' + command.getAlias() + '\n'
+                + LEADING_ZEROS.matcher(commandInput).replaceFirst("$1");
+        Optional<String> cachedResult = queryCache.get(key);
+        if (cachedResult.isPresent()) {
+            return cachedResult.get();
+        }
+
+        String result = runCommand(command, commandInput, routeMap);
+        queryCache.put(key, result);
+        return result;
+    }
+
+    private String runCommand(Command command, String commandInput, RouteMap routeMap) {
+        switch (command) {
+            case DISTANCE_OF_ROUTE:
+                Route route = routeFactory.createRoute(commandInput, routeMap);
+                return Integer.toString(route.calculateDistance());
+            case SHORTEST_ROUTE:
+                Route shortestRoute = routeFactory.createShortestRoute(commandInput, routeMap);
+                return Integer.toString(shortestRoute.calculateDistance());
+            case SHORTEST_ROUTE_WITH_CONTRACTION_HIERARCHY:
+                Route contractedShortestRoute = routeFactory.createShortestRouteWithContractionHierarchy(commandInput, routeMap);
+                return Integer.toString(contractedShortestRoute.calculateDistance());
+            case SHORTEST_ROUTE_WITH_LANDMARKS:
+                Route landmarkShortestRoute = routeFactory.createShortestRouteWithLandmarks(commandInput, routeMap);
+                return Integer.toString(landmarkShortestRoute.calculateDistance());
+            case SHORTEST_ROUTE_WITH_DISTANCE_MATRIX:
+                Route matrixShortestRoute = routeFactory.createShortestRouteWithDistanceMatrix(commandInput, routeMap);
+                return Integer.toString(matrixShortestRoute.calculateDistance());
+            case NUMBER_OF_ROUTES_WITH_STOPS:
+                long numRoutesWithStops = routeFactory.countAllRoutesWithExactStops(commandInput, routeMap);
+                return Long.toString(numRoutesWithStops);
+            case NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS:
+                long numRoutesWithMaxStops = routeFactory.countAllRoutesWithMaxStops(commandInput, routeMap);
+                return Long.toString(numRoutesWithMaxStops);
+            case NUMBER_OF_ROUTES_WITH_MAXIMUM_DISTANCE:
+                long numRoutesWithMaxDistance = routeFactory.countAllRoutesWithMaxDistance(commandInput, routeMap);
+                return Long.toString(numRoutesWithMaxDistance);
+            case BATCH:
+                throw new InvalidBatchCommandException();
+            case SERVE:
+            case COMPILE:
+                throw new CommandLineOnlyException(command.getAlias());
+            default:
+                return "Command not yet implemented.";
+        }
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -153,6 +155,64 @@ public class AppTest {
         assertThatOutputEquals("9");
     }
 
+    @Test
+    public void TheLengthOfTheShortestRouteFromAToCShouldBe9WhenLookedUpInAPrecomputedDistanceMatrix() throws Exception {
+        // given
+        Path cacheDirectory = Files.createTempDirectory("trains-apsp");
+        String cacheDirectoryArg = "--trains.apsp.cache-directory=" + cacheDirectory;
+        String[] precomputeArgs = generateArgs(new String[]{"apsp", "AB", cacheDirectoryArg});
+        String[] args = generateArgs(new String[]{"short", "AC", cacheDirectoryArg});
+
+        // when
+        App.main(precomputeArgs);
+        App.main(args);
+
+        // then
+        assertThatOutputEquals("5");
+        assertThatOutputEquals("9");
+        try (Stream<Path> cacheFiles = Files.list(cacheDirectory)) {
+            assertThat(cacheFiles.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void BatchModeShouldAnswerEveryCommandInOrder() throws Exception {
+        // given
+        Path commands = Files.createTempFile("trains-batch", ".txt");
+        Files.write(commands, Arrays.asList("dist ABC", "short AC", "maxstops CC3", "stops AC4", "maxdist CC30"));
+        String[] args = generateArgs(new String[]{"batch", commands.toString(), "--trains.batch.parallelism=4"});
+
+        // when
+        App.main(args);
+
+        // then
+        assertThat(outContent.toString()).startsWith(String.join(System.lineSeparator(), "9", "9", "2", "3", "7"));
+        assertThatOutputEquals("Executed 5 commands. Query cache: 0 hits, 5 misses, 0 evictions.");
+        Files.delete(commands);
+    }
+
+    @Test
+    public void QueryCacheFileShouldAnswerRepeatedQueriesOnTheSameRoutesInAnyOrder() throws Exception {
+        // given
+        Path cacheDirectory = Files.createTempDirectory("trains-queries");
+        String cacheFileArg = "--trains.query-cache.file=" + cacheDirectory.resolve("queries.cache");
+        Path commands = Files.createTempFile("trains-batch", ".txt");
+        Files.write(commands, Arrays.asList("short AC", "maxdist CC030"));
+        String[] reversedGraphArgs = IntStream.range(0, GRAPH_ARGS.length)
+                .mapToObj(i -> GRAPH_ARGS[GRAPH_ARGS.length - 1 - i])
+                .toArray(String[]::new);
+
+        // when
+        App.main(generateArgs(new String[]{"short", "AC", cacheFileArg}));
+        App.main(generateArgs(new String[]{"maxdist", "CC30", cacheFileArg}));
+        App.main(Stream.of(new String[]{"batch", commands.toString(), cacheFileArg}, reversedGraphArgs)
+                .flatMap(Stream::of).toArray(String[]::new));
+
+        // then
+        assertThatOutputEquals("Executed 2 commands. Query cache: 2 hits, 0 misses, 0 evictions.");
+        Files.delete(commands);
+    }
+
     @Test
     public void TheNumberOfDifferentRoutesFromCToCWithADistanceLessThan30ShouldBe7() {
         // given
@@ -166,6 +226,50 @@ public class AppTest {
         assertThatOutputEquals("7");
     }
 
+    @Test
+    public void TheDistanceOfRouteKGXEDBGLCShouldBe707() {
+        // given
+        String[] args = {"dist", "KGX-EDB-GLC", "KGX-EDB:632", "EDB-GLC:75", "GLC-KGX:640"};
+
+        // when
+        App.main(args);
+
+        // then
+        assertThatOutputEquals("707");
+    }
+
+    @Test
+    public void TheDistanceOfRouteABCShouldBe9WhenTheRoutesAreInAFile() throws Exception {
+        // given
+        Path routeFile = Files.createTempFile("trains-routes", ".txt");
+        Files.write(routeFile, Arrays.asList(GRAPH_ARGS));
+        String[] args = {"dist", "ABC", "@" + routeFile};
+
+        // when
+        App.main(args);
+
+        // then
+        assertThatOutputEquals("9");
+        Files.delete(routeFile);
+    }
+
+    @Test
+    public void TheLengthOfTheShortestRouteFromAToCShouldBe9WhenTheRoutesAreCompiled() throws Exception {
+        // given
+        Path compiledRouteFile = Files.createTempDirectory("trains-compiled").resolve("routes.trains");
+        String[] compileArgs = generateArgs(new String[]{"compile", compiledRouteFile.toString()});
+        String[] args = {"short", "AC", "@" + compiledRouteFile};
+
+        // when
+        App.main(compileArgs);
+        App.main(args);
+
+        // then
+        assertThatOutputEquals("Compiled 5 cities and 9 routes into " + compiledRouteFile + ".");
+        assertThatOutputEquals("9");
+        Files.delete(compiledRouteFile);
+    }
+
     private String[] generateArgs(String[] commandArgs) {
         return Stream.of(commandArgs, GRAPH_ARGS).flatMap(Stream::of).toArray(String[]::new);
     }
@@ -0,0 +1,109 @@
+package com.trains;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class FastAppTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final PrintStream originalOut = System.out;
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+    @Before
+    public void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @After
+    public void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void FastAppOutputShouldBeIdenticalToAppOutput() {
+        // given
+        String[][] commands = {
+                {"dist", "ABC"},
+                {"dist", "AED"},
+                {"short", "BB"},
+                {"altshort", "AC"},
+                {"stops", "AC4"},
+                {"maxdist", "CC30"},
+                {"short", "AZ"},
+                {"bogus", "AB"},
+                {"dist"}
+        };
+
+        for (String[] commandArgs : commands) {
+            String[] args = generateArgs(commandArgs);
+
+            // when
+            App.main(args);
+            String appOutput = takeOutput();
+            FastApp.main(args);
+            String fastAppOutput = takeOutput();
+
+            // then
+            assertThat(fastAppOutput).isEqualTo(appOutput);
+        }
+    }
+
+    @Test
+    public void loadPropertiesShouldLetArgumentsOverrideApplicationProperties() {
+        // given
+        String[] args = {"short", "AC", "--trains.landmarks.count=16", "AB5"};
+
+        // when
+        Properties properties = FastApp.loadProperties(args);
+
+        // then
+        assertThat(properties.getProperty("trains.landmarks.count")).isEqualTo("16");
+        assertThat(properties.getProperty("trains.landmarks.selection")).isEqualTo("FARTHEST");
+    }
+
+    @Test
+    public void loadPropertiesShouldTurnOffJmxUnlessGivenAsAnArgument() {
+        // when
+        Properties properties = FastApp.loadProperties("short", "AC", "AB5");
+        Properties jmxProperties = FastApp.loadProperties("short", "AC", "--trains.metrics.jmx=true", "AB5");
+
+        // then
+        assertThat(properties.getProperty("trains.metrics.jmx")).isEqualTo("false");
+        assertThat(jmxProperties.getProperty("trains.metrics.jmx")).isEqualTo("true");
+    }
+
+    @Test
+    public void createRoutingServiceShouldRejectAMissingProperty() {
+        // given
+        Properties properties = FastApp.loadProperties();
+        properties.remove("trains.server.queue-depth");
+
+        // when, then
+        assertThatThrownBy(() -> FastApp.createRoutingService(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing property trains.server.queue-depth in /application.properties");
+    }
+
+    private String takeOutput() {
+        String output = outContent.toString();
+        outContent.reset();
+        return output;
+    }
+
+    private String[] generateArgs(String[] commandArgs) {
+        return Stream.of(commandArgs, GRAPH_ARGS).flatMap(Stream::of).toArray(String[]::new);
+    }
+}
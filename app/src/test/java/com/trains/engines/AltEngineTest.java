@@ -0,0 +1,66 @@
+package com.trains.engines;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class AltEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final AltEngine altEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public AltEngineTest() {
+        this.altEngine = new AltEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestRoute() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        int[] result = altEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'));
+
+        // then
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(9);
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestCycleBackToOrigin() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        int cityB = routeGraph.getCityId('B');
+
+        // when
+        int[] result = altEngine.findShortestRoute(routeGraph, cityB, cityB);
+
+        // then
+        assertThat(result).containsExactly(cityB, routeGraph.getCityId('C'), routeGraph.getCityId('E'), cityB);
+    }
+
+    @Test(expected = NoSuchRouteException.class)
+    public void findShortestRouteShouldThrowNoSuchRouteExceptionIfUnreachable() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        altEngine.findShortestRoute(routeGraph, routeGraph.getCityId('B'), routeGraph.getCityId('A'));
+    }
+
+    @Test
+    public void findShortestRouteShouldMatchDijkstraOnRandomMaps() {
+        ShortestPathAssertions.assertMatchesDijkstraOnRandomMaps(50, altEngine, new AltEngine(2, LandmarkSelection.RANDOM));
+    }
+}
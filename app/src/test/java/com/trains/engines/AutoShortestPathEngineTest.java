@@ -0,0 +1,67 @@
+package com.trains.engines;
+
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.City;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class AutoShortestPathEngineTest {
+
+    private final AutoShortestPathEngine autoShortestPathEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public AutoShortestPathEngineTest() {
+        this.autoShortestPathEngine = new AutoShortestPathEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void selectEngineShouldPickBucketQueueForSmallDistances() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC99", "CA1")).getRouteGraph();
+
+        // when
+        ShortestPathEngine result = autoShortestPathEngine.selectEngine(routeGraph);
+
+        // then
+        assertThat(result).isInstanceOf(DialEngine.class);
+    }
+
+    @Test
+    public void selectEngineShouldPickDijkstraForLargeDistances() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC100000", "CA1")).getRouteGraph();
+
+        // when
+        ShortestPathEngine result = autoShortestPathEngine.selectEngine(routeGraph);
+
+        // then
+        assertThat(result).isInstanceOf(DijkstraEngine.class);
+    }
+
+    @Test
+    public void selectEngineShouldPickBidirectionalSearchForLargeMaps() {
+        // given
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < AutoShortestPathEngine.MIN_BIDIRECTIONAL_CITY_COUNT; i++) {
+            cities.add(new City((char) (0x100 + i), new HashSet<>()));
+        }
+        RouteGraph routeGraph = new RouteGraph(cities);
+
+        // when
+        ShortestPathEngine result = autoShortestPathEngine.selectEngine(routeGraph);
+
+        // then
+        assertThat(result).isInstanceOf(BidirectionalDijkstraEngine.class);
+    }
+}
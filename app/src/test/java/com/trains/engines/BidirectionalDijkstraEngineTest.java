@@ -0,0 +1,86 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class BidirectionalDijkstraEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final BidirectionalDijkstraEngine bidirectionalDijkstraEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public BidirectionalDijkstraEngineTest() {
+        this.bidirectionalDijkstraEngine = new BidirectionalDijkstraEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestRoute() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        int[] result = bidirectionalDijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'));
+
+        // then
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(9);
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestCycleBackToOrigin() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        int cityB = routeGraph.getCityId('B');
+
+        // when
+        int[] result = bidirectionalDijkstraEngine.findShortestRoute(routeGraph, cityB, cityB);
+
+        // then
+        assertThat(result).containsExactly(cityB, routeGraph.getCityId('C'), routeGraph.getCityId('E'), cityB);
+    }
+
+    @Test(expected = NoSuchRouteException.class)
+    public void findShortestRouteShouldThrowNoSuchRouteExceptionIfUnreachable() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        bidirectionalDijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('B'), routeGraph.getCityId('A'));
+    }
+
+    @Test
+    public void findShortestRouteShouldJoinBothHalvesOfLongRoutes() {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (char city = 'A'; city < 'Z'; city++) {
+            routes.add("" + city + (char) (city + 1) + 1);
+        }
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(routes).getRouteGraph();
+
+        // when
+        int[] result = bidirectionalDijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('Z'));
+
+        // then
+        assertThat(result).hasSize(26);
+        for (int i = 0; i < result.length; i++) {
+            assertThat(result[i]).isEqualTo(routeGraph.getCityId((char) ('A' + i)));
+        }
+    }
+
+    @Test
+    public void findShortestRouteShouldMatchDijkstraOnRandomMaps() {
+        ShortestPathAssertions.assertMatchesDijkstraOnRandomMaps(50, bidirectionalDijkstraEngine);
+    }
+}
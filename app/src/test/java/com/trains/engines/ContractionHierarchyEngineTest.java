@@ -0,0 +1,119 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class ContractionHierarchyEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final ContractionHierarchyEngine contractionHierarchyEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public ContractionHierarchyEngineTest() {
+        this.contractionHierarchyEngine = new ContractionHierarchyEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestRoute() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        int[] result = contractionHierarchyEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'));
+
+        // then
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(9);
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestCycleBackToOrigin() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        int cityB = routeGraph.getCityId('B');
+
+        // when
+        int[] result = contractionHierarchyEngine.findShortestRoute(routeGraph, cityB, cityB);
+
+        // then
+        assertThat(result).containsExactly(cityB, routeGraph.getCityId('C'), routeGraph.getCityId('E'), cityB);
+    }
+
+    @Test(expected = NoSuchRouteException.class)
+    public void findShortestRouteShouldThrowNoSuchRouteExceptionIfUnreachable() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        contractionHierarchyEngine.findShortestRoute(routeGraph, routeGraph.getCityId('B'), routeGraph.getCityId('A'));
+    }
+
+    @Test
+    public void findShortestRouteShouldUnpackShortcutsIntoUnitRoutes() {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (char city = 'A'; city < 'Z'; city++) {
+            routes.add("" + city + (char) (city + 1) + 1);
+            routes.add("" + (char) (city + 1) + city + 2);
+        }
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(routes).getRouteGraph();
+
+        // when
+        int[] result = contractionHierarchyEngine.findShortestRoute(routeGraph, routeGraph.getCityId('Z'), routeGraph.getCityId('A'));
+
+        // then
+        assertThat(contractionHierarchyEngine.getContractionHierarchy(routeGraph).getShortcutCount()).isPositive();
+        assertThat(result).hasSize(26);
+        for (int i = 0; i < result.length; i++) {
+            assertThat(result[i]).isEqualTo(routeGraph.getCityId((char) ('Z' - i)));
+        }
+    }
+
+    @Test
+    public void getContractionHierarchyShouldBuildOncePerRouteGraph() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        ContractionHierarchy first = contractionHierarchyEngine.getContractionHierarchy(routeGraph);
+        ContractionHierarchy second = contractionHierarchyEngine.getContractionHierarchy(routeGraph);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(first.getPreprocessingNanos()).isPositive();
+    }
+
+    @Test
+    public void findShortestRouteShouldMatchDijkstraOnRandomMaps() {
+        ShortestPathAssertions.assertMatchesDijkstraOnRandomMaps(100, contractionHierarchyEngine);
+    }
+
+    @Test
+    public void getContractionHierarchyShouldCountItsPreprocessingInTheBuildingQueryOnly() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        QueryWork buildingWork = QueryWork.start();
+        ContractionHierarchy contractionHierarchy = contractionHierarchyEngine.getContractionHierarchy(routeGraph);
+
+        // when
+        QueryWork laterWork = QueryWork.start();
+        contractionHierarchyEngine.getContractionHierarchy(routeGraph);
+
+        // then
+        assertThat(buildingWork.getPreprocessingNanos()).isEqualTo(contractionHierarchy.getPreprocessingNanos());
+        assertThat(buildingWork.getShortcuts()).isEqualTo(contractionHierarchy.getShortcutCount());
+        assertThat(laterWork.getPreprocessingNanos()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,132 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class DijkstraEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final DijkstraEngine dijkstraEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public DijkstraEngineTest() {
+        this.dijkstraEngine = new DijkstraEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestRoute() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        int[] result = dijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'));
+
+        // then
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(9);
+        assertThat(result[0]).isEqualTo(routeGraph.getCityId('A'));
+        assertThat(result[result.length - 1]).isEqualTo(routeGraph.getCityId('C'));
+    }
+
+    @Test
+    public void findShortestRouteShouldFindShortestCycleBackToOrigin() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        int cityB = routeGraph.getCityId('B');
+
+        // when
+        int[] result = dijkstraEngine.findShortestRoute(routeGraph, cityB, cityB);
+
+        // then
+        assertThat(result).containsExactly(cityB, routeGraph.getCityId('C'), routeGraph.getCityId('E'), cityB);
+    }
+
+    @Test(expected = NoSuchRouteException.class)
+    public void findShortestRouteShouldThrowNoSuchRouteExceptionIfUnreachable() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        dijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('B'), routeGraph.getCityId('A'));
+    }
+
+    @Test
+    public void findShortestRouteShouldGiveSameAnswerWhenRepeatedOnSameMap() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+            for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                // when
+                Integer first = findShortestDistance(routeGraph, origin, destination);
+                Integer second = findShortestDistance(routeGraph, origin, destination);
+
+                // then
+                assertThat(second).isEqualTo(first);
+            }
+        }
+    }
+
+    @Test
+    public void findShortestRouteShouldHandleLongRoutesWithoutRecursion() {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (char city = 'A'; city < 'Z'; city++) {
+            routes.add("" + city + (char) (city + 1) + 1);
+        }
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(routes).getRouteGraph();
+
+        // when
+        int[] result = dijkstraEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('Z'));
+
+        // then
+        assertThat(result).hasSize(26);
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(25);
+    }
+
+    @Test
+    public void findShortestRouteShouldBeSafeToCallFromManyThreads() throws Exception {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 2000; i++) {
+            int origin = i % routeGraph.getCityCount();
+            int destination = (i / routeGraph.getCityCount()) % routeGraph.getCityCount();
+            results.add(executorService.submit(() -> findShortestDistance(routeGraph, origin, destination)));
+        }
+
+        // then
+        for (int i = 0; i < results.size(); i++) {
+            int origin = i % routeGraph.getCityCount();
+            int destination = (i / routeGraph.getCityCount()) % routeGraph.getCityCount();
+            assertThat(results.get(i).get()).isEqualTo(findShortestDistance(routeGraph, origin, destination));
+        }
+        executorService.shutdown();
+    }
+
+    private Integer findShortestDistance(RouteGraph routeGraph, int origin, int destination) {
+        try {
+            return routeGraph.calculateDistance(dijkstraEngine.findShortestRoute(routeGraph, origin, destination));
+        } catch (NoSuchRouteException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.trains.engines;
+
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class DistanceCountingEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final DistanceCountingEngine distanceCountingEngine;
+    private final RouteMapFactory routeMapFactory;
+    private final RouteFactory routeFactory;
+
+    public DistanceCountingEngineTest() {
+        this.distanceCountingEngine = new DistanceCountingEngine();
+        this.routeMapFactory = new RouteMapFactory();
+        this.routeFactory = new RouteFactory();
+    }
+
+    @Test
+    public void countRoutesWithMaxDistanceShouldCountRoutes() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 30);
+
+        // then
+        assertThat(result).isEqualTo(7);
+    }
+
+    @Test
+    public void countRoutesWithMaxDistanceShouldMatchEnumeratedRoutesForEveryPair() {
+        // given
+        RouteMap routeMap = routeMapFactory.createRouteMap(Arrays.asList("AB20", "BC40", "CA60", "BA80", "CD20", "DB40"));
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+
+        for (char origin = 'A'; origin <= 'D'; origin++) {
+            for (char destination = 'A'; destination <= 'D'; destination++) {
+                String input = "" + origin + destination + 250;
+
+                // when
+                long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                        routeGraph, routeGraph.getCityId(origin), routeGraph.getCityId(destination), 250);
+
+                // then
+                assertThat(result).isEqualTo(routeFactory.createAllRoutesWithMaxDistance(input, routeMap).size());
+            }
+        }
+    }
+
+    @Test
+    public void countRoutesWithMaxDistanceShouldMatchEnumeratedRoutesWithSparseLevels() {
+        // given
+        RouteMap routeMap = routeMapFactory.createRouteMap(Arrays.asList(
+                "AB2000001", "BC4000000", "CA6000000", "BA8000000", "CD2000000", "DB4000000"));
+        RouteGraph routeGraph = routeMap.getRouteGraph();
+
+        for (char origin = 'A'; origin <= 'D'; origin++) {
+            for (char destination = 'A'; destination <= 'D'; destination++) {
+                String input = "" + origin + destination + 25000000;
+
+                // when
+                long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                        routeGraph, routeGraph.getCityId(origin), routeGraph.getCityId(destination), 25000000);
+
+                // then
+                assertThat(result).isEqualTo(routeFactory.createAllRoutesWithMaxDistance(input, routeMap).size());
+            }
+        }
+    }
+
+    @Test
+    public void countRoutesWithMaxDistanceShouldCountRoutesWithLargeCoprimeDistances() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5000001", "BA3000000")).getRouteGraph();
+
+        // when
+        long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('B'), 20000000);
+
+        // then
+        assertThat(result).isEqualTo(2);
+    }
+
+    @Test(timeout = 5000)
+    public void countRoutesWithMaxDistanceShouldCountLargeBoundsOnCyclicMaps() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'), 300);
+
+        // then
+        assertThat(result).isGreaterThan(1000000);
+    }
+
+    @Test
+    public void countRoutesWithMaxDistanceShouldReturnZeroIfNoRoutes() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                routeGraph, routeGraph.getCityId('B'), routeGraph.getCityId('A'), 300);
+
+        // then
+        assertThat(result).isEqualTo(0);
+    }
+
+    @Test(timeout = 5000)
+    public void countRoutesWithMaxDistanceShouldStopOnceNoRouteCanGoFurther() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "CD8")).getRouteGraph();
+
+        // when
+        long result = distanceCountingEngine.countRoutesWithMaxDistance(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('D'), 2000000000);
+
+        // then
+        assertThat(result).isEqualTo(1);
+    }
+}
@@ -0,0 +1,192 @@
+package com.trains.engines;
+
+import com.trains.exceptions.DistanceMatrixTooLargeException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class DistanceMatrixEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final RouteMapFactory routeMapFactory;
+    private final DijkstraEngine dijkstraEngine;
+
+    public DistanceMatrixEngineTest() {
+        this.routeMapFactory = new RouteMapFactory();
+        this.dijkstraEngine = new DijkstraEngine();
+    }
+
+    @Test
+    public void findShortestRouteShouldMatchDijkstraAfterPrecomputing() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        DistanceMatrixEngine distanceMatrixEngine = new DistanceMatrixEngine(createCache(), mock(ShortestPathEngine.class));
+        distanceMatrixEngine.precompute(routeGraph);
+
+        for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+            for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                // when
+                Integer result = findShortestDistance(distanceMatrixEngine, routeGraph, origin, destination);
+
+                // then
+                assertThat(result).isEqualTo(findShortestDistance(dijkstraEngine, routeGraph, origin, destination));
+            }
+        }
+    }
+
+    @Test
+    public void findShortestRouteShouldLoadMatrixWrittenForSameRoutesInAnotherOrder() {
+        // given
+        DistanceMatrixCache distanceMatrixCache = createCache();
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        new DistanceMatrixEngine(distanceMatrixCache, dijkstraEngine).precompute(routeGraph);
+
+        String[] reversedArgs = GRAPH_ARGS.clone();
+        Collections.reverse(Arrays.asList(reversedArgs));
+        RouteGraph sameRouteGraph = routeMapFactory.createRouteMap(Arrays.asList(reversedArgs)).getRouteGraph();
+        ShortestPathEngine fallbackEngine = mock(ShortestPathEngine.class);
+        DistanceMatrixEngine distanceMatrixEngine = new DistanceMatrixEngine(distanceMatrixCache, fallbackEngine);
+
+        // when
+        int[] result = distanceMatrixEngine.findShortestRoute(sameRouteGraph, sameRouteGraph.getCityId('B'), sameRouteGraph.getCityId('B'));
+
+        // then
+        assertThat(sameRouteGraph.calculateDistance(result)).isEqualTo(9);
+        verifyZeroInteractions(fallbackEngine);
+    }
+
+    @Test
+    public void findShortestRouteShouldFallBackIfNothingPrecomputed() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        DistanceMatrixEngine distanceMatrixEngine = new DistanceMatrixEngine(createCache(), dijkstraEngine);
+
+        // when
+        int[] result = distanceMatrixEngine.findShortestRoute(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'));
+
+        // then
+        assertThat(routeGraph.calculateDistance(result)).isEqualTo(9);
+        assertThat(temporaryFolder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void loadShouldNotFingerprintTheGraphWhenTheDirectoryHasNoCacheFiles() {
+        // given
+        RouteGraph routeGraph = mock(RouteGraph.class);
+        when(routeGraph.getCityCount()).thenReturn(3);
+
+        // when
+        boolean result = createCache().load(routeGraph).isPresent();
+
+        // then
+        assertThat(result).isFalse();
+        verify(routeGraph, never()).getFingerprint();
+    }
+
+    @Test
+    public void loadShouldTreatCorruptCacheFileAsMiss() throws Exception {
+        // given
+        DistanceMatrixCache distanceMatrixCache = createCache();
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        Path cacheFile = distanceMatrixCache.getCacheFile(routeGraph);
+        Files.write(cacheFile, new byte[]{1, 2, 3});
+
+        // when
+        boolean result = distanceMatrixCache.load(routeGraph).isPresent();
+
+        // then
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    public void loadShouldTreatACacheFileWithAFlippedBitAsMiss() throws Exception {
+        // given
+        DistanceMatrixCache distanceMatrixCache = createCache();
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        new DistanceMatrixEngine(distanceMatrixCache, dijkstraEngine).precompute(routeGraph);
+        Path cacheFile = distanceMatrixCache.getCacheFile(routeGraph);
+        byte[] bytes = Files.readAllBytes(cacheFile);
+        bytes[bytes.length - 20] ^= 1;
+        Files.write(cacheFile, bytes);
+
+        // when
+        boolean result = distanceMatrixCache.load(routeGraph).isPresent();
+
+        // then
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    public void hasValidRoutesShouldRejectPredecessorsThatGoRoundACycleOrOutOfRange() {
+        // given
+        long unreachable = DistanceMatrix.UNREACHABLE;
+        long[] distances = {unreachable, 4, 2, unreachable, unreachable, unreachable, unreachable, unreachable, unreachable};
+        DistanceMatrix cyclic = new DistanceMatrix(3, distances, new int[]{-1, 2, 1, -1, -1, -1, -1, -1, -1});
+        DistanceMatrix outOfRange = new DistanceMatrix(3, distances, new int[]{-1, 7, 0, -1, -1, -1, -1, -1, -1});
+        DistanceMatrix valid = new DistanceMatrix(3, distances, new int[]{-1, 2, 0, -1, -1, -1, -1, -1, -1});
+
+        // when, then
+        assertThat(cyclic.hasValidRoutes()).isFalse();
+        assertThat(outOfRange.hasValidRoutes()).isFalse();
+        assertThat(valid.hasValidRoutes()).isTrue();
+        assertThat(valid.findShortestRoute(0, 1)).containsExactly(0, 2, 1);
+    }
+
+    @Test(expected = DistanceMatrixTooLargeException.class)
+    public void precomputeShouldRejectAGraphWhoseMatrixWouldNotFitInAnArray() {
+        // given
+        RouteGraph routeGraph = mock(RouteGraph.class);
+        when(routeGraph.getCityCount()).thenReturn(DistanceMatrix.MAX_CITIES + 1);
+        DistanceMatrixEngine distanceMatrixEngine = new DistanceMatrixEngine(createCache(), dijkstraEngine);
+
+        // when
+        distanceMatrixEngine.precompute(routeGraph);
+    }
+
+    @Test
+    public void precomputeShouldRejectAGraphWhoseMatrixWouldNotFitInTheHeap() {
+        // given
+        RouteGraph routeGraph = mock(RouteGraph.class);
+        when(routeGraph.getCityCount()).thenReturn(DistanceMatrix.getMaxCities() + 1);
+        DistanceMatrixEngine distanceMatrixEngine = new DistanceMatrixEngine(createCache(), dijkstraEngine);
+
+        // when, then
+        assertThat((double) DistanceMatrix.getMaxCities()).isLessThanOrEqualTo(Math.sqrt(Runtime.getRuntime().maxMemory() / 12.0));
+        assertThatThrownBy(() -> distanceMatrixEngine.precompute(routeGraph)).isInstanceOf(DistanceMatrixTooLargeException.class);
+    }
+
+    private DistanceMatrixCache createCache() {
+        return new DistanceMatrixCache(temporaryFolder.getRoot().toPath());
+    }
+
+    private Integer findShortestDistance(ShortestPathEngine engine, RouteGraph routeGraph, int origin, int destination) {
+        try {
+            return routeGraph.calculateDistance(engine.findShortestRoute(routeGraph, origin, destination));
+        } catch (NoSuchRouteException e) {
+            return null;
+        }
+    }
+}
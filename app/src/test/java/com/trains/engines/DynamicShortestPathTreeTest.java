@@ -0,0 +1,152 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchCityException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class DynamicShortestPathTreeTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+    private static final int NUM_CITIES = 15;
+
+    private final RouteMapFactory routeMapFactory;
+    private final RouteFactory routeFactory;
+
+    public DynamicShortestPathTreeTest() {
+        this.routeMapFactory = new RouteMapFactory();
+        this.routeFactory = new RouteFactory();
+    }
+
+    @Test
+    public void getDistanceShouldGiveShortestDistancesIncludingTheShortestCycle() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(routeGraph, "B");
+
+        // then
+        assertThat(tree.getDistance("C")).isEqualTo(4);
+        assertThat(tree.getDistance("B")).isEqualTo(9);
+        assertThat(tree.getDistance("A")).isEqualTo(DynamicShortestPathTree.UNREACHABLE);
+        assertThat(tree.findShortestRoute(routeGraph.getCityId('B')))
+                .containsExactly(routeGraph.getCityId('B'), routeGraph.getCityId('C'), routeGraph.getCityId('E'), routeGraph.getCityId('B'));
+    }
+
+    @Test
+    public void reweightUnitRouteShouldTouchNoCitiesIfTheRouteIsNotInTheTree() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(routeGraph, "A");
+
+        // when
+        int result = tree.reweightUnitRoute("D", "C", 20);
+
+        // then
+        assertThat(result).isEqualTo(0);
+        assertThat(tree.getDistance("C")).isEqualTo(9);
+    }
+
+    @Test
+    public void removeUnitRouteShouldTouchOnlyTheSubtreeBelowIt() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(routeGraph, "A");
+
+        // when
+        int result = tree.removeUnitRoute("A", "B");
+
+        // then
+        assertThat(result).isEqualTo(2);
+        assertThat(tree.getDistance("B")).isEqualTo(10);
+        assertThat(tree.getDistance("C")).isEqualTo(13);
+        assertThat(tree.getLastTouchedCityCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void updatesShouldMatchRecomputingFromScratch() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 20; trial++) {
+            // given
+            Map<String, Integer> routes = new TreeMap<>();
+            for (int i = 0; i < NUM_CITIES; i++) {
+                routes.put("" + city(i) + city((i + 1) % NUM_CITIES), 1 + random.nextInt(20));
+            }
+            for (int i = 0; i < 2 * NUM_CITIES; i++) {
+                int origin = random.nextInt(NUM_CITIES);
+                int destination = random.nextInt(NUM_CITIES);
+                if (origin != destination) {
+                    routes.put("" + city(origin) + city(destination), random.nextInt(20));
+                }
+            }
+            String originCityName = city(random.nextInt(NUM_CITIES));
+            DynamicShortestPathTree tree = new DynamicShortestPathTree(createRouteMap(routes).getRouteGraph(), originCityName);
+
+            for (int update = 0; update < 100; update++) {
+                int origin = random.nextInt(NUM_CITIES);
+                int destination = random.nextInt(NUM_CITIES);
+                if (origin == destination) {
+                    continue;
+                }
+                String key = "" + city(origin) + city(destination);
+                int distance = random.nextInt(20);
+
+                // when
+                int touched;
+                if (!routes.containsKey(key)) {
+                    touched = tree.addUnitRoute(city(origin), city(destination), distance);
+                    routes.put(key, distance);
+                } else if (random.nextInt(3) == 0) {
+                    touched = tree.removeUnitRoute(city(origin), city(destination));
+                    routes.remove(key);
+                } else {
+                    touched = tree.reweightUnitRoute(city(origin), city(destination), distance);
+                    routes.put(key, distance);
+                }
+
+                // then
+                assertThat(touched).isBetween(0, NUM_CITIES);
+                RouteMap routeMap = createRouteMap(routes);
+                for (int i = 0; i < NUM_CITIES; i++) {
+                    assertThat(tree.getDistance(city(i)))
+                            .as("%s to %s after %d updates", originCityName, city(i), update)
+                            .isEqualTo(recompute(originCityName, city(i), routeMap));
+                }
+            }
+        }
+    }
+
+    private long recompute(String originCityName, String destinationCityName, RouteMap routeMap) {
+        try {
+            return routeFactory.createShortestRoute("" + originCityName + destinationCityName, routeMap).calculateDistance();
+        } catch (NoSuchRouteException | NoSuchCityException e) {
+            return DynamicShortestPathTree.UNREACHABLE;
+        }
+    }
+
+    private RouteMap createRouteMap(Map<String, Integer> routes) {
+        List<String> routeArgs = new ArrayList<>();
+        routes.forEach((key, distance) -> routeArgs.add(key + distance));
+        return routeMapFactory.createRouteMap(routeArgs);
+    }
+
+    private static String city(int i) {
+        return String.valueOf((char) ('A' + i));
+    }
+}
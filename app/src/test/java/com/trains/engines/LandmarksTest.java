@@ -0,0 +1,89 @@
+package com.trains.engines;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class LandmarksTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final RouteMapFactory routeMapFactory;
+    private final DijkstraEngine dijkstraEngine;
+
+    public LandmarksTest() {
+        this.routeMapFactory = new RouteMapFactory();
+        this.dijkstraEngine = new DijkstraEngine();
+    }
+
+    @Test
+    public void lowerBoundShouldNeverExceedShortestDistance() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        for (LandmarkSelection selection : LandmarkSelection.values()) {
+            Landmarks landmarks = new Landmarks(routeGraph, 2, selection, 1);
+
+            for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+                for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                    if (origin == destination) {
+                        continue;
+                    }
+
+                    // when
+                    long result = landmarks.lowerBound(origin, destination);
+
+                    // then
+                    try {
+                        int distance = routeGraph.calculateDistance(dijkstraEngine.findShortestRoute(routeGraph, origin, destination));
+                        assertThat(result).isLessThanOrEqualTo(distance);
+                    } catch (NoSuchRouteException e) {
+                        assertThat(result).isGreaterThanOrEqualTo(0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lowerBoundShouldBeUnreachableIfLandmarksShowNoRoute() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        Landmarks landmarks = new Landmarks(routeGraph, routeGraph.getCityCount(), LandmarkSelection.FARTHEST, 1);
+
+        // when
+        long result = landmarks.lowerBound(routeGraph.getCityId('B'), routeGraph.getCityId('A'));
+
+        // then
+        assertThat(result).isEqualTo(Landmarks.UNREACHABLE);
+    }
+
+    @Test
+    public void landmarksShouldBeDistinctCities() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        for (LandmarkSelection selection : LandmarkSelection.values()) {
+            // when
+            Landmarks landmarks = new Landmarks(routeGraph, 10, selection, 1);
+
+            // then
+            assertThat(landmarks.getLandmarkCount()).isEqualTo(routeGraph.getCityCount());
+            int[] landmarkCityIds = new int[landmarks.getLandmarkCount()];
+            for (int i = 0; i < landmarkCityIds.length; i++) {
+                landmarkCityIds[i] = landmarks.getLandmarkCityId(i);
+            }
+            assertThat(landmarkCityIds).containsOnly(0, 1, 2, 3, 4);
+            assertThat(Arrays.stream(landmarkCityIds).distinct().count()).isEqualTo(landmarkCityIds.length);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.trains.engines;
+
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.Route;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class ParallelRouteCounterTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final RouteGraph routeGraph;
+    private final ParallelRouteCounter parallelRouteCounter;
+
+    public ParallelRouteCounterTest() {
+        this.routeGraph = new RouteMapFactory().createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+        this.parallelRouteCounter = new ParallelRouteCounter(new ForkJoinPool(4));
+    }
+
+    @Test
+    public void countRoutesShouldMatchSequentialCount() {
+        // given
+        long expected = StreamSupport.stream(createSpliterator('A', 'C', 1, 12, Long.MAX_VALUE), false).count();
+
+        // when
+        long result = parallelRouteCounter.countRoutes(createSpliterator('A', 'C', 1, 12, Long.MAX_VALUE), null);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void countRoutesShouldOnlyCountRoutesMatchingPredicate() {
+        // given
+        Predicate<Route> passesThroughD = r -> r.getCities().stream().anyMatch(c -> "D".equals(c.getName()));
+        long expected = StreamSupport.stream(createSpliterator('C', 'C', 1, Integer.MAX_VALUE, 60), false)
+                .filter(passesThroughD)
+                .count();
+
+        // when
+        long result = parallelRouteCounter.countRoutes(createSpliterator('C', 'C', 1, Integer.MAX_VALUE, 60), passesThroughD);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void trySplitShouldPartitionRoutesInOrder() {
+        // given
+        List<String> expected = StreamSupport.stream(createSpliterator('A', 'E', 1, 8, Long.MAX_VALUE), false)
+                .map(this::toNames)
+                .collect(toList());
+
+        // when
+        List<String> result = StreamSupport.stream(createSpliterator('A', 'E', 1, 8, Long.MAX_VALUE), true)
+                .map(this::toNames)
+                .collect(toList());
+
+        // then
+        assertThat(result).isEqualTo(expected);
+    }
+
+    private RouteSpliterator createSpliterator(char origin, char destination, int minStops, int maxStops, long maxDistance) {
+        return new RouteSpliterator(routeGraph, routeGraph.getCityId(origin), routeGraph.getCityId(destination),
+                minStops, maxStops, maxDistance);
+    }
+
+    private String toNames(Route route) {
+        StringBuilder names = new StringBuilder();
+        route.getCities().forEach(c -> names.append(c.getName()));
+        return names.toString();
+    }
+}
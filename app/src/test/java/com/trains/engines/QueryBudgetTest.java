@@ -0,0 +1,124 @@
+package com.trains.engines;
+
+import com.trains.enums.DistanceDistribution;
+import com.trains.enums.Topology;
+import com.trains.exceptions.QueryBudgetExceededException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.generators.NetworkGenerator;
+import com.trains.models.RouteGraph;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class QueryBudgetTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final RouteGraph routeGraph;
+
+    public QueryBudgetTest() {
+        this.routeGraph = new RouteMapFactory().createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+    }
+
+    @After
+    public void endBudget() {
+        QueryBudget.end();
+    }
+
+    @Test
+    public void routeSpliteratorShouldStopWithPartialCountsWhenExpansionsRunOut() {
+        // given
+        QueryBudget.start(new QueryBudget(QueryBudget.UNLIMITED, 10_000));
+        RouteSpliterator routeSpliterator = new RouteSpliterator(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 1, Integer.MAX_VALUE, 1000);
+
+        // when
+        QueryBudgetExceededException exception = null;
+        try {
+            StreamSupport.stream(routeSpliterator, false).count();
+        } catch (QueryBudgetExceededException e) {
+            exception = e;
+        }
+
+        // then
+        assertThat(exception).isNotNull();
+        assertThat(exception.getMessage()).startsWith("Query budget exceeded, it may follow at most 10000 unit routes.");
+        assertThat(exception.getExpansionCount()).isGreaterThan(10_000);
+        assertThat(exception.getPartialRouteCount()).isGreaterThan(0);
+        assertThat(routeSpliterator.tryAdvance(route -> { })).isFalse();
+    }
+
+    @Test
+    public void stopCountingEngineShouldStopWhenTheDeadlineHasPassed() throws Exception {
+        // given
+        QueryBudget.start(new QueryBudget(1, QueryBudget.UNLIMITED));
+        Thread.sleep(5);
+
+        // when
+        QueryBudgetExceededException exception = null;
+        try {
+            new StopCountingEngine().countRoutesWithMaxStops(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'), 1_000_000);
+        } catch (QueryBudgetExceededException e) {
+            exception = e;
+        }
+
+        // then
+        assertThat(exception).isNotNull();
+        assertThat(exception.getMessage()).startsWith("Query budget exceeded, it may take at most 1 ms.");
+    }
+
+    @Test
+    public void parallelRouteCounterShouldStopWhenCancelledFromAnotherThread() throws Exception {
+        // given
+        QueryBudget budget = QueryBudget.start(new QueryBudget(QueryBudget.UNLIMITED, QueryBudget.UNLIMITED));
+        RouteSpliterator routeSpliterator = new RouteSpliterator(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 1, Integer.MAX_VALUE, 1_000_000);
+
+        // when
+        CompletableFuture<Long> count = CompletableFuture.supplyAsync(() ->
+                new ParallelRouteCounter().countRoutes(routeSpliterator, null));
+        Thread.sleep(50);
+        budget.cancel();
+        Throwable error = null;
+        try {
+            count.join();
+        } catch (RuntimeException e) {
+            error = e.getCause();
+        }
+
+        // then
+        assertThat(error).isInstanceOf(QueryBudgetExceededException.class);
+        assertThat(error.getMessage()).startsWith("Query budget exceeded, the query was cancelled.");
+    }
+
+    @Test
+    public void preprocessingShouldStopWhenCancelledAndBeRetriedByTheNextQuery() {
+        // given
+        RouteGraph largeRouteGraph = new RouteMapFactory().createRouteMap(
+                new NetworkGenerator(Topology.SPARSE, 400, 3, DistanceDistribution.UNIFORM, 1, 9, 1).generateRoutes())
+                .getRouteGraph();
+        ContractionHierarchyEngine contractionHierarchyEngine = new ContractionHierarchyEngine();
+        AltEngine altEngine = new AltEngine();
+        QueryBudget.start(new QueryBudget(QueryBudget.UNLIMITED, QueryBudget.UNLIMITED)).cancel();
+
+        // when, then
+        assertThatThrownBy(() -> contractionHierarchyEngine.getContractionHierarchy(largeRouteGraph))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageStartingWith("Query budget exceeded, the query was cancelled.");
+        assertThatThrownBy(() -> altEngine.getLandmarks(largeRouteGraph))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageStartingWith("Query budget exceeded, the query was cancelled.");
+        QueryBudget.end();
+        assertThat(contractionHierarchyEngine.getContractionHierarchy(largeRouteGraph)).isNotNull();
+        assertThat(altEngine.getLandmarks(largeRouteGraph).getLandmarkCount()).isEqualTo(AltEngine.DEFAULT_LANDMARK_COUNT);
+    }
+}
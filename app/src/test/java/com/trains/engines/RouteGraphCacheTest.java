@@ -0,0 +1,76 @@
+package com.trains.engines;
+
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class RouteGraphCacheTest {
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+
+    @Test
+    public void getShouldAnswerOtherGraphsWhileOneIsBeingWorkedOut() throws Exception {
+        // given
+        RouteGraphCache<String> cache = new RouteGraphCache<>();
+        RouteGraph slowGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4")).getRouteGraph();
+        RouteGraph fastGraph = routeMapFactory.createRouteMap(Arrays.asList("CD8")).getRouteGraph();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<String> slowValue = executorService.submit(() -> cache.get(slowGraph, graph -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        String fastValue = cache.get(fastGraph, graph -> "fast");
+        release.countDown();
+
+        // then
+        assertThat(fastValue).isEqualTo("fast");
+        assertThat(slowValue.get(10, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(cache.get(slowGraph, graph -> "again")).isEqualTo("slow");
+        executorService.shutdown();
+    }
+
+    @Test
+    public void getShouldWorkOutTheValueAgainAfterAFailure() {
+        // given
+        RouteGraphCache<String> cache = new RouteGraphCache<>();
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4")).getRouteGraph();
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            cache.get(routeGraph, graph -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("out of budget");
+            });
+        } catch (IllegalStateException e) {
+            // not kept
+        }
+
+        // when
+        String result = cache.get(routeGraph, graph -> "value" + attempts.incrementAndGet());
+
+        // then
+        assertThat(result).isEqualTo("value2");
+    }
+}
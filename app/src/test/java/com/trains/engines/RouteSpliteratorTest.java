@@ -0,0 +1,102 @@
+package com.trains.engines;
+
+import com.trains.enums.LandmarkSelection;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.City;
+import com.trains.models.Route;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class RouteSpliteratorTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+
+    private final RouteGraph routeGraph;
+
+    public RouteSpliteratorTest() {
+        this.routeGraph = new RouteMapFactory().createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+    }
+
+    @Test
+    public void tryAdvanceShouldEnumerateRoutesWithMaxDistanceInDepthFirstOrder() {
+        // given
+        RouteSpliterator routeSpliterator = new RouteSpliterator(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 1, Integer.MAX_VALUE, 30);
+
+        // when
+        List<String> result = StreamSupport.stream(routeSpliterator, false)
+                .map(this::toNames)
+                .collect(toList());
+
+        // then
+        assertThat(result).containsExactly(
+                "CDC", "CDCEBC", "CDEBC", "CEBC", "CEBCDC", "CEBCEBC", "CEBCEBCEBC");
+    }
+
+    @Test
+    public void tryAdvanceShouldEnumerateRoutesWithExactStops() {
+        // given
+        RouteSpliterator routeSpliterator = new RouteSpliterator(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'), 4, 4, Long.MAX_VALUE);
+
+        // when
+        List<String> result = StreamSupport.stream(routeSpliterator, false)
+                .map(this::toNames)
+                .collect(toList());
+
+        // then
+        assertThat(result).containsExactly("ABCDC", "ADCDC", "ADEBC");
+    }
+
+    @Test
+    public void tryAdvanceShouldFindSameRoutesWhenPrunedWithLandmarks() {
+        // given
+        Landmarks landmarks = new Landmarks(routeGraph, 2, LandmarkSelection.FARTHEST, 1);
+
+        for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+            for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                RouteSpliterator unpruned = new RouteSpliterator(routeGraph, origin, destination, 1, 8, 40);
+                RouteSpliterator pruned = new RouteSpliterator(routeGraph, origin, destination, 1, 8, 40, landmarks);
+
+                // when
+                List<String> result = StreamSupport.stream(pruned, false).map(this::toNames).collect(toList());
+
+                // then
+                assertThat(result).isEqualTo(StreamSupport.stream(unpruned, false).map(this::toNames).collect(toList()));
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void tryAdvanceShouldYieldRoutesLazilyForUnboundedSearches() {
+        // given
+        RouteSpliterator routeSpliterator = new RouteSpliterator(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'), 1, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        // when
+        long result = StreamSupport.stream(routeSpliterator, false)
+                .limit(1000)
+                .count();
+
+        // then
+        assertThat(result).isEqualTo(1000);
+    }
+
+    private String toNames(Route route) {
+        return route.getCities().stream()
+                .map(City::getName)
+                .map(String::valueOf)
+                .collect(joining());
+    }
+}
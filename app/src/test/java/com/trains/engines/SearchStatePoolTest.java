@@ -0,0 +1,55 @@
+package com.trains.engines;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class SearchStatePoolTest {
+
+    @Test
+    public void borrowShouldReuseAStateGivenBackOnAnotherThread() throws Exception {
+        // given
+        AtomicInteger numCreated = new AtomicInteger();
+        SearchStatePool<Object> pool = new SearchStatePool<>(() -> {
+            numCreated.incrementAndGet();
+            return new Object();
+        });
+        AtomicReference<Object> firstState = new AtomicReference<>();
+
+        // when
+        Thread thread = new Thread(() -> {
+            firstState.set(pool.borrow());
+            pool.giveBack(firstState.get());
+        });
+        thread.start();
+        thread.join();
+        Object secondState = pool.borrow();
+
+        // then
+        assertThat(secondState).isSameAs(firstState.get());
+        assertThat(numCreated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void borrowShouldNeverLendTheSameStateToTwoQueriesAtOnce() {
+        // given
+        SearchStatePool<Object> pool = new SearchStatePool<>(Object::new);
+
+        // when
+        Object firstState = pool.borrow();
+        Object secondState = pool.borrow();
+        pool.giveBack(firstState);
+        pool.giveBack(secondState);
+
+        // then
+        assertThat(secondState).isNotSameAs(firstState);
+        assertThat(pool.size()).isEqualTo(2);
+        assertThat(pool.borrow()).isSameAs(secondState);
+    }
+}
@@ -0,0 +1,62 @@
+package com.trains.engines;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks shortest path engines against {@link DijkstraEngine} for every pair of cities on the
+ * same seeded random maps of up to 12 cities.
+ */
+final class ShortestPathAssertions {
+
+    private static final RouteMapFactory routeMapFactory = new RouteMapFactory();
+
+    private ShortestPathAssertions() {
+    }
+
+    static void assertMatchesDijkstraOnRandomMaps(int numMaps, ShortestPathEngine... engines) {
+        Random random = new Random(42);
+        DijkstraEngine dijkstraEngine = new DijkstraEngine();
+
+        for (int map = 0; map < numMaps; map++) {
+            List<String> routes = new ArrayList<>();
+            for (char origin = 'A'; origin <= 'L'; origin++) {
+                for (char destination = 'A'; destination <= 'L'; destination++) {
+                    if (origin != destination && random.nextInt(4) == 0) {
+                        routes.add("" + origin + destination + random.nextInt(20));
+                    }
+                }
+            }
+            if (routes.isEmpty()) {
+                continue;
+            }
+            RouteGraph routeGraph = routeMapFactory.createRouteMap(routes).getRouteGraph();
+
+            for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+                for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                    Integer expected = findShortestDistance(dijkstraEngine, routeGraph, origin, destination);
+                    for (ShortestPathEngine engine : engines) {
+                        assertThat(findShortestDistance(engine, routeGraph, origin, destination))
+                                .as("%s from %d to %d", engine.getClass().getSimpleName(), origin, destination)
+                                .isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Integer findShortestDistance(ShortestPathEngine engine, RouteGraph routeGraph, int origin, int destination) {
+        try {
+            return routeGraph.calculateDistance(engine.findShortestRoute(routeGraph, origin, destination));
+        } catch (NoSuchRouteException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.trains.engines;
+
+import com.trains.exceptions.RouteCountMatrixTooLargeException;
+import com.trains.exceptions.RouteCountOverflowException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class StopCountingEngineTest {
+
+    private static final String[] GRAPH_ARGS = {"AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"};
+    private static final String[] COMPLETE_GRAPH_ARGS = {
+            "AB1", "AC1", "AD1", "BA1", "BC1", "BD1", "CA1", "CB1", "CD1", "DA1", "DB1", "DC1"
+    };
+
+    private final StopCountingEngine stopCountingEngine;
+    private final RouteMapFactory routeMapFactory;
+
+    public StopCountingEngineTest() {
+        this.stopCountingEngine = new StopCountingEngine();
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test
+    public void countRoutesWithExactStopsShouldCountRoutes() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long result = stopCountingEngine.countRoutesWithExactStops(
+                routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('C'), 4);
+
+        // then
+        assertThat(result).isEqualTo(3);
+    }
+
+    @Test
+    public void countRoutesWithMaxStopsShouldCountRoutes() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long result = stopCountingEngine.countRoutesWithMaxStops(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 3);
+
+        // then
+        assertThat(result).isEqualTo(2);
+    }
+
+    @Test
+    public void countRoutesShouldReturnZeroForZeroStops() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long exact = stopCountingEngine.countRoutesWithExactStops(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 0);
+        long max = stopCountingEngine.countRoutesWithMaxStops(
+                routeGraph, routeGraph.getCityId('C'), routeGraph.getCityId('C'), 0);
+
+        // then
+        assertThat(exact).isEqualTo(0);
+        assertThat(max).isEqualTo(0);
+    }
+
+    @Test
+    public void countAllRoutesShouldMatchSinglePairCounts() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long[][] exact = stopCountingEngine.countAllRoutesWithExactStops(routeGraph, 7);
+        long[][] max = stopCountingEngine.countAllRoutesWithMaxStops(routeGraph, 7);
+
+        // then
+        for (int origin = 0; origin < routeGraph.getCityCount(); origin++) {
+            for (int destination = 0; destination < routeGraph.getCityCount(); destination++) {
+                assertThat(exact[origin][destination])
+                        .isEqualTo(stopCountingEngine.countRoutesWithExactStops(routeGraph, origin, destination, 7));
+                assertThat(max[origin][destination])
+                        .isEqualTo(stopCountingEngine.countRoutesWithMaxStops(routeGraph, origin, destination, 7));
+            }
+        }
+    }
+
+    @Test
+    public void countRoutesWithExactStopsShouldCountBeyondIntRange() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(COMPLETE_GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        long[][] result = stopCountingEngine.countAllRoutesWithExactStops(routeGraph, 30);
+
+        // then
+        // Walks of length k between distinct vertices of K4 number (3^k - (-1)^k) / 4.
+        assertThat(result[routeGraph.getCityId('A')][routeGraph.getCityId('B')]).isEqualTo(51472783023662L);
+    }
+
+    @Test(expected = RouteCountOverflowException.class)
+    public void countRoutesWithMaxStopsShouldThrowRouteCountOverflowExceptionIfCountOverflows() {
+        // given
+        RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(COMPLETE_GRAPH_ARGS)).getRouteGraph();
+
+        // when
+        stopCountingEngine.countRoutesWithMaxStops(routeGraph, routeGraph.getCityId('A'), routeGraph.getCityId('B'), 60);
+    }
+
+    @Test(expected = RouteCountMatrixTooLargeException.class)
+    public void countAllRoutesWithExactStopsShouldRejectAGraphWhoseMatricesWouldNotFitInAnArray() {
+        // given
+        RouteGraph routeGraph = mock(RouteGraph.class);
+        when(routeGraph.getCityCount()).thenReturn(PairMatrices.MAX_CITIES + 1);
+
+        // when
+        stopCountingEngine.countAllRoutesWithExactStops(routeGraph, 3);
+    }
+}
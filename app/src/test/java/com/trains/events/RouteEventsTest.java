@@ -0,0 +1,75 @@
+package com.trains.events;
+
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class RouteEventsTest {
+
+    private static final List<String> ROUTES = Arrays.asList("AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7");
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void queriesShouldBeRecordedWithTheirParsedInputsAndBranches() throws Exception {
+        // given
+        Path recordingFile = temporaryFolder.getRoot().toPath().resolve("queries.jfr");
+        RouteFactory routeFactory = new RouteFactory();
+
+        // when
+        try (Recording recording = new Recording()) {
+            recording.enable("com.trains.RouteQuery").withThreshold(Duration.ZERO);
+            recording.enable("com.trains.ShortestPathPhase").withThreshold(Duration.ZERO);
+            recording.enable("com.trains.RouteBranch").withThreshold(Duration.ZERO);
+            recording.enable("com.trains.RouteMapPhase").withThreshold(Duration.ZERO);
+            recording.start();
+            RouteMap routeMap = new RouteMapFactory().createRouteMap(ROUTES);
+            routeFactory.createShortestRouteWithLandmarks("AC", routeMap);
+            routeFactory.createAllRoutesWithMaxStops("CC3", routeMap);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        // then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<String> queries = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.trains.RouteQuery"))
+                .map(event -> event.getString("query") + " " + event.getString("origin") + event.getString("destination")
+                        + " " + event.getLong("bound"))
+                .collect(Collectors.toList());
+        List<String> phases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.trains.ShortestPathPhase"))
+                .map(event -> event.getString("engine") + " " + event.getString("phase"))
+                .collect(Collectors.toList());
+        List<String> branches = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.trains.RouteBranch"))
+                .map(event -> event.getString("firstStop") + " " + event.getLong("routes"))
+                .collect(Collectors.toList());
+        List<String> routeMapPhases = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.trains.RouteMapPhase"))
+                .map(event -> event.getString("phase") + " " + event.getLong("routes"))
+                .collect(Collectors.toList());
+        assertThat(queries).containsOnly("altshort AC -1", "maxstops CC 3");
+        assertThat(phases).containsOnly("AltEngine landmarks", "AltEngine search");
+        assertThat(branches).containsOnly("D 1", "E 1");
+        assertThat(routeMapPhases).containsOnly("parse 9", "merge 9", "compile 9");
+    }
+}
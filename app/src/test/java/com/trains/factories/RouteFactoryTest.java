@@ -1,5 +1,7 @@
 package com.trains.factories;
 
+import com.trains.engines.AltEngine;
+import com.trains.engines.DijkstraEngine;
 import com.trains.exceptions.InvalidDistanceInputException;
 import com.trains.exceptions.NoSuchCityException;
 import com.trains.exceptions.NoSuchRouteException;
@@ -66,6 +68,26 @@ public class RouteFactoryTest {
         assertThat(result.calculateDistance()).isEqualTo(8);
     }
 
+    @Test
+    public void createRouteShouldCreateExistentRouteBetweenNamedCities() {
+        // given
+        String input = "KGX-EDB-GLC";
+        City kingsCross = new City("KGX", new HashSet<>());
+        City edinburgh = new City("EDB", new HashSet<>());
+        City glasgow = new City("GLC", new HashSet<>());
+        kingsCross.addUnitRoute(new UnitRoute(edinburgh, 632));
+        edinburgh.addUnitRoute(new UnitRoute(glasgow, 75));
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(kingsCross, edinburgh, glasgow)));
+
+        // when
+        Route result = routeFactory.createRoute(input, routeMap);
+
+        // then
+        assertThat(result.calculateDistance()).isEqualTo(707);
+        assertThat(routeFactory.createShortestRoute("KGX-GLC", routeMap).calculateDistance()).isEqualTo(707);
+        assertThat(routeFactory.countAllRoutesWithMaxStops("KGX-GLC:2", routeMap)).isEqualTo(1);
+    }
+
     @Test(expected = NoSuchRouteException.class)
     public void createRouteShouldCreateNonexistentRoute() {
         // given
@@ -104,6 +126,52 @@ public class RouteFactoryTest {
         assertThat(result.calculateDistance()).isEqualTo(10);
     }
 
+    @Test
+    public void createShortestRouteShouldReturnSameRouteWhenQueriedTwice() {
+        // given
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityA.addUnitRoute(new UnitRoute(cityC, 9));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        // when
+        Route first = routeFactory.createShortestRoute("AA", routeMap);
+        Route second = routeFactory.createShortestRoute("AA", routeMap);
+        Route third = routeFactory.createShortestRoute("AC", routeMap);
+
+        // then
+        assertThat(first.calculateDistance()).isEqualTo(12);
+        assertThat(second.getCities()).containsExactly(cityA, cityB, cityC, cityA);
+        assertThat(third.calculateDistance()).isEqualTo(8);
+    }
+
+    @Test
+    public void createShortestRouteWithContractionHierarchyShouldMatchCreateShortestRoute() {
+        // given
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityA.addUnitRoute(new UnitRoute(cityC, 9));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        for (String input : Arrays.asList("AA", "AB", "AC", "BA", "BB", "BC", "CA", "CB", "CC")) {
+            // when
+            Route result = routeFactory.createShortestRouteWithContractionHierarchy(input, routeMap);
+
+            // then
+            assertThat(result.getCities()).isEqualTo(routeFactory.createShortestRoute(input, routeMap).getCities());
+        }
+    }
+
     @Test(expected = NoSuchRouteException.class)
     public void createRouteShouldThrowNoSuchRouteExceptionIfNoRouteExists() {
         // given
@@ -231,6 +299,28 @@ public class RouteFactoryTest {
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    public void countAllRoutesWithStopsShouldMatchNumberOfCreatedRoutes() {
+        // given
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityB.addUnitRoute(new UnitRoute(cityA, 6));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        // when
+        long exactStops = routeFactory.countAllRoutesWithExactStops("AA6", routeMap);
+        long maxStops = routeFactory.countAllRoutesWithMaxStops("AA6", routeMap);
+
+        // then
+        assertThat(exactStops).isEqualTo(routeFactory.createAllRoutesWithExactStops("AA6", routeMap).size());
+        assertThat(maxStops).isEqualTo(routeFactory.createAllRoutesWithMaxStops("AA6", routeMap).size());
+    }
+
     @Test
     public void createAllRoutesWithMaxDistanceShouldReturnNoRoutesIfNoRoutesWithLessThanMaxDistance() {
         // given
@@ -274,4 +364,89 @@ public class RouteFactoryTest {
         // then
         assertThat(result).hasSize(1);
     }
+
+    @Test
+    public void countAllRoutesWithMaxDistanceShouldMatchNumberOfCreatedRoutes() {
+        // given
+        String input = "BB40";
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityC.addUnitRoute(new UnitRoute(cityB, 6));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        // when
+        long result = routeFactory.countAllRoutesWithMaxDistance(input, routeMap);
+
+        // then
+        assertThat(result).isEqualTo(routeFactory.createAllRoutesWithMaxDistance(input, routeMap).size());
+    }
+
+    @Test
+    public void countAllRoutesWithMaxDistanceShouldCountRoutesWithZeroDistances() {
+        // given
+        String input = "AC10";
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 0));
+        cityB.addUnitRoute(new UnitRoute(cityC, 4));
+        cityC.addUnitRoute(new UnitRoute(cityA, 3));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        // when
+        long result = routeFactory.countAllRoutesWithMaxDistance(input, routeMap);
+
+        // then
+        assertThat(result).isEqualTo(1);
+    }
+
+    @Test
+    public void countAllRoutesWithMaxDistanceShouldCountRoutesMatchingPredicate() {
+        // given
+        String input = "BB40";
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityC.addUnitRoute(new UnitRoute(cityB, 6));
+
+        RouteMap routeMap = new RouteMap(new HashSet<>(Arrays.asList(cityA, cityB, cityC)));
+
+        // when
+        long result = routeFactory.countAllRoutesWithMaxDistance(input, routeMap, r -> r.getCities().contains(cityA));
+
+        // then
+        assertThat(result).isEqualTo(routeFactory.streamAllRoutesWithMaxDistance(input, routeMap)
+                .filter(r -> r.getCities().contains(cityA))
+                .count());
+        assertThat(result).isGreaterThan(0);
+    }
+
+    @Test
+    public void createAllRoutesWithMaxDistanceShouldOnlyUseLandmarksAlreadySelected() {
+        // given
+        AltEngine altEngine = new AltEngine();
+        RouteFactory landmarksRouteFactory = new RouteFactory(new DijkstraEngine(), altEngine);
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"));
+
+        // when
+        List<Route> result = landmarksRouteFactory.createAllRoutesWithMaxDistance("CC30", routeMap);
+        boolean selectedLandmarks = altEngine.findLandmarks(routeMap.getRouteGraph()).isPresent();
+        landmarksRouteFactory.createShortestRouteWithLandmarks("AC", routeMap);
+        List<Route> resultWithLandmarks = landmarksRouteFactory.createAllRoutesWithMaxDistance("CC30", routeMap);
+
+        // then
+        assertThat(result).hasSize(7);
+        assertThat(selectedLandmarks).isFalse();
+        assertThat(altEngine.findLandmarks(routeMap.getRouteGraph()).isPresent()).isTrue();
+        assertThat(resultWithLandmarks).hasSize(7);
+    }
 }
@@ -0,0 +1,218 @@
+package com.trains.factories;
+
+import com.trains.exceptions.DuplicateRouteException;
+import com.trains.exceptions.InvalidRouteException;
+import com.trains.exceptions.InvalidRouteFileException;
+import com.trains.exceptions.SelfRouteException;
+import com.trains.models.City;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class RouteMapFactoryTest {
+
+    private final RouteMapFactory routeMapFactory;
+
+    public RouteMapFactoryTest() {
+        this.routeMapFactory = new RouteMapFactory();
+    }
+
+    @Test(expected = InvalidRouteException.class)
+    public void createRouteMapShouldThrowInvalidRouteExceptionIfInvalidRoute() {
+        // given
+        List<String> routes = Arrays.asList("AB5", "BCC3");
+
+        // when
+        routeMapFactory.createRouteMap(routes);
+    }
+
+    @Test(expected = DuplicateRouteException.class)
+    public void createRouteMapShouldThrowDuplicateRouteExceptionIfDuplicateRoute() {
+        // given
+        List<String> routes = Arrays.asList("AB5", "BC3", "AB6");
+
+        // when
+        routeMapFactory.createRouteMap(routes);
+    }
+
+    @Test(expected = SelfRouteException.class)
+    public void createRouteMapShouldThrowSelfRouteExceptionIfSelfRoute() {
+        // given
+        List<String> routes = Arrays.asList("AB5", "BC3", "CC6");
+
+        // when
+        routeMapFactory.createRouteMap(routes);
+    }
+
+    @Test
+    public void createRouteMapShouldCreateRouteMap() {
+        // given
+        List<String> routes = Arrays.asList("AB5", "CA4", "BC3", "CD6");
+
+        // when
+        RouteMap result = routeMapFactory.createRouteMap(routes);
+
+        // then
+        assertThat(result.getCities().size()).isEqualTo(4);
+        City cityA = getCityFromRouteMapByName(result, 'A');
+        City cityB = getCityFromRouteMapByName(result, 'B');
+        City cityC = getCityFromRouteMapByName(result, 'C');
+        City cityD = getCityFromRouteMapByName(result, 'D');
+        assertThat(cityA.getDistanceTo(cityB)).isEqualTo(5);
+        assertThat(cityC.getDistanceTo(cityA)).isEqualTo(4);
+        assertThat(cityB.getDistanceTo(cityC)).isEqualTo(3);
+        assertThat(cityC.getDistanceTo(cityD)).isEqualTo(6);
+    }
+
+    @Test
+    public void createRouteMapShouldCompileRouteGraph() {
+        // given
+        List<String> routes = Arrays.asList("AB5", "CA4", "BC3", "CD6");
+
+        // when
+        RouteMap result = routeMapFactory.createRouteMap(routes);
+
+        // then
+        RouteGraph routeGraph = result.getRouteGraph();
+        assertThat(routeGraph.getCityCount()).isEqualTo(4);
+        assertThat(routeGraph.getUnitRouteCount()).isEqualTo(4);
+        assertThat(routeGraph.getDistance(routeGraph.getCityId('A'), routeGraph.getCityId('B'))).isEqualTo(5);
+        assertThat(routeGraph.getDistance(routeGraph.getCityId('C'), routeGraph.getCityId('D'))).isEqualTo(6);
+        assertThat(routeGraph.calculateDistance(new int[]{
+                routeGraph.getCityId('A'), routeGraph.getCityId('B'), routeGraph.getCityId('C')
+        })).isEqualTo(8);
+    }
+
+    @Test
+    public void createRouteMapShouldCreateRouteMapWithNamedCities() {
+        // given
+        List<String> routes = Arrays.asList("KGX-EDB:632", "EDB-GLC:75", "GLC-KGX:640", "AB5", "B-KGX:2");
+
+        // when
+        RouteMap result = routeMapFactory.createRouteMap(routes);
+
+        // then
+        RouteGraph routeGraph = result.getRouteGraph();
+        assertThat(routeGraph.getCityCount()).isEqualTo(5);
+        assertThat(routeGraph.calculateDistance(new int[]{
+                routeGraph.getCityId("A"), routeGraph.getCityId("B"), routeGraph.getCityId("KGX"),
+                routeGraph.getCityId("EDB"), routeGraph.getCityId("GLC")
+        })).isEqualTo(714);
+    }
+
+    @Test(expected = InvalidRouteException.class)
+    public void createRouteMapShouldThrowInvalidRouteExceptionIfNamedRouteHasNoDistance() {
+        // given
+        List<String> routes = Arrays.asList("KGX-EDB:632", "EDB-GLC");
+
+        // when
+        routeMapFactory.createRouteMap(routes);
+    }
+
+    @Test
+    public void createRouteMapShouldLoadRoutesFromFilesAndArguments() throws Exception {
+        // given
+        Path routeFile = Files.createTempFile("trains-routes", ".txt");
+        Files.write(routeFile, "# Routes\r\nBC4, CD8\tDC8\r\n\nDE6 AD5 # and more\nCE2\nEB3 AE7".getBytes(StandardCharsets.US_ASCII));
+
+        // when
+        RouteMap result = routeMapFactory.createRouteMap(Collections.singletonList("AB5"), Collections.singletonList(routeFile));
+
+        // then
+        RouteMap expected = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"));
+        assertThat(result.getRouteGraph().getFingerprint()).isEqualTo(expected.getRouteGraph().getFingerprint());
+        Files.delete(routeFile);
+    }
+
+    @Test
+    public void createRouteMapShouldMergeChunksOfALargeRouteFile() throws Exception {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            routes.add("C" + i + "-C" + (i + 1) % 2000 + ":" + i % 10);
+        }
+        Path routeFile = Files.createTempFile("trains-routes", ".txt");
+        Files.write(routeFile, routes);
+
+        // when
+        RouteMap result = new RouteMapFactory(1024).createRouteMap(Collections.emptyList(), Collections.singletonList(routeFile));
+
+        // then
+        RouteGraph routeGraph = result.getRouteGraph();
+        assertThat(routeGraph.getFingerprint()).isEqualTo(routeMapFactory.createRouteMap(routes).getRouteGraph().getFingerprint());
+        assertThat(routeGraph.getDistance(routeGraph.getCityId("C1999"), routeGraph.getCityId("C0"))).isEqualTo(9);
+        Files.delete(routeFile);
+    }
+
+    @Test
+    public void createRouteMapShouldLayOutTheRouteGraphAsIfCompiledFromCities() {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            for (int j = 1; j < 6; j++) {
+                routes.add("C" + (i * 7) % 30 + "-C" + (i * 7 + j * 11) % 30 + ":" + (i * j) % 13);
+            }
+        }
+        Collections.shuffle(routes, new Random(3));
+
+        // when
+        RouteMap routeMap = routeMapFactory.createRouteMap(routes);
+
+        // then
+        RouteGraph result = routeMap.getRouteGraph();
+        RouteGraph compiledGraph = new RouteGraph(routeMap.getCities());
+        assertThat(result.getFingerprint()).isEqualTo(compiledGraph.getFingerprint());
+        assertThat(result.getMinUnitRouteDistance()).isEqualTo(compiledGraph.getMinUnitRouteDistance()).isEqualTo(0);
+        assertThat(result.getMaxUnitRouteDistance()).isEqualTo(compiledGraph.getMaxUnitRouteDistance()).isEqualTo(12);
+        assertThat(result.getDistance(result.getCityId("C7"), result.getCityId("C18"))).isEqualTo(1);
+    }
+
+    @Test
+    public void createRouteMapShouldReportTheLineOfAnInvalidOrDuplicateRouteInAFile() throws Exception {
+        // given
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            routes.add("C" + i + "-C" + (i + 1) + ":5");
+        }
+        Path routeFile = Files.createTempFile("trains-routes", ".txt");
+        routes.set(1500, "C1500-C1501;5");
+        Files.write(routeFile, routes);
+        Path duplicateRouteFile = Files.createTempFile("trains-routes", ".txt");
+        routes.set(1500, "C3-C4:7");
+        Files.write(duplicateRouteFile, routes);
+        RouteMapFactory factory = new RouteMapFactory(1024);
+
+        // when, then
+        assertThatThrownBy(() -> factory.createRouteMap(Collections.emptyList(), Collections.singletonList(routeFile)))
+                .isInstanceOf(InvalidRouteFileException.class)
+                .hasMessageContaining("Invalid route C1500-C1501;5 on line 1501 of " + routeFile);
+        assertThatThrownBy(() -> factory.createRouteMap(Collections.emptyList(), Collections.singletonList(duplicateRouteFile)))
+                .isInstanceOf(InvalidRouteFileException.class)
+                .hasMessageContaining("Invalid route C3-C4 on line 1501 of " + duplicateRouteFile
+                        + ", which repeats the route on line 4 of " + duplicateRouteFile);
+        Files.delete(routeFile);
+        Files.delete(duplicateRouteFile);
+    }
+
+    private City getCityFromRouteMapByName(RouteMap routeMap, char name) {
+        return routeMap.getCities().stream()
+                .filter(c -> c.getName().equals(String.valueOf(name)))
+                .findAny()
+                .orElseThrow(AssertionError::new);
+    }
+}
@@ -0,0 +1,155 @@
+package com.trains.generators;
+
+import com.trains.enums.DistanceDistribution;
+import com.trains.enums.Topology;
+import com.trains.exceptions.InvalidNetworkGeneratorArgumentException;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteGraph;
+import com.trains.models.RouteMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class NetworkGeneratorTest {
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+
+    @Test
+    public void generateRoutesShouldGiveTheSameRoutesForTheSameSeed() {
+        // given
+        NetworkGenerator generator = new NetworkGenerator(Topology.SPARSE, 200, 3, DistanceDistribution.UNIFORM, 1, 9, 7);
+        NetworkGenerator sameGenerator = new NetworkGenerator(Topology.SPARSE, 200, 3, DistanceDistribution.UNIFORM, 1, 9, 7);
+        NetworkGenerator otherGenerator = new NetworkGenerator(Topology.SPARSE, 200, 3, DistanceDistribution.UNIFORM, 1, 9, 8);
+
+        // when
+        List<String> routes = generator.generateRoutes();
+
+        // then
+        assertThat(routes).hasSize(600).isEqualTo(sameGenerator.generateRoutes());
+        assertThat(routes).isNotEqualTo(otherGenerator.generateRoutes());
+    }
+
+    @Test
+    public void everyTopologyShouldGiveAStronglyConnectedRouteMap() {
+        for (Topology topology : Topology.values()) {
+            // given
+            NetworkGenerator generator = new NetworkGenerator(topology, 150, 4, DistanceDistribution.EXPONENTIAL, 2, 40, 1);
+
+            // when
+            List<String> routes = generator.generateRoutes();
+            RouteGraph routeGraph = routeMapFactory.createRouteMap(routes).getRouteGraph();
+
+            // then
+            assertThat(routeGraph.getCityCount()).isEqualTo(150);
+            assertThat(routeGraph.getUnitRouteCount()).isEqualTo(routes.size());
+            assertThat(routeGraph.getMinUnitRouteDistance()).isGreaterThanOrEqualTo(2);
+            assertThat(routeGraph.getMaxUnitRouteDistance()).isLessThanOrEqualTo(40);
+            assertThat(countReachableCities(routeGraph, false)).as(topology.name()).isEqualTo(150);
+            assertThat(countReachableCities(routeGraph, true)).as(topology.name()).isEqualTo(150);
+        }
+    }
+
+    @Test
+    public void generateShouldGiveTheNumberOfRoutesOfEachTopology() {
+        // given
+        NetworkGenerator.RouteConsumer ignore = (originCityId, destinationCityId, distance) -> { };
+
+        // when, then
+        assertThat(new NetworkGenerator(Topology.SPARSE, 100, 5, DistanceDistribution.UNIFORM, 1, 9, 1).generate(ignore)).isEqualTo(500);
+        assertThat(new NetworkGenerator(Topology.GRID, 9, 1, DistanceDistribution.UNIFORM, 1, 9, 1).generate(ignore)).isEqualTo(24);
+        assertThat(new NetworkGenerator(Topology.SCALE_FREE, 100, 2, DistanceDistribution.UNIFORM, 1, 9, 1).generate(ignore)).isEqualTo(6 + 4 * 97);
+        assertThat(new NetworkGenerator(Topology.COMPLETE, 30, 1, DistanceDistribution.UNIFORM, 1, 9, 1).generate(ignore)).isEqualTo(30 * 29);
+    }
+
+    @Test
+    public void smallNetworksShouldUseSingleLetterCityNames() {
+        // given
+        NetworkGenerator generator = new NetworkGenerator(Topology.COMPLETE, 5, 1, DistanceDistribution.NORMAL, 1, 9, 1);
+
+        // when
+        RouteMap routeMap = routeMapFactory.createRouteMap(generator.generateRoutes());
+
+        // then
+        assertThat(generator.getCityName(4)).isEqualTo("E");
+        assertThat(new RouteFactory().createRoute("ABCDE", routeMap).calculateDistance()).isBetween(4, 36);
+    }
+
+    @Test
+    public void constructorShouldRejectADensityOfTheNumberOfCities() {
+        assertThatThrownBy(() -> new NetworkGenerator(Topology.SPARSE, 10, 10, DistanceDistribution.UNIFORM, 1, 9, 1))
+                .isInstanceOf(InvalidNetworkGeneratorArgumentException.class)
+                .hasMessage("The density must be from 1 to the number of cities less one.");
+    }
+
+    @Test
+    public void generateShouldAllowEveryDistanceFromZeroToTheLargestInt() {
+        for (DistanceDistribution distanceDistribution : DistanceDistribution.values()) {
+            // given
+            NetworkGenerator generator = new NetworkGenerator(Topology.COMPLETE, 20, 1, distanceDistribution, 0, Integer.MAX_VALUE, 3);
+            List<Integer> distances = new ArrayList<>();
+
+            // when
+            generator.generate((originCityId, destinationCityId, distance) -> distances.add(distance));
+
+            // then
+            assertThat(distances).hasSize(20 * 19);
+            assertThat(distances.stream().allMatch(distance -> distance >= 0)).isTrue();
+            assertThat(distances.stream().distinct().count()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    public void runShouldWriteARouteFileThatCanBeLoaded() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-generated", ".txt");
+        String[] args = {"scale_free", "1000", file.toString(), "--density=2", "--seed=5"};
+
+        // when
+        String result = NetworkGeneratorApp.run(args, new PrintStream(new ByteArrayOutputStream()));
+        RouteMap routeMap = routeMapFactory.createRouteMap(Collections.emptyList(), Collections.singletonList(file));
+
+        // then
+        assertThat(result).isEqualTo("Generated " + (6 + 4 * 997) + " routes between 1000 cities into " + file + ".");
+        assertThat(routeMap.getRouteGraph().getUnitRouteCount()).isEqualTo(6 + 4 * 997);
+        assertThat(NetworkGeneratorApp.run(new String[]{"ring", "10", "-"}, System.out))
+                .isEqualTo("The topology must be one of sparse, grid, scale_free, complete.");
+        Files.delete(file);
+    }
+
+    private static int countReachableCities(RouteGraph routeGraph, boolean backwards) {
+        boolean[] reached = new boolean[routeGraph.getCityCount()];
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(0);
+        reached[0] = true;
+        int numReached = 1;
+        while (!pending.isEmpty()) {
+            int cityId = pending.pop();
+            int start = backwards ? routeGraph.getIncomingUnitRoutesStart(cityId) : routeGraph.getUnitRoutesStart(cityId);
+            int end = backwards ? routeGraph.getIncomingUnitRoutesEnd(cityId) : routeGraph.getUnitRoutesEnd(cityId);
+            for (int unitRoute = start; unitRoute < end; unitRoute++) {
+                int nextCityId = backwards ? routeGraph.getIncomingOriginCityId(unitRoute) : routeGraph.getDestinationCityId(unitRoute);
+                if (!reached[nextCityId]) {
+                    reached[nextCityId] = true;
+                    numReached++;
+                    pending.push(nextCityId);
+                }
+            }
+        }
+        return numReached;
+    }
+}
@@ -0,0 +1,46 @@
+package com.trains.models;
+
+import com.trains.factories.RouteMapFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class LiveRouteMapTest {
+
+    @Test
+    public void updateShouldApplyEveryUpdateWhenUpdatesRace() throws Exception {
+        // given
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB0", "BC0", "CD0", "DA0"));
+        LiveRouteMap liveRouteMap = new LiveRouteMap(RouteMapSnapshot.of(routeMap));
+        RouteMapSnapshot original = liveRouteMap.getSnapshot();
+        String[][] unitRoutes = {{"A", "B"}, {"B", "C"}, {"C", "D"}, {"D", "A"}};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // when
+        for (String[] unitRoute : unitRoutes) {
+            executor.execute(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    liveRouteMap.reweightUnitRoute(unitRoute[0], unitRoute[1], i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // then
+        RouteMapSnapshot result = liveRouteMap.getSnapshot();
+        assertThat(result.getVersion()).isEqualTo(4000);
+        for (String[] unitRoute : unitRoutes) {
+            assertThat(result.getDistance(unitRoute[0], unitRoute[1])).isEqualTo(1000);
+            assertThat(original.getDistance(unitRoute[0], unitRoute[1])).isEqualTo(0);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.trains.models;
+
+import com.trains.exceptions.CompiledRouteFileException;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class RouteGraphFileTest {
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+    private final RouteGraph routeGraph = routeMapFactory.createRouteMap(Arrays.asList(
+            "AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7", "KGX-EDB:632", "EDB-KGX:632")).getRouteGraph();
+
+    @Test
+    public void loadShouldGiveTheSameRouteGraphThatWasSaved() throws Exception {
+        for (boolean includeReverseIndex : new boolean[]{true, false}) {
+            // given
+            Path file = Files.createTempFile("trains-routes", ".trains");
+            RouteGraphFile.save(routeGraph, file, includeReverseIndex);
+
+            // when
+            RouteGraph result = RouteGraphFile.load(file);
+
+            // then
+            assertThat(RouteGraphFile.isRouteGraphFile(file)).isTrue();
+            assertThat(result.getFingerprint()).isEqualTo(routeGraph.getFingerprint());
+            assertThat(result.getCityCount()).isEqualTo(routeGraph.getCityCount());
+            assertThat(result.getUnitRouteCount()).isEqualTo(routeGraph.getUnitRouteCount());
+            assertThat(result.getMaxUnitRouteDistance()).isEqualTo(632);
+            for (int cityId = 0; cityId < routeGraph.getCityCount(); cityId++) {
+                assertThat(result.getCityName(cityId)).isEqualTo(routeGraph.getCityName(cityId));
+                assertThat(result.getIncomingUnitRoutesStart(cityId)).isEqualTo(routeGraph.getIncomingUnitRoutesStart(cityId));
+            }
+            for (int incoming = 0; incoming < routeGraph.getUnitRouteCount(); incoming++) {
+                assertThat(result.getIncomingOriginCityId(incoming)).isEqualTo(routeGraph.getIncomingOriginCityId(incoming));
+            }
+            assertThat(result.getCity(result.getCityId("KGX")).getDistanceTo(result.getCity(result.getCityId("EDB")))).isEqualTo(632);
+            assertThat(new RouteFactory().createShortestRoute("AC", new RouteMap(result)).calculateDistance()).isEqualTo(9);
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void loadShouldRejectADamagedFile() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-routes", ".trains");
+        RouteGraphFile.save(routeGraph, file, true);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        // when, then
+        assertThatThrownBy(() -> RouteGraphFile.load(file))
+                .isInstanceOf(CompiledRouteFileException.class)
+                .hasMessageContaining("is damaged");
+        Files.delete(file);
+    }
+
+    @Test
+    public void loadShouldRejectAFileWhoseCityIdsAreOutOfRangeEvenWithAValidChecksum() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-routes", ".trains");
+        RouteGraphFile.save(routeGraph, file, true);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(getFirstDestination(bytes), bytes.getInt(12) + 5);
+        writeWithChecksum(file, bytes);
+
+        // when, then
+        assertThatThrownBy(() -> RouteGraphFile.load(file))
+                .isInstanceOf(CompiledRouteFileException.class)
+                .hasMessageContaining("is damaged");
+        Files.delete(file);
+    }
+
+    @Test
+    public void loadShouldRejectAFileWithAnUnsortedRowANegativeDistanceOrARepeatedCityName() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-routes", ".trains");
+        RouteGraphFile.save(routeGraph, file, true);
+        byte[] saved = Files.readAllBytes(file);
+        ByteBuffer unsorted = ByteBuffer.wrap(saved.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        int firstDestination = getFirstDestination(unsorted);
+        unsorted.putInt(firstDestination, unsorted.getInt(firstDestination + 4));
+        ByteBuffer negative = ByteBuffer.wrap(saved.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        negative.putInt(firstDestination + 4 * negative.getInt(16), -5);
+        ByteBuffer repeated = ByteBuffer.wrap(saved.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        repeated.put(128 + 4 * (repeated.getInt(12) + 1) + 1, (byte) 'A');
+
+        for (ByteBuffer bytes : new ByteBuffer[]{unsorted, negative, repeated}) {
+            writeWithChecksum(file, bytes);
+
+            // when, then
+            assertThatThrownBy(() -> RouteGraphFile.load(file))
+                    .isInstanceOf(CompiledRouteFileException.class)
+                    .hasMessageContaining("is damaged");
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    public void loadShouldWorkOutTheShortestAndLongestDistancesRatherThanTrustTheHeader() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-routes", ".trains");
+        RouteGraphFile.save(routeGraph, file, false);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(20, -7).putInt(24, 1);
+        Files.write(file, bytes.array());
+
+        // when
+        RouteGraph result = RouteGraphFile.load(file);
+
+        // then
+        assertThat(result.getMinUnitRouteDistance()).isEqualTo(2);
+        assertThat(result.getMaxUnitRouteDistance()).isEqualTo(632);
+        Files.delete(file);
+    }
+
+    @Test
+    public void isRouteGraphFileShouldBeFalseForARouteFileStartingWithTheLettersOfTheMagicNumber() throws Exception {
+        // given
+        Path file = Files.createTempFile("trains-routes", ".txt");
+        StringBuilder routes = new StringBuilder("SNRT-KGX:5\n");
+        for (int i = 0; i < 20; i++) {
+            routes.append("KGX-C").append(i).append(":").append(i + 1).append("\n");
+        }
+        Files.write(file, routes.toString().getBytes(StandardCharsets.US_ASCII));
+
+        // when
+        boolean result = RouteGraphFile.isRouteGraphFile(file);
+
+        // then
+        assertThat(result).isFalse();
+        RouteGraph loaded = routeMapFactory.createRouteMap(Collections.emptyList(), Collections.singletonList(file)).getRouteGraph();
+        assertThat(loaded.getUnitRouteCount()).isEqualTo(21);
+        Files.delete(file);
+    }
+
+    private static int getFirstDestination(ByteBuffer bytes) {
+        int numCities = bytes.getInt(12);
+        int nameBytesLength = bytes.getInt(28);
+        return 128 + 8 * (numCities + 1) + nameBytesLength + (-nameBytesLength & 3);
+    }
+
+    // Writes the bytes with the payload checksum they need to get past it.
+    private static void writeWithChecksum(Path file, ByteBuffer bytes) throws Exception {
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.array(), 128, bytes.capacity() - 128);
+        bytes.putLong(32, checksum.getValue());
+        Files.write(file, bytes.array());
+    }
+}
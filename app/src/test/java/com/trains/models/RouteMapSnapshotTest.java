@@ -0,0 +1,179 @@
+package com.trains.models;
+
+import com.trains.exceptions.DuplicateRouteException;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.exceptions.SelfRouteException;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+public class RouteMapSnapshotTest {
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+
+    @Test
+    public void withDistanceShouldReturnANewSnapshotAndLeaveTheOldOneUnchanged() {
+        // given
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "AC12")));
+
+        // when
+        RouteMapSnapshot result = snapshot.withDistance("A", "C", 7);
+
+        // then
+        assertThat(result.getVersion()).isEqualTo(1);
+        assertThat(result.getDistance("A", "C")).isEqualTo(7);
+        assertThat(snapshot.getVersion()).isEqualTo(0);
+        assertThat(snapshot.getDistance("A", "C")).isEqualTo(12);
+    }
+
+    @Test
+    public void withDistanceShouldShareTheRowsOfCitiesItDoesNotChange() {
+        // given
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "AC12")));
+
+        // when
+        RouteMapSnapshot result = snapshot.withDistance("A", "C", 7);
+
+        // then
+        assertThat(result.getRow(snapshot.findCityId("A"))).isNotSameAs(snapshot.getRow(snapshot.findCityId("A")));
+        assertThat(result.getRow(snapshot.findCityId("B"))).isSameAs(snapshot.getRow(snapshot.findCityId("B")));
+        assertThat(result.getRow(snapshot.findCityId("C"))).isSameAs(snapshot.getRow(snapshot.findCityId("C")));
+    }
+
+    @Test
+    public void getRouteMapShouldAnswerQueriesOnTheUpdatedRoutes() {
+        // given
+        RouteFactory routeFactory = new RouteFactory();
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "AC12")));
+
+        // when
+        RouteMapSnapshot result = snapshot
+                .withUnitRoute("A", "D", 1)
+                .withUnitRoute("D", "C", 2)
+                .withoutUnitRoute("B", "C");
+
+        // then
+        assertThat(routeFactory.createShortestRoute("AC", result.getRouteMap()).calculateDistance()).isEqualTo(3);
+        assertThat(routeFactory.createShortestRoute("AC", snapshot.getRouteMap()).calculateDistance()).isEqualTo(9);
+        assertThat(result.getCityCount()).isEqualTo(4);
+        assertThat(result.getUnitRouteCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void updatesShouldGiveTheSameRouteGraphAsBuildingTheRoutesAfresh() {
+        // given
+        Random random = new Random(42);
+        Map<String, Integer> routes = new TreeMap<>();
+        routes.put("AB", 5);
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5")));
+
+        for (int update = 0; update < 500; update++) {
+            String origin = String.valueOf((char) ('A' + random.nextInt(20)));
+            String destination = String.valueOf((char) ('A' + random.nextInt(20)));
+            if (origin.equals(destination)) {
+                continue;
+            }
+            String key = origin + destination;
+            int distance = random.nextInt(50);
+
+            // when
+            if (!routes.containsKey(key)) {
+                snapshot = snapshot.withUnitRoute(origin, destination, distance);
+                routes.put(key, distance);
+            } else if (random.nextBoolean() && routes.size() > 1) {
+                snapshot = snapshot.withoutUnitRoute(origin, destination);
+                routes.remove(key);
+            } else {
+                snapshot = snapshot.withDistance(origin, destination, distance);
+                routes.put(key, distance);
+            }
+
+            // then
+            assertThat(snapshot.getUnitRouteCount()).isEqualTo(routes.size());
+            assertThat(snapshot.hasUnitRoute(origin, destination)).isEqualTo(routes.containsKey(key));
+        }
+
+        List<String> routeArgs = new ArrayList<>();
+        routes.forEach((key, distance) -> routeArgs.add(key + distance));
+        RouteGraph rebuilt = routeMapFactory.createRouteMap(routeArgs).getRouteGraph();
+        RouteGraph updated = snapshot.getRouteMap().getRouteGraph();
+        assertThat(updated.getUnitRouteCount()).isEqualTo(rebuilt.getUnitRouteCount());
+        for (String key : routes.keySet()) {
+            int originCityId = updated.getCityId(key.charAt(0));
+            int destinationCityId = updated.getCityId(key.charAt(1));
+            assertThat(updated.getDistance(originCityId, destinationCityId)).isEqualTo(routes.get(key));
+        }
+    }
+
+    @Test
+    public void getRouteMapAfterEachUpdateShouldPatchTheSameRouteGraphAsBuildingTheRoutesAfresh() {
+        // given
+        Random random = new Random(7);
+        Map<String, Integer> routes = new TreeMap<>();
+        routes.put("AB", 5);
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5")));
+
+        for (int update = 0; update < 300; update++) {
+            String origin = String.valueOf((char) ('A' + random.nextInt(8)));
+            String destination = String.valueOf((char) ('A' + random.nextInt(8)));
+            if (origin.equals(destination)) {
+                continue;
+            }
+            String key = origin + destination;
+            int distance = random.nextInt(50);
+
+            // when
+            if (!routes.containsKey(key)) {
+                snapshot = snapshot.withUnitRoute(origin, destination, distance);
+                routes.put(key, distance);
+            } else if (random.nextBoolean() && routes.size() > 1) {
+                snapshot = snapshot.withoutUnitRoute(origin, destination);
+                routes.remove(key);
+            } else {
+                snapshot = snapshot.withDistance(origin, destination, distance);
+                routes.put(key, distance);
+            }
+            RouteGraph updated = snapshot.getRouteMap().getRouteGraph();
+
+            // then
+            List<String> routeArgs = new ArrayList<>();
+            routes.forEach((route, routeDistance) -> routeArgs.add(route + routeDistance));
+            RouteGraph rebuilt = routeMapFactory.createRouteMap(routeArgs).getRouteGraph();
+            assertThat(updated.getFingerprint()).isEqualTo(rebuilt.getFingerprint());
+            assertThat(updated.getMinUnitRouteDistance()).isEqualTo(rebuilt.getMinUnitRouteDistance());
+            assertThat(updated.getMaxUnitRouteDistance()).isEqualTo(rebuilt.getMaxUnitRouteDistance());
+            for (int cityId = 0; cityId < rebuilt.getCityCount(); cityId++) {
+                assertThat(updated.getIncomingUnitRoutesEnd(cityId)).isEqualTo(rebuilt.getIncomingUnitRoutesEnd(cityId));
+                for (int incoming = rebuilt.getIncomingUnitRoutesStart(cityId); incoming < rebuilt.getIncomingUnitRoutesEnd(cityId); incoming++) {
+                    assertThat(updated.getIncomingOriginCityId(incoming)).isEqualTo(rebuilt.getIncomingOriginCityId(incoming));
+                    assertThat(updated.getIncomingDistance(incoming)).isEqualTo(rebuilt.getIncomingDistance(incoming));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void updatesShouldRejectInvalidRoutes() {
+        // given
+        RouteMapSnapshot snapshot = RouteMapSnapshot.of(routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4")));
+
+        // then
+        assertThatThrownBy(() -> snapshot.withUnitRoute("A", "B", 3)).isInstanceOf(DuplicateRouteException.class);
+        assertThatThrownBy(() -> snapshot.withUnitRoute("A", "A", 3)).isInstanceOf(SelfRouteException.class);
+        assertThatThrownBy(() -> snapshot.withoutUnitRoute("A", "C")).isInstanceOf(NoSuchRouteException.class);
+        assertThatThrownBy(() -> snapshot.withDistance("C", "B", 3)).isInstanceOf(NoSuchRouteException.class);
+    }
+}
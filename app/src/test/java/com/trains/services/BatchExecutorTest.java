@@ -0,0 +1,56 @@
+package com.trains.services;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class BatchExecutorTest {
+
+    @Test
+    public void executeShouldWriteOneResultPerCommandAndSkipBlankLines() throws Exception {
+        // given
+        BatchExecutor batchExecutor = new BatchExecutor(1);
+        BufferedReader commands = new BufferedReader(new StringReader("dist AB\n\n  \nshort AC\n"));
+        StringWriter output = new StringWriter();
+
+        // when
+        long result = batchExecutor.execute(commands, String::toUpperCase, new PrintWriter(output));
+
+        // then
+        assertThat(result).isEqualTo(2);
+        assertThat(output.toString()).isEqualTo(String.format("DIST AB%nSHORT AC%n"));
+    }
+
+    @Test
+    public void executeShouldKeepInputOrderWhenRunningInParallel() throws Exception {
+        // given
+        BatchExecutor batchExecutor = new BatchExecutor(8);
+        String input = IntStream.range(0, 2000).mapToObj(Integer::toString).collect(Collectors.joining("\n"));
+        BufferedReader commands = new BufferedReader(new StringReader(input));
+        StringWriter output = new StringWriter();
+
+        // when
+        long result = batchExecutor.execute(commands, command -> {
+            if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                Thread.yield();
+            }
+            return "result " + command;
+        }, new PrintWriter(output));
+
+        // then
+        assertThat(result).isEqualTo(2000);
+        assertThat(output.toString().split(System.lineSeparator()))
+                .containsExactly(IntStream.range(0, 2000).mapToObj(i -> "result " + i).toArray(String[]::new));
+    }
+}
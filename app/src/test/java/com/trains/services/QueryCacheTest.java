@@ -0,0 +1,107 @@
+package com.trains.services;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class QueryCacheTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void getShouldCountHitsAndMisses() {
+        // given
+        QueryCache queryCache = new QueryCache(10, 1000);
+        queryCache.put("short AC", "9");
+
+        // when
+        String hit = queryCache.get("short AC").orElse(null);
+        boolean missed = !queryCache.get("short AD").isPresent();
+
+        // then
+        assertThat(hit).isEqualTo("9");
+        assertThat(missed).isTrue();
+        assertThat(queryCache.getHitCount()).isEqualTo(1);
+        assertThat(queryCache.getMissCount()).isEqualTo(1);
+        assertThat(queryCache.describeStatistics()).isEqualTo("Query cache: 1 hits, 1 misses, 0 evictions.");
+    }
+
+    @Test
+    public void putShouldEvictTheLeastRecentlyUsedEntryWhenFull() {
+        // given
+        QueryCache queryCache = new QueryCache(2, 1000);
+        queryCache.put("a", "1");
+        queryCache.put("b", "2");
+        queryCache.get("a");
+
+        // when
+        queryCache.put("c", "3");
+
+        // then
+        assertThat(queryCache.size()).isEqualTo(2);
+        assertThat(queryCache.get("a").orElse(null)).isEqualTo("1");
+        assertThat(queryCache.get("b").isPresent()).isFalse();
+        assertThat(queryCache.get("c").orElse(null)).isEqualTo("3");
+        assertThat(queryCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void putShouldEvictUntilTheWeightFits() {
+        // given
+        QueryCache queryCache = new QueryCache(10, 10);
+        queryCache.put("a", "1");
+        queryCache.put("b", "2");
+        queryCache.put("c", "3");
+
+        // when
+        queryCache.put("d", "12345678");
+
+        // then
+        assertThat(queryCache.size()).isEqualTo(1);
+        assertThat(queryCache.getWeight()).isEqualTo(9);
+        assertThat(queryCache.getEvictionCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void saveShouldWriteEntriesThatLoadReadsBackInUseOrder() throws Exception {
+        // given
+        Path file = temporaryFolder.getRoot().toPath().resolve("queries.cache");
+        QueryCache savedCache = new QueryCache(10, 1000, file);
+        savedCache.put("a", "1");
+        savedCache.put("b", "2");
+        savedCache.get("a");
+        QueryCache loadedCache = new QueryCache(2, 1000, file);
+
+        // when
+        savedCache.save();
+        loadedCache.load();
+        loadedCache.put("c", "3");
+
+        // then
+        assertThat(loadedCache.get("a").orElse(null)).isEqualTo("1");
+        assertThat(loadedCache.get("b").isPresent()).isFalse();
+    }
+
+    @Test
+    public void loadShouldLeaveTheCacheEmptyIfTheFileIsNotACacheFile() throws Exception {
+        // given
+        Path file = temporaryFolder.newFile("queries.cache").toPath();
+        Files.write(file, "not a cache".getBytes("UTF-8"));
+        QueryCache queryCache = new QueryCache(10, 1000, file);
+
+        // when
+        queryCache.load();
+
+        // then
+        assertThat(queryCache.size()).isEqualTo(0);
+    }
+}
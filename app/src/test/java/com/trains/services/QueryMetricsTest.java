@@ -0,0 +1,86 @@
+package com.trains.services;
+
+import com.trains.engines.QueryWork;
+import com.trains.enums.Command;
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class QueryMetricsTest {
+
+    @Test
+    public void executeCommandShouldRecordQueriesWorkAndErrorsPerCommand() {
+        // given
+        QueryMetrics queryMetrics = new QueryMetrics();
+        RoutingService routingService = new RoutingService(
+                new RouteMapFactory(), new RouteFactory(), new QueryCache(0, 0), queryMetrics, 1, 0, 0, 0, 1024, true);
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"));
+
+        // when
+        routingService.executeCommand("short", "AC", routeMap);
+        routingService.executeCommand("short", "BB", routeMap);
+        try {
+            routingService.executeCommand("dist", "AED", routeMap);
+        } catch (NoSuchRouteException e) {
+            // recorded as an error
+        }
+
+        // then
+        CommandMetricsMXBean shortMetrics = queryMetrics.getMetrics(Command.SHORTEST_ROUTE);
+        assertThat(shortMetrics.getQueryCount()).isEqualTo(2);
+        assertThat(shortMetrics.getErrorCount()).isEqualTo(0);
+        assertThat(shortMetrics.getSettledCities()).isGreaterThan(0);
+        assertThat(shortMetrics.getRelaxedUnitRoutes()).isGreaterThan(0);
+        assertThat(shortMetrics.getMaxLatencyMicros()).isGreaterThanOrEqualTo(shortMetrics.getMedianLatencyMicros());
+        CommandMetricsMXBean distMetrics = queryMetrics.getMetrics(Command.DISTANCE_OF_ROUTE);
+        assertThat(distMetrics.getQueryCount()).isEqualTo(1);
+        assertThat(distMetrics.getErrorCountsByType()).containsEntry("NoSuchRouteException", 1L);
+        assertThat(queryMetrics.describe().split("\n")).hasSize(2);
+    }
+
+    @Test
+    public void queryMetricsShouldRegisterAnMXBeanPerCommand() throws Exception {
+        // given
+        QueryMetrics queryMetrics = new QueryMetrics(true);
+        queryMetrics.record(Command.NUMBER_OF_ROUTES_WITH_MAXIMUM_STOPS, 2_000_000, QueryWork.start(), 0, null);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        // when
+        Object queryCount = server.getAttribute(new ObjectName("com.trains:type=QueryMetrics,command=maxstops"), "QueryCount");
+        Object maxLatency = server.getAttribute(new ObjectName("com.trains:type=QueryMetrics,command=maxstops"), "MaxLatencyMicros");
+
+        // then
+        assertThat(queryCount).isEqualTo(1L);
+        assertThat(maxLatency).isEqualTo(2000L);
+    }
+
+    @Test
+    public void latencyHistogramShouldGivePercentilesWithinItsPrecision() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        // then
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(50_000_000L, 50_000_000L * 65 / 64);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(99_000_000L, 99_000_000L * 65 / 64);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000_000L);
+        assertThat(histogram.getMax()).isEqualTo(100_000_000L);
+    }
+}
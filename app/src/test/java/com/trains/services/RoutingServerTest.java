@@ -0,0 +1,201 @@
+package com.trains.services;
+
+import com.trains.exceptions.NoSuchRouteException;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+public class RoutingServerTest {
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+    private RoutingServer routingServer;
+
+    @After
+    public void tearDown() {
+        if (routingServer != null) {
+            routingServer.stop();
+        }
+    }
+
+    @Test
+    public void queryShouldAnswerCommandsAgainstTheNamedRouteMap() throws Exception {
+        // given
+        startServer(4, 16, (command, input, routeMap) -> command + " " + input + " " + routeMap.getCities().size());
+        routingServer.addRouteMap("small", routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4")));
+
+        // when
+        Response defaultResponse = request("GET", "/query?command=short&input=AD", null);
+        Response namedResponse = request("GET", "/query?command=dist&input=ABC&map=small", null);
+        Response missingResponse = request("GET", "/query?command=dist&input=ABC&map=other", null);
+
+        // then
+        assertThat(defaultResponse.status).isEqualTo(200);
+        assertThat(defaultResponse.body).isEqualTo("short AD 4\n");
+        assertThat(namedResponse.body).isEqualTo("dist ABC 3\n");
+        assertThat(missingResponse.status).isEqualTo(404);
+    }
+
+    @Test
+    public void queryShouldReturnBadRequestWithTheErrorMessage() throws Exception {
+        // given
+        startServer(1, 0, (command, input, routeMap) -> {
+            throw new NoSuchRouteException();
+        });
+
+        // when
+        Response response = request("GET", "/query?command=short&input=AD", null);
+        Response missingInputResponse = request("GET", "/query?command=short", null);
+
+        // then
+        assertThat(response.status).isEqualTo(400);
+        assertThat(response.body).isEqualTo(new NoSuchRouteException().getMessage() + "\n");
+        assertThat(missingInputResponse.status).isEqualTo(400);
+    }
+
+    @Test
+    public void queryShouldReturnBadRequestForAnUndecodableParameterOrOversizedNumber() throws Exception {
+        // given
+        startServer(1, 0, (command, input, routeMap) -> Integer.toString(Integer.parseInt(input.substring(2))));
+
+        // when
+        Response undecodableResponse = request("GET", "/query?command=stops&input=%zz", null);
+        Response oversizedResponse = request("GET", "/query?command=stops&input=AC99999999999", null);
+        Response nextResponse = request("GET", "/query?command=stops&input=AC3", null);
+
+        // then
+        assertThat(undecodableResponse.status).isEqualTo(400);
+        assertThat(oversizedResponse.status).isEqualTo(400);
+        assertThat(nextResponse.body).isEqualTo("3\n");
+    }
+
+    @Test
+    public void queryShouldReturnServerErrorWhenTheCommandFailsUnexpectedly() throws Exception {
+        // given
+        startServer(1, 0, (command, input, routeMap) -> {
+            throw new IllegalStateException("broken");
+        });
+
+        // when
+        Response response = request("GET", "/query?command=short&input=AD", null);
+
+        // then
+        assertThat(response.status).isEqualTo(500);
+        assertThat(response.body).isEqualTo("Could not answer the request: broken\n");
+    }
+
+    @Test
+    public void putMapShouldAddARouteMapThatCanBeQueried() throws Exception {
+        // given
+        startServer(1, 0, (command, input, routeMap) -> Integer.toString(routeMap.getCities().size()));
+
+        // when
+        Response putResponse = request("PUT", "/maps/extra", "AB5 BC4\nCD8 DE6");
+        Response listResponse = request("GET", "/maps", null);
+        Response queryResponse = request("GET", "/query?command=short&input=AE&map=extra", null);
+        Response invalidResponse = request("PUT", "/maps/broken", "AB");
+
+        // then
+        assertThat(putResponse.status).isEqualTo(201);
+        assertThat(listResponse.body).isEqualTo("default\nextra\n");
+        assertThat(queryResponse.body).isEqualTo("5\n");
+        assertThat(invalidResponse.status).isEqualTo(400);
+    }
+
+    @Test
+    public void queryShouldBeTurnedAwayWhenWorkersAndQueueAreFull() throws Exception {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        startServer(1, 0, (command, input, routeMap) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        });
+        ExecutorService client = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<Response> blocked = client.submit(() -> request("GET", "/query?command=short&input=AD", null));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        Response rejected = request("GET", "/query?command=short&input=AD", null);
+        release.countDown();
+
+        // then
+        assertThat(rejected.status).isEqualTo(503);
+        assertThat(blocked.get(10, TimeUnit.SECONDS).body).isEqualTo("done\n");
+        client.shutdown();
+    }
+
+    private void startServer(int numWorkers, int queueDepth, RoutingServer.CommandExecutor commandExecutor) throws IOException {
+        routingServer = new RoutingServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                numWorkers,
+                queueDepth,
+                true,
+                routeMapFactory,
+                commandExecutor);
+        RouteMap routeMap = routeMapFactory.createRouteMap(Arrays.asList("AB5", "BC4", "CD8"));
+        routingServer.addRouteMap(RoutingServer.DEFAULT_ROUTE_MAP_NAME, routeMap);
+        routingServer.start();
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        URL url = new URL("http://localhost:" + routingServer.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+            return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static class Response {
+
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
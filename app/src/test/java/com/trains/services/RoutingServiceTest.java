@@ -0,0 +1,532 @@
+package com.trains.services;
+
+import com.trains.exceptions.*;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.City;
+import com.trains.models.Route;
+import com.trains.models.RouteMap;
+import com.trains.models.UnitRoute;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class RoutingServiceTest {
+
+    private final RouteMapFactory routeMapFactory;
+    private final RouteFactory routeFactory;
+    private final RoutingService routingService;
+
+    public RoutingServiceTest() {
+        routeMapFactory = mock(RouteMapFactory.class);
+        routeFactory = mock(RouteFactory.class);
+        routingService = new RoutingService(routeMapFactory, routeFactory);
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnUsageMessageIfTooFewArgs() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABC");
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("enter at least 3 arguments");
+        assertThat(result).contains("<command> <command input> <route 1>");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnInvalidCommandMessageIfInvalidCommandArg() {
+        // given
+        List<String> args = Arrays.asList("invalid", "ABC", "AB5", "BC3");
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("enter a valid command");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnInvalidRouteMessageIfCreateRouteMapThrowsInvalidRouteException() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABC", "AB5", "BCC3");
+        when(routeMapFactory.createRouteMap(anyListOf(String.class), anyListOf(Path.class)))
+                .thenThrow(new InvalidRouteException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("enter a valid route");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnInvalidDistanceInputMessageIfCreateRouteThrowsInvalidDistanceInputException() {
+        // given
+        List<String> args = Arrays.asList("dist", "AB2", "AB5", "BC3");
+        when(routeFactory.createRoute(anyString(), any(RouteMap.class)))
+                .thenThrow(new InvalidDistanceInputException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("enter a valid distance command input");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnDuplicateRouteMessageIfCreateRouteMapThrowsDuplicateRouteException() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABC", "AB5", "BC3", "AB6");
+        when(routeMapFactory.createRouteMap(anyListOf(String.class), anyListOf(Path.class)))
+                .thenThrow(new DuplicateRouteException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("do not enter duplicate routes");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnSelfRouteMessageIfCreateRouteMapThrowsSelfRouteException() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABC", "AB5", "BC3", "CC6");
+        when(routeMapFactory.createRouteMap(anyListOf(String.class), anyListOf(Path.class)))
+                .thenThrow(new SelfRouteException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("do not enter a route with the same origin and destination");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnMissingCityMessageIfCreateRouteThrowsNoSuchCityException() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABCD", "AB5", "BC3");
+        when(routeFactory.createRoute(anyString(), any(RouteMap.class)))
+                .thenThrow(new NoSuchCityException('D'));
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("No such city D");
+        assertThat(result).contains("do not enter a distance command input that includes a city not present");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnNoSuchRouteMessageIfCreateRouteReturnsRouteWithNoPossibleRoute() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABCD", "AB5", "BC3", "CA4", "AD6");
+
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        City cityD = new City('D', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityA.addUnitRoute(new UnitRoute(cityD, 6));
+        Route route = new Route(Arrays.asList(cityA, cityB, cityC, cityD));
+
+        when(routeFactory.createRoute(anyString(), any(RouteMap.class)))
+                .thenReturn(route);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("NO SUCH ROUTE");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnDistanceIfCreateRouteReturnsRoute() {
+        // given
+        List<String> args = Arrays.asList("dist", "ABCD", "AB5", "CA4", "BC3", "CD6");
+
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        City cityD = new City('D', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityC.addUnitRoute(new UnitRoute(cityA, 4));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityC.addUnitRoute(new UnitRoute(cityD, 6));
+        Route route = new Route(Arrays.asList(cityA, cityB, cityC, cityD));
+
+        when(routeFactory.createRoute(anyString(), any(RouteMap.class)))
+                .thenReturn(route);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("14");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnNoSuchRouteMessageIfCreateShortestRouteThrowsNoPossibleRouteException() {
+        // given
+        List<String> args = Arrays.asList("short", "AD", "AB5", "BC3", "CA4", "DA6");
+        when(routeFactory.createShortestRoute(anyString(), any(RouteMap.class)))
+                .thenThrow(new NoSuchRouteException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("NO SUCH ROUTE");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnShortestDistanceIfCreateShortestRouteReturnsRoute() {
+        // given
+        List<String> args = Arrays.asList("short", "AD", "AB5", "CD2", "BC3", "BD6");
+
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        City cityD = new City('D', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityC.addUnitRoute(new UnitRoute(cityD, 2));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityB.addUnitRoute(new UnitRoute(cityD, 6));
+        Route route = new Route(Arrays.asList(cityA, cityB, cityC, cityD));
+
+        when(routeFactory.createShortestRoute(anyString(), any(RouteMap.class)))
+                .thenReturn(route);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("10");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnShortestDistanceIfCreateShortestRouteWithLandmarksReturnsRoute() {
+        // given
+        List<String> args = Arrays.asList("altshort", "AC", "AB5", "BC3");
+
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        Route route = new Route(Arrays.asList(cityA, cityB, cityC));
+
+        when(routeFactory.createShortestRouteWithLandmarks(anyString(), any(RouteMap.class)))
+                .thenReturn(route);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("8");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnShortestDistanceForContractionHierarchy() {
+        // given
+        List<String> args = Arrays.asList("chshort", "AD", "AB5", "CD2", "BC3", "BD6");
+
+        City cityA = new City('A', new HashSet<>());
+        City cityB = new City('B', new HashSet<>());
+        City cityC = new City('C', new HashSet<>());
+        City cityD = new City('D', new HashSet<>());
+        cityA.addUnitRoute(new UnitRoute(cityB, 5));
+        cityC.addUnitRoute(new UnitRoute(cityD, 2));
+        cityB.addUnitRoute(new UnitRoute(cityC, 3));
+        cityB.addUnitRoute(new UnitRoute(cityD, 6));
+        Route route = new Route(Arrays.asList(cityA, cityB, cityC, cityD));
+
+        when(routeFactory.createShortestRouteWithContractionHierarchy(anyString(), any(RouteMap.class)))
+                .thenReturn(route);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("10");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnNumberOfRoutesIfCountAllRoutesWithExactStopsReturnsCount() {
+        // given
+        List<String> args = Arrays.asList("stops", "AD3", "AB5", "CD2", "BC3", "BD6");
+
+        when(routeFactory.countAllRoutesWithExactStops(anyString(), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("1");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnNumberOfRoutesIfCountAllRoutesWithMaxStopsReturnsCount() {
+        // given
+        List<String> args = Arrays.asList("maxstops", "AD3", "AB5", "CD2", "BC3", "BD6");
+
+        when(routeFactory.countAllRoutesWithMaxStops(anyString(), any(RouteMap.class)))
+                .thenReturn(2L);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("2");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnRouteCountOverflowMessageIfCountAllRoutesWithMaxStopsOverflows() {
+        // given
+        List<String> args = Arrays.asList("maxstops", "AB99", "AB5", "BA3");
+
+        when(routeFactory.countAllRoutesWithMaxStops(anyString(), any(RouteMap.class)))
+                .thenThrow(new RouteCountOverflowException());
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).contains("too large to count");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnNumberOfRoutesIfCountAllRoutesWithMaxDistanceReturnsCount() {
+        // given
+        List<String> args = Arrays.asList("maxdist", "AD11", "AB5", "CD2", "BC3", "BD6");
+
+        when(routeFactory.countAllRoutesWithMaxDistance(anyString(), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = routingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("1");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldWriteBatchResultsInOrderAndReturnCount() throws Exception {
+        // given
+        Path commands = Files.createTempFile("trains-batch", ".txt");
+        Files.write(commands, Arrays.asList("stops AC2", "bogus AC", "maxstops", "batch AC"));
+        List<String> args = Arrays.asList("batch", commands.toString(), "AB5", "BC3");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        when(routeFactory.countAllRoutesWithExactStops(anyString(), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = routingService.executeRoutingCommand(args, new PrintStream(output));
+
+        // then
+        assertThat(result.split("\n")).hasSize(3);
+        assertThat(result.split("\n")[0]).isEqualTo("Executed 4 commands.");
+        assertThat(result.split("\n")[1]).startsWith("stops: 1 queries, 0 errors {}");
+        assertThat(result.split("\n")[2]).startsWith("batch: 1 queries, 1 errors {InvalidBatchCommandException=1}");
+        assertThat(output.toString().split(System.lineSeparator())).containsExactly(
+                "1",
+                new CommandNotFoundException().getMessage(),
+                new InvalidBatchCommandException().getMessage(),
+                new InvalidBatchCommandException().getMessage());
+        Files.delete(commands);
+    }
+
+    @Test
+    public void executeRoutingCommandShouldKeepRunningBatchInParallelAfterAnUnexpectedError() throws Exception {
+        // given
+        RoutingService parallelRoutingService = new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(0, 0), new QueryMetrics(), 2, 0, 0, 0, 1024, true);
+        Path commands = Files.createTempFile("trains-batch", ".txt");
+        Files.write(commands, Arrays.asList("stops AC99999999999", "stops AC2"));
+        List<String> args = Arrays.asList("batch", commands.toString(), "AB5", "BC3");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        when(routeFactory.countAllRoutesWithExactStops(eq("AC99999999999"), any(RouteMap.class)))
+                .thenThrow(new NumberFormatException("For input string: \"99999999999\""));
+        when(routeFactory.countAllRoutesWithExactStops(eq("AC2"), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = parallelRoutingService.executeRoutingCommand(args, new PrintStream(output));
+
+        // then
+        assertThat(result.split("\n")[0]).isEqualTo("Executed 2 commands.");
+        assertThat(output.toString().split(System.lineSeparator())).containsExactly(
+                "For input string: \"99999999999\"",
+                "1");
+        Files.delete(commands);
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnBatchInputMessageIfCommandsFileIsMissing() {
+        // given
+        List<String> args = Arrays.asList("batch", "no/such/commands.txt", "AB5", "BC3");
+
+        // when
+        String result = routingService.executeRoutingCommand(args, new PrintStream(new ByteArrayOutputStream()));
+
+        // then
+        assertThat(result).isEqualTo(new BatchInputException("no/such/commands.txt").getMessage());
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReturnInvalidServerPortMessageIfPortIsNotANumber() {
+        // given
+        List<String> args = Arrays.asList("serve", "http", "AB5", "BC3");
+
+        // when
+        String result = routingService.executeRoutingCommand(args, new PrintStream(new ByteArrayOutputStream()));
+
+        // then
+        assertThat(result).isEqualTo(new InvalidServerPortException().getMessage());
+    }
+
+    @Test
+    public void executeCommandShouldReturnBudgetExceededWithPartialCountsWhenExpansionsRunOut() {
+        // given
+        RoutingService budgetedRoutingService = new RoutingService(
+                new RouteMapFactory(), new RouteFactory(), new QueryCache(0, 0), new QueryMetrics(), 1, 0, 10_000, 0, 1024, true);
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC4", "CD8", "DC8", "DE6", "AD5", "CE2", "EB3", "AE7"));
+
+        // when
+        String result = null;
+        try {
+            budgetedRoutingService.executeCommand("maxdist", "CC100000", routeMap);
+        } catch (QueryBudgetExceededException e) {
+            result = e.getMessage();
+        }
+        String withinBudgetResult = budgetedRoutingService.executeCommand("maxdist", "CC30", routeMap);
+
+        // then
+        assertThat(result).matches("Query budget exceeded, it may follow at most 10000 unit routes\\. "
+                + "Found at least [1-9]\\d* routes after following \\d+ unit routes\\.");
+        assertThat(withinBudgetResult).isEqualTo("7");
+    }
+
+    @Test
+    public void constructorShouldRejectANegativeQueryBudget() {
+        assertThatThrownBy(() -> new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(0, 0), new QueryMetrics(), 1, -1, 0, 0, 1024, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trains.query.timeout-millis");
+        assertThatThrownBy(() -> new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(0, 0), new QueryMetrics(), 1, 0, -1, 0, 1024, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trains.query.max-expansions");
+    }
+
+    @Test
+    public void executeCommandShouldAnswerRepeatedQueriesFromTheQueryCache() {
+        // given
+        RoutingService cachingRoutingService = new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(10, 1000), new QueryMetrics(), 1, 0, 0, 0, 1024, true);
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC3"));
+        RouteMap reorderedRouteMap = new RouteMapFactory().createRouteMap(Arrays.asList("BC3", "AB5"));
+
+        when(routeFactory.countAllRoutesWithMaxDistance(anyString(), any(RouteMap.class)))
+                .thenReturn(7L);
+
+        // when
+        String result = cachingRoutingService.executeCommand("maxdist", "AC30", routeMap);
+        String cachedResult = cachingRoutingService.executeCommand("maxdist", "AC030", reorderedRouteMap);
+
+        // then
+        assertThat(result).isEqualTo("7");
+        assertThat(cachedResult).isEqualTo("7");
+        verify(routeFactory, times(1)).countAllRoutesWithMaxDistance(anyString(), any(RouteMap.class));
+    }
+
+    @Test
+    public void executeCommandShouldNotShareACachedResultBetweenDifferentNumbers() {
+        // given
+        RoutingService cachingRoutingService = new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(10, 1000), new QueryMetrics(), 1, 0, 0, 0, 1024, true);
+        RouteMap routeMap = new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC3"));
+
+        when(routeFactory.countAllRoutesWithMaxDistance(eq("AC100"), any(RouteMap.class)))
+                .thenReturn(7L);
+        when(routeFactory.countAllRoutesWithMaxDistance(eq("AC10"), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = cachingRoutingService.executeCommand("maxdist", "AC100", routeMap);
+        String otherResult = cachingRoutingService.executeCommand("maxdist", "AC10", routeMap);
+
+        // then
+        assertThat(result).isEqualTo("7");
+        assertThat(otherResult).isEqualTo("1");
+    }
+
+    @Test
+    public void executeRoutingCommandShouldNotUseAQueryCacheThatIsNotKeptInAFile() {
+        // given
+        QueryCache queryCache = new QueryCache(10, 1000);
+        RoutingService cachingRoutingService = new RoutingService(
+                routeMapFactory, routeFactory, queryCache, new QueryMetrics(), 1, 0, 0, 0, 1024, true);
+        List<String> args = Arrays.asList("stops", "AC2", "AB5", "BC3");
+
+        when(routeFactory.countAllRoutesWithExactStops(anyString(), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = cachingRoutingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("1");
+        assertThat(queryCache.getMissCount()).isEqualTo(0);
+        assertThat(queryCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void executeRoutingCommandShouldReportAQueryCacheSaveFailureAfterTheResult() throws Exception {
+        // given
+        Path cacheFile = Files.createTempDirectory("trains-cache");
+        Path blocker = Files.createFile(cacheFile.resolve("blocker"));
+        RoutingService cachingRoutingService = new RoutingService(
+                routeMapFactory, routeFactory, new QueryCache(10, 1000, cacheFile), new QueryMetrics(),
+                1, 0, 0, 0, 1024, true);
+        List<String> args = Arrays.asList("stops", "AC2", "AB5", "BC3");
+
+        when(routeMapFactory.createRouteMap(anyListOf(String.class), anyListOf(Path.class)))
+                .thenReturn(new RouteMapFactory().createRouteMap(Arrays.asList("AB5", "BC3")));
+        when(routeFactory.countAllRoutesWithExactStops(anyString(), any(RouteMap.class)))
+                .thenReturn(1L);
+
+        // when
+        String result = cachingRoutingService.executeRoutingCommand(args);
+
+        // then
+        assertThat(result).isEqualTo("1\n" + new QueryCacheException(cacheFile.toString()).getMessage());
+        Files.delete(blocker);
+        Files.delete(cacheFile);
+    }
+}
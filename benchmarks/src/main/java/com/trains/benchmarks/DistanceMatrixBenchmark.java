@@ -0,0 +1,66 @@
+package com.trains.benchmarks;
+
+import com.trains.enums.Topology;
+import com.trains.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The apsp command once its distance matrix is worked out. The matrix has a distance for every
+ * pair of cities, so the maps are smaller than for the other commands.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class DistanceMatrixBenchmark {
+
+    @Param({"SPARSE"})
+    public Topology topology;
+
+    @Param({"100", "1000"})
+    public int cities;
+
+    @Param({"2", "4"})
+    public int density;
+
+    private final NetworkState state = new NetworkState();
+    private String[] originDestinationInputs;
+    private int query;
+
+    @Setup
+    public void setUp() throws IOException {
+        state.topology = topology;
+        state.cities = cities;
+        state.density = density;
+        state.setUp();
+        originDestinationInputs = state.network.createOriginDestinationInputs(NetworkState.NUM_QUERIES, NetworkState.SEED);
+        state.routeFactory.createShortestRouteWithDistanceMatrix(originDestinationInputs[0], state.routeMap);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        state.tearDown();
+    }
+
+    @Benchmark
+    public Route shortestRouteWithDistanceMatrix() {
+        query = (query + 1) % originDestinationInputs.length;
+        return state.routeFactory.createShortestRouteWithDistanceMatrix(originDestinationInputs[query], state.routeMap);
+    }
+}
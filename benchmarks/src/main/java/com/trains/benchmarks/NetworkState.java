@@ -0,0 +1,63 @@
+package com.trains.benchmarks;
+
+import com.trains.engines.AltEngine;
+import com.trains.enums.LandmarkSelection;
+import com.trains.enums.Topology;
+import com.trains.factories.RouteFactory;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A synthetic route map loaded once per trial, sparse unless another topology is picked with eg.
+ * {@code -p topology=SCALE_FREE}, and the factory that answers queries on it.
+ * Queries are drawn in turn from a fixed set of random inputs, so no single pair of cities
+ * decides the result.
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+
+    static final long SEED = 42;
+    static final int NUM_QUERIES = 64;
+
+    @Param({"SPARSE"})
+    public Topology topology;
+
+    @Param({"1000", "10000"})
+    public int cities;
+
+    @Param({"2", "4"})
+    public int density;
+
+    SyntheticNetwork network;
+    RouteMap routeMap;
+    RouteFactory routeFactory;
+    private Path distanceMatrixCacheDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        network = new SyntheticNetwork(topology, cities, density, SEED);
+        routeMap = new RouteMapFactory().createRouteMap(network.getRoutes());
+        distanceMatrixCacheDirectory = Files.createTempDirectory("trains-benchmarks");
+        routeFactory = new RouteFactory(AltEngine.DEFAULT_LANDMARK_COUNT, LandmarkSelection.FARTHEST,
+                distanceMatrixCacheDirectory.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(distanceMatrixCacheDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
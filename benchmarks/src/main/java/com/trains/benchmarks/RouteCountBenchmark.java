@@ -0,0 +1,84 @@
+package com.trains.benchmarks;
+
+import com.trains.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stops, maxstops and maxdist commands, which count routes, and the methods that list
+ * every one of the routes. The bound is the number of stops, and the maximum distance is the
+ * bound times the mean distance of a route between two cities.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class RouteCountBenchmark {
+
+    @Param({"3", "6"})
+    public int bound;
+
+    private String[] stopsInputs;
+    private String[] distanceInputs;
+    private int query;
+
+    @Setup
+    public void setUp(NetworkState state) {
+        String[] originDestinationInputs = state.network.createOriginDestinationInputs(NetworkState.NUM_QUERIES, NetworkState.SEED);
+        stopsInputs = new String[originDestinationInputs.length];
+        distanceInputs = new String[originDestinationInputs.length];
+        for (int i = 0; i < originDestinationInputs.length; i++) {
+            stopsInputs[i] = originDestinationInputs[i] + state.network.getNumberSeparator() + bound;
+            distanceInputs[i] = originDestinationInputs[i] + state.network.getNumberSeparator() + bound * SyntheticNetwork.MEAN_DISTANCE;
+        }
+    }
+
+    @Benchmark
+    public long numberOfRoutesWithStops(NetworkState state) {
+        return state.routeFactory.countAllRoutesWithExactStops(next(stopsInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public long numberOfRoutesWithMaximumStops(NetworkState state) {
+        return state.routeFactory.countAllRoutesWithMaxStops(next(stopsInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public long numberOfRoutesWithMaximumDistance(NetworkState state) {
+        return state.routeFactory.countAllRoutesWithMaxDistance(next(distanceInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public List<Route> allRoutesWithExactStops(NetworkState state) {
+        return state.routeFactory.createAllRoutesWithExactStops(next(stopsInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public List<Route> allRoutesWithMaxStops(NetworkState state) {
+        return state.routeFactory.createAllRoutesWithMaxStops(next(stopsInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public List<Route> allRoutesWithMaxDistance(NetworkState state) {
+        return state.routeFactory.createAllRoutesWithMaxDistance(next(distanceInputs), state.routeMap);
+    }
+
+    private String next(String[] inputs) {
+        query = (query + 1) % inputs.length;
+        return inputs[query];
+    }
+}
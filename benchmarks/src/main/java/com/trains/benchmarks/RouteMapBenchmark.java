@@ -0,0 +1,53 @@
+package com.trains.benchmarks;
+
+import com.trains.enums.Topology;
+import com.trains.factories.RouteMapFactory;
+import com.trains.models.RouteMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, validating and compiling the routes given on the command line into a route map.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class RouteMapBenchmark {
+
+    @Param({"SPARSE"})
+    public Topology topology;
+
+    @Param({"1000", "10000"})
+    public int cities;
+
+    @Param({"2", "8"})
+    public int density;
+
+    private final RouteMapFactory routeMapFactory = new RouteMapFactory();
+    private List<String> routes;
+
+    @Setup
+    public void setUp() {
+        routes = new SyntheticNetwork(topology, cities, density, NetworkState.SEED).getRoutes();
+    }
+
+    @Benchmark
+    public RouteMap createRouteMap() {
+        return routeMapFactory.createRouteMap(routes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.trains.benchmarks;
+
+import com.trains.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dist, short, chshort and altshort commands. The contraction hierarchy and landmarks are
+ * built before measuring, so only the queries are timed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class ShortestRouteBenchmark {
+
+    @Param({"4"})
+    public int routeStops;
+
+    private String[] routeInputs;
+    private String[] originDestinationInputs;
+    private int query;
+
+    @Setup
+    public void setUp(NetworkState state) {
+        routeInputs = state.network.createRouteInputs(NetworkState.NUM_QUERIES, routeStops, NetworkState.SEED);
+        originDestinationInputs = state.network.createOriginDestinationInputs(NetworkState.NUM_QUERIES, NetworkState.SEED);
+        state.routeFactory.createShortestRouteWithContractionHierarchy(originDestinationInputs[0], state.routeMap);
+        state.routeFactory.createShortestRouteWithLandmarks(originDestinationInputs[0], state.routeMap);
+    }
+
+    @Benchmark
+    public int distanceOfRoute(NetworkState state) {
+        return state.routeFactory.createRoute(next(routeInputs), state.routeMap).calculateDistance();
+    }
+
+    @Benchmark
+    public Route shortestRoute(NetworkState state) {
+        return state.routeFactory.createShortestRoute(next(originDestinationInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public Route shortestRouteWithContractionHierarchy(NetworkState state) {
+        return state.routeFactory.createShortestRouteWithContractionHierarchy(next(originDestinationInputs), state.routeMap);
+    }
+
+    @Benchmark
+    public Route shortestRouteWithLandmarks(NetworkState state) {
+        return state.routeFactory.createShortestRouteWithLandmarks(next(originDestinationInputs), state.routeMap);
+    }
+
+    private String next(String[] inputs) {
+        query = (query + 1) % inputs.length;
+        return inputs[query];
+    }
+}
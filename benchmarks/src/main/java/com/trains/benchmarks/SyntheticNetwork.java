@@ -0,0 +1,89 @@
+package com.trains.benchmarks;
+
+import com.trains.enums.DistanceDistribution;
+import com.trains.enums.Topology;
+import com.trains.generators.NetworkGenerator;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A network made by {@link NetworkGenerator}, with uniform distances from 1 to
+ * {@link #MAX_DISTANCE}, and random queries on it. The same arguments give the same routes and
+ * queries on every run.
+ */
+final class SyntheticNetwork {
+
+    static final int MAX_DISTANCE = 9;
+    static final int MEAN_DISTANCE = (1 + MAX_DISTANCE) / 2;
+
+    private final NetworkGenerator generator;
+    private final int numCities;
+    private final int[][] destinations;
+    private final List<String> routes;
+
+    SyntheticNetwork(Topology topology, int numCities, int density, long seed) {
+        this.generator = new NetworkGenerator(topology, numCities, density, DistanceDistribution.UNIFORM, 1, MAX_DISTANCE, seed);
+        this.numCities = numCities;
+        this.routes = generator.generateRoutes();
+
+        int[] numDestinations = new int[numCities];
+        generator.generate((originCityId, destinationCityId, distance) -> numDestinations[originCityId]++);
+        destinations = new int[numCities][];
+        for (int city = 0; city < numCities; city++) {
+            destinations[city] = new int[numDestinations[city]];
+        }
+        int[] numFilled = new int[numCities];
+        generator.generate((originCityId, destinationCityId, distance) ->
+                destinations[originCityId][numFilled[originCityId]++] = destinationCityId);
+    }
+
+    List<String> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Returns inputs of the form C1-C2, or AB for small networks, for random pairs of different
+     * cities.
+     */
+    String[] createOriginDestinationInputs(int numInputs, long seed) {
+        Random random = new Random(seed);
+        String[] inputs = new String[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            int origin = random.nextInt(numCities);
+            int destination = (origin + 1 + random.nextInt(numCities - 1)) % numCities;
+            inputs[i] = generator.getCityName(origin) + getSeparator() + generator.getCityName(destination);
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns inputs of the form C1-C2-C3, or ABC for small networks, for random walks of the
+     * given number of stops along the network's routes.
+     */
+    String[] createRouteInputs(int numInputs, int numStops, long seed) {
+        Random random = new Random(seed);
+        String[] inputs = new String[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            int city = random.nextInt(numCities);
+            StringBuilder input = new StringBuilder(generator.getCityName(city));
+            for (int stop = 0; stop < numStops; stop++) {
+                city = destinations[city][random.nextInt(destinations[city].length)];
+                input.append(getSeparator()).append(generator.getCityName(city));
+            }
+            inputs[i] = input.toString();
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns the text between an origin and destination input and its number.
+     */
+    String getNumberSeparator() {
+        return getSeparator().isEmpty() ? "" : ":";
+    }
+
+    private String getSeparator() {
+        return generator.getCityName(0).length() == 1 ? "" : "-";
+    }
+}
@@ -0,0 +1,20 @@
+#!/usr/bin/env bash
+# Builds the app and the JMH benchmarks, then runs the benchmarks with the gc profiler and
+# writes their results as JSON to benchmarks/results/<label>.json, so runs on different versions
+# can be compared side by side, eg. by loading both files into a JMH visualizer.
+#
+# Usage: scripts/run-benchmarks.sh [label] [JMH options...]
+# The label defaults to the current git commit. Any JMH options follow it, eg. a benchmark name
+# pattern or -p cities=1000 to pick parameter values.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+LABEL=${1:-$(git describe --always --dirty)}
+shift || true
+
+mvn -B -q package -DskipTests
+
+mkdir -p benchmarks/results
+java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff "benchmarks/results/$LABEL.json" "$@"
@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Compares the start-up time of the Spring launcher (App) and the hand-wired launcher (FastApp)
+# by running the same command through each of them a number of times, and checks that both
+# print exactly the same output.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [command] [command input] [routes...]
+# Build the jar with mvn package first.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=$(ls app/target/trains-*.jar | grep -v -- '-classes\.jar$' | head -n 1)
+RUNS=${1:-10}
+shift || true
+if [ $# -lt 3 ]; then
+    set -- dist ABC AB5 BC4 CD8 DC8 DE6 AD5 CE2 EB3 AE7
+fi
+
+APP=(java -jar "$JAR")
+FAST_APP=(java -Dloader.main=com.trains.FastApp -cp "$JAR" org.springframework.boot.loader.PropertiesLauncher)
+
+if ! diff <("${APP[@]}" "$@") <("${FAST_APP[@]}" "$@") > /dev/null; then
+    echo "The launchers' output differs for: $*" >&2
+    exit 1
+fi
+
+time_launcher() {
+    local name=$1
+    shift
+    local start end
+    start=$(date +%s%N)
+    for _ in $(seq "$RUNS"); do
+        "$@" > /dev/null
+    done
+    end=$(date +%s%N)
+    printf "%-8s %6d ms per run\n" "$name" $(( (end - start) / RUNS / 1000000 ))
+}
+
+echo "$RUNS runs of: $*"
+time_launcher App "${APP[@]}" "$@"
+time_launcher FastApp "${FAST_APP[@]}" "$@"